@@ -0,0 +1,130 @@
+package com.pacifictrout.lemurshift.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.pacifictrout.lemurshift.Generate;
+
+import core.CSVUtils;
+import core.Employee;
+
+/*
+ * CSVUtils roster parsing on generated files: the streaming state machine, the memory-mapped parallel loader
+ * and, as the baseline, the regex split implementation they replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CSVParserBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void writeRoster() throws IOException {
+        file = Files.createTempFile("roster", ".csv");
+        Generate.writeRoster(file, rows, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRoster() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void forEachEmployeeInCSV(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            CSVUtils.forEachEmployeeInCSV(reader, "Employee ID", "First Name", "Last Name", blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public List<Employee> parseEmployeeDataFromCSV() throws IOException {
+        return CSVUtils.parseEmployeeDataFromCSV(file.toString(), "Employee ID", "First Name", "Last Name");
+    }
+
+    @Benchmark
+    public List<Employee> parseEmployeeDataFromCSVParallel() throws IOException {
+        return CSVUtils.parseEmployeeDataFromCSVParallel(file.toString(), "Employee ID", "First Name", "Last Name");
+    }
+
+    @Benchmark
+    public List<Employee> regexSplit() throws IOException {
+        return legacyParse(file, "Employee ID", "First Name", "Last Name");
+    }
+
+    // The parser as it was before the state machine, kept verbatim as the baseline
+    private static List<Employee> legacyParse(Path pathToFile, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
+        List<Employee> employees = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(pathToFile)) {
+            String line = br.readLine();
+            String[] headers = line.split(",");
+            int idIndex = legacyHeaderIndex(headers, idHeader);
+            int nameIndex = legacyHeaderIndex(headers, nameHeader);
+            int lastNameIndex = legacyHeaderIndex(headers, lastNameHeader);
+            int daysOffIndex = legacyHeaderIndex(headers, "Days Off");
+
+            while ((line = br.readLine()) != null) {
+                String[] attributes = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
+                String id = (idIndex != -1) ? attributes[idIndex].replaceAll("\"", "") : "";
+                String firstName = (nameIndex != -1) ? attributes[nameIndex].replaceAll("\"", "") : "";
+                String lastName = (lastNameIndex != -1) ? attributes[lastNameIndex].replaceAll("\"", "") : "";
+                Set<DayOfWeek> daysOff = legacyDaysOff(attributes[daysOffIndex].replaceAll("\"", ""));
+                employees.add(new Employee(id, firstName + " " + lastName, daysOff, 5));
+            }
+        }
+        return employees;
+    }
+
+    private static int legacyHeaderIndex(String[] headers, String headerName) {
+        if (headerName != null && !headerName.isEmpty()) {
+            for (int i = 0; i < headers.length; i++) {
+                if (headerName.equalsIgnoreCase(headers[i].trim())) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static Set<DayOfWeek> legacyDaysOff(String daysOffString) {
+        Set<DayOfWeek> daysOff = EnumSet.noneOf(DayOfWeek.class);
+        daysOffString = daysOffString.replaceAll("^\"|\"$", "");
+        for (String day : daysOffString.split("\\s*,\\s*")) {
+            try {
+                daysOff.add(DayOfWeek.valueOf(day.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid day of week in CSV: " + day);
+            }
+        }
+        return daysOff;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pacifictrout.lemurshift.benchmarks;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import core.Employee;
+
+// Seeded synthetic rosters shared by the benchmark suites
+final class Rosters {
+
+    private Rosters() {
+    }
+
+    // Two consecutive days off per employee, like the bundled sample roster
+    static List<Employee> synthetic(int size, long seed) {
+        DayOfWeek[] days = DayOfWeek.values();
+        Random random = new Random(seed);
+        List<Employee> employees = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int first = random.nextInt(days.length);
+            Set<DayOfWeek> daysOff = EnumSet.of(days[first], days[(first + 1) % days.length]);
+            employees.add(new Employee(String.valueOf(i), "Employee " + i, daysOff, 5));
+        }
+        return employees;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.pacifictrout.lemurshift.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import core.Shift;
+import core.ShiftBlock;
+import core.ShiftPattern;
+import functionality.ShiftScheduler;
+
+// ShiftScheduler.generateShiftTemplates and ShiftPattern streams for horizons from a day to five years
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShiftGenerationBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final ShiftPattern PATTERN = ShiftPattern.parse("weekdays 06:00-14:00, 14:00-22:00, 22:00-06:00; weekends 08:00-20:00, 20:00-08:00");
+
+    @Param({"1", "30", "365", "1825"})
+    public int horizonDays;
+
+    @Param({"1", "8"})
+    public int shiftHours;
+
+    @Benchmark
+    public List<Shift> generateShiftTemplates() {
+        return ShiftScheduler.generateShiftTemplates(START, START.plusDays(horizonDays), shiftHours);
+    }
+
+    // Same shifts, materialized as Shift objects with LocalDateTime times as a caller iterating the list would see them
+    @Benchmark
+    public void generateAndReadShiftTemplates(Blackhole blackhole) {
+        for (Shift shift : ShiftScheduler.generateShiftTemplates(START, START.plusDays(horizonDays), shiftHours)) {
+            blackhole.consume(shift.getStartTime());
+        }
+    }
+
+    @Benchmark
+    public ShiftBlock generateShiftBlock() {
+        return ShiftBlock.generate(START, START.plusDays(horizonDays), shiftHours);
+    }
+
+    // Recurring pattern streamed lazily; shiftHours does not apply, the pattern has two or three shifts a day
+    @Benchmark
+    public void streamShiftPattern(Blackhole blackhole) {
+        PATTERN.stream(START.toLocalDate(), START.toLocalDate().plusDays(horizonDays)).forEach(blackhole::consume);
+    }
+}
@@ -0,0 +1,63 @@
+package com.pacifictrout.lemurshift.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Roster;
+import core.Shift;
+import functionality.ShiftScheduler;
+
+/*
+ * ShiftScheduler.assignShifts over the cross product of roster sizes and horizons. Every invocation builds a
+ * new scheduler over the same immutable Roster, so the score covers heap/index construction plus all assignments.
+ * Comparing scores along rosterSize shows how assignment time grows with the roster.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShiftSchedulerBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 6, 0);
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int rosterSize;
+
+    @Param({"1", "7", "30", "365"})
+    public int horizonDays;
+
+    @Param({"8"})
+    public int shiftHours;
+
+    private Roster roster;
+    private List<Shift> shifts;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        roster = new Roster(Rosters.synthetic(rosterSize, 42));
+        shifts = ShiftScheduler.generateShiftTemplates(START, START.plusDays(horizonDays), shiftHours);
+    }
+
+    @Benchmark
+    public ShiftScheduler assignShifts() {
+        ShiftScheduler scheduler = new ShiftScheduler(roster);
+        scheduler.assignShifts(shifts);
+        return scheduler;
+    }
+}
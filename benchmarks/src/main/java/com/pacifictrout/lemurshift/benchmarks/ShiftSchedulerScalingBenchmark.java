@@ -0,0 +1,62 @@
+package com.pacifictrout.lemurshift.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Roster;
+import core.Shift;
+import functionality.ShiftScheduler;
+
+/*
+ * Scaling of ShiftScheduler.assignShifts with the roster, ported from the manual scaling harness. Unlike
+ * ShiftSchedulerBenchmark, whose horizon is fixed, the demand grows with the roster: shiftsPerEmployee hourly
+ * shifts per employee, so every doubling of rosterSize doubles the work. With the indexed fairness heap the time per
+ * shift stays roughly flat, i.e. the score grows close to linearly with rosterSize; a rebuild of the queue per
+ * assignment would make every shift O(n log n) and the score grow quadratically.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShiftSchedulerScalingBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"1000", "2000", "4000", "8000", "16000", "32000"})
+    public int rosterSize;
+
+    @Param({"1"})
+    public int shiftsPerEmployee;
+
+    private Roster roster;
+    private List<Shift> shifts;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        roster = new Roster(Rosters.synthetic(rosterSize, rosterSize));
+        shifts = ShiftScheduler.generateShiftTemplates(START, START.plusHours((long) rosterSize * shiftsPerEmployee), 1);
+    }
+
+    @Benchmark
+    public ShiftScheduler assignShifts() {
+        ShiftScheduler scheduler = new ShiftScheduler(roster);
+        scheduler.assignShifts(shifts);
+        return scheduler;
+    }
+}
@@ -1,2 +1,192 @@
 package com.pacifictrout.lemurshift;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Seeded generator of large synthetic rosters and matching shift-demand files, for load tests, benchmarks and
+ * reproducing production-sized problems offline. The same arguments and seed always produce the same files.
+ * Rows are written as they are generated, so memory use does not depend on the file size.
+ *
+ * Usage:
+ *   Generate roster <file> <employees> [seed]
+ *   Generate demand <file> <employees> <start date, e.g. 2024-01-01> <days> [seed]
+ *
+ * Rosters use the columns read by CSVUtils.parseEmployeeDataFromCSV plus 'Max Consecutive Shifts'.
+ * Demand files hold one row per person needed (Shift ID, Start, End) for three daily shifts, sized so that a
+ * roster generated with the same employee count can cover most of it.
+ */
+public class Generate {
+
+    static final String ROSTER_HEADER = "Employee ID,First Name,Last Name,Days Off,Max Consecutive Shifts";
+    static final String DEMAND_HEADER = "Shift ID,Start,End";
+
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Carlos", "Karen",
+        "Daniel", "Lisa", "Matthew", "Nancy", "Anthony", "Betty", "Mark", "Sandra", "Wei", "Ashley",
+        "Steven", "Kimberly", "Andrew", "Emily", "Kenji", "Donna", "Joshua", "Michelle", "Ahmed", "Carol"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+        "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores"
+    };
+    private static final String[] DAY_NAMES = {
+        "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"
+    };
+
+    // Weekends are the most requested days off
+    private static final int[] FIRST_DAY_OFF_WEIGHTS = {10, 8, 8, 8, 10, 28, 28};
+    // Index = number of days off per week: mostly two, some one, a few part-timers with three or four
+    private static final int[] DAYS_OFF_COUNT_WEIGHTS = {0, 10, 75, 10, 5};
+    // Index = maximum consecutive shifts
+    private static final int[] MAX_CONSECUTIVE_WEIGHTS = {0, 0, 0, 5, 15, 60, 20};
+    private static final int CONSECUTIVE_DAYS_OFF_PERCENT = 80;
+
+    // Daily shifts as start hour and duration, with their share of the day's demand
+    private static final int[][] DAILY_SHIFTS = {{6, 8}, {14, 8}, {22, 8}};
+    private static final double[] DAILY_SHIFT_SHARE = {0.40, 0.35, 0.25};
+    private static final double WEEKEND_DEMAND_FACTOR = 0.6;
+    private static final double TARGET_UTILIZATION = 0.85;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("roster")) {
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+            writeRoster(Paths.get(args[1]), Integer.parseInt(args[2]), seed);
+        } else if (args.length >= 5 && args[0].equals("demand")) {
+            long seed = args.length > 5 ? Long.parseLong(args[5]) : 42L;
+            writeDemand(Paths.get(args[1]), Integer.parseInt(args[2]), LocalDate.parse(args[3]), Integer.parseInt(args[4]), seed);
+        } else {
+            System.err.println("Usage:");
+            System.err.println("  Generate roster <file> <employees> [seed]");
+            System.err.println("  Generate demand <file> <employees> <start date> <days> [seed]");
+        }
+    }
+
+    public static void writeRoster(Path file, int employees, long seed) throws IOException {
+        try (Writer writer = newWriter(file)) {
+            writeRoster(writer, employees, seed);
+        }
+    }
+
+    public static void writeRoster(Writer writer, int employees, long seed) throws IOException {
+        Random random = new Random(seed);
+        StringBuilder row = new StringBuilder(128); // Reused for every row
+        boolean[] daysOff = new boolean[DAY_NAMES.length];
+
+        writer.write(ROSTER_HEADER);
+        writer.write('\n');
+        for (int i = 1; i <= employees; i++) {
+            pickDaysOff(random, daysOff);
+
+            row.setLength(0);
+            row.append(i).append(',')
+               .append(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]).append(',')
+               .append(LAST_NAMES[random.nextInt(LAST_NAMES.length)]).append(",\"");
+            boolean first = true;
+            for (int day = 0; day < daysOff.length; day++) {
+                if (daysOff[day]) {
+                    if (!first) {
+                        row.append(',');
+                    }
+                    row.append(DAY_NAMES[day]);
+                    first = false;
+                }
+            }
+            row.append("\",").append(weighted(random, MAX_CONSECUTIVE_WEIGHTS)).append('\n');
+            writer.append(row);
+        }
+    }
+
+    public static void writeDemand(Path file, int employees, LocalDate start, int days, long seed) throws IOException {
+        try (Writer writer = newWriter(file)) {
+            writeDemand(writer, employees, start, days, seed);
+        }
+    }
+
+    public static void writeDemand(Writer writer, int employees, LocalDate start, int days, long seed) throws IOException {
+        Random random = new Random(seed);
+        StringBuilder row = new StringBuilder(64);
+
+        // A typical employee works five days a week and at most one shift a day
+        double staffPerWeekday = employees * 5.0 / 7.0 * TARGET_UTILIZATION;
+
+        writer.write(DEMAND_HEADER);
+        writer.write('\n');
+        for (int d = 0; d < days; d++) {
+            LocalDate date = start.plusDays(d);
+            boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+            double dayStaff = staffPerWeekday * (weekend ? WEEKEND_DEMAND_FACTOR : 1.0);
+
+            for (int s = 0; s < DAILY_SHIFTS.length; s++) {
+                LocalDateTime shiftStart = date.atTime(DAILY_SHIFTS[s][0], 0);
+                String startText = shiftStart.toString();
+                String endText = shiftStart.plusHours(DAILY_SHIFTS[s][1]).toString();
+                // +/- 10% day-to-day noise around the expected demand
+                double noise = 0.9 + 0.2 * random.nextDouble();
+                int headcount = Math.max(1, (int) Math.round(dayStaff * DAILY_SHIFT_SHARE[s] * noise));
+
+                for (int k = 1; k <= headcount; k++) {
+                    row.setLength(0);
+                    row.append(date).append('-').append(s + 1).append('-').append(k).append(',')
+                       .append(startText).append(',').append(endText).append('\n');
+                    writer.append(row);
+                }
+            }
+        }
+    }
+
+    private static void pickDaysOff(Random random, boolean[] daysOff) {
+        Arrays.fill(daysOff, false);
+        int count = weighted(random, DAYS_OFF_COUNT_WEIGHTS);
+        int first = weighted(random, FIRST_DAY_OFF_WEIGHTS);
+        daysOff[first] = true;
+        if (random.nextInt(100) < CONSECUTIVE_DAYS_OFF_PERCENT) {
+            // A block of consecutive days starting at the first one, wrapping from Sunday to Monday
+            for (int i = 1; i < count; i++) {
+                daysOff[(first + i) % daysOff.length] = true;
+            }
+        } else {
+            for (int picked = 1; picked < count; ) {
+                int day = random.nextInt(daysOff.length);
+                if (!daysOff[day]) {
+                    daysOff[day] = true;
+                    picked++;
+                }
+            }
+        }
+    }
+
+    // Returns an index drawn with probability proportional to its weight
+    private static int weighted(Random random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int draw = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Unreachable with positive weights");
+    }
+
+    private static Writer newWriter(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 20);
+    }
+}
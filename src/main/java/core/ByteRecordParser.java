@@ -0,0 +1,140 @@
+package core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Byte-level twin of CsvRecordReader for UTF-8 input that is already in memory, typically a MappedByteBuffer.
+ * The structural characters (quote, comma, CR, LF) are ASCII and never occur inside a multi-byte UTF-8
+ * sequence, so records can be split without decoding; only the fields that become Strings are decoded.
+ */
+final class ByteRecordParser {
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final ByteBuffer buffer;
+    private int position;
+
+    private byte[] record = new byte[256];
+    private int recordLength;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+
+    ByteRecordParser(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    // Offset in the buffer right after the last parsed record (terminator included)
+    int position() {
+        return position;
+    }
+
+    // Parses the record starting at position(); records never start at or after limit
+    boolean next(int limit) {
+        if (position >= limit) {
+            return false;
+        }
+        recordLength = 0;
+        fieldCount = 0;
+        int state = FIELD_START;
+        int end = buffer.limit();
+
+        while (position < end) {
+            byte b = buffer.get(position++);
+            switch (state) {
+                case FIELD_START:
+                    if (b == '"') {
+                        state = QUOTED;
+                        break;
+                    }
+                    state = UNQUOTED;
+                    // fall through
+                case UNQUOTED:
+                    if (b == ',') {
+                        endField();
+                        state = FIELD_START;
+                    } else if (b == '\n' || b == '\r') {
+                        return endRecord(b, end);
+                    } else {
+                        append(b);
+                    }
+                    break;
+                case QUOTED:
+                    if (b == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    } else {
+                        append(b);
+                    }
+                    break;
+                default: // QUOTE_IN_QUOTED
+                    if (b == '"') {
+                        append(b);
+                        state = QUOTED;
+                    } else if (b == ',') {
+                        endField();
+                        state = FIELD_START;
+                    } else if (b == '\n' || b == '\r') {
+                        return endRecord(b, end);
+                    } else {
+                        append(b);
+                        state = UNQUOTED;
+                    }
+                    break;
+            }
+        }
+        endField(); // Last record without a line break
+        return true;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    String field(int index) {
+        int start = fieldStart(index);
+        return new String(record, start, fieldEnds[index] - start, StandardCharsets.UTF_8);
+    }
+
+    byte[] buffer() {
+        return record;
+    }
+
+    int fieldStart(int index) {
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+
+    int fieldEnd(int index) {
+        return fieldEnds[index];
+    }
+
+    boolean isBlankRecord() {
+        return fieldCount == 1 && fieldEnds[0] == 0;
+    }
+
+    private boolean endRecord(byte terminator, int end) {
+        endField();
+        if (terminator == '\r' && position < end && buffer.get(position) == '\n') {
+            position++;
+        }
+        return true;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldEnds[fieldCount++] = recordLength;
+    }
+
+    private void append(byte b) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, recordLength * 2);
+        }
+        record[recordLength++] = b;
+    }
+}
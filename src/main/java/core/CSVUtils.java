@@ -1,85 +1,231 @@
 package core;
 
 import core.Employee;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.io.*;
 import java.util.*;
 import java.time.DayOfWeek;
+import java.time.format.DateTimeParseException;
 import java.time.format.TextStyle;
 import java.util.Locale;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class CSVUtils {
 
+	  public static final String SHIFT_ID_HEADER = "Shift ID";
+	  public static final String SHIFT_START_HEADER = "Start";
+	  public static final String SHIFT_END_HEADER = "End";
+	  public static final String SHIFT_SKILLS_HEADER = "Required Skills";
+	  public static final String SHIFT_HEADCOUNT_HEADER = "Headcount";
+	  public static final String ASSIGNMENT_EMPLOYEE_HEADER = "Employee ID";
+	  public static final String ASSIGNMENT_FORCED_HEADER = "Forced";
+
 	  public static List<Employee> parseEmployeeDataFromCSV(String filePath, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
 	        List<Employee> employees = new ArrayList<>();
-	        Path pathToFile = Paths.get(filePath);
 
 	        // Try-with-resources to ensure the reader is closed after use
-	        try (BufferedReader br = Files.newBufferedReader(pathToFile)) {
-	            String line = br.readLine(); // Read the header line
-
-	            // Parse the header to find indexes using a method that accounts for optional headers
-	            String[] headers = line.split(","); // Split the headers on comma
-	            int idIndex = findHeaderIndex(headers, idHeader);
-	            int nameIndex = findHeaderIndex(headers, nameHeader);
-	            int lastNameIndex = findHeaderIndex(headers, lastNameHeader);
-	            int daysOffIndex = findHeaderIndex(headers, "Days Off"); // 'Days Off' column is mandatory and fixed
-
-	            while ((line = br.readLine()) != null) { // Read until the end of the file
-	                // Split line using regex to handle commas inside quotes
-	                String[] attributes = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-
-	                // Check if indexes are found, if not, default to a safe value or handle error
-	                String id = (idIndex != -1) ? attributes[idIndex].replaceAll("\"", "") : ""; // Handle missing ID
-	                String firstName = (nameIndex != -1) ? attributes[nameIndex].replaceAll("\"", "") : "";
-	                String lastName = (lastNameIndex != -1) ? attributes[lastNameIndex].replaceAll("\"", "") : "";
-	                String fullName = firstName + " " + lastName;
-
-	                Set<DayOfWeek> daysOff = parseDaysOff(attributes[daysOffIndex].replaceAll("\"", "")); // Remove quotes
-
-	                // Create employee object and add it to the list
-	                Employee employee = new Employee(id, fullName, daysOff, 5); // Assuming '5' is maxConsecutiveShifts
-	                employees.add(employee);
-	            }
+	        try (Reader reader = Files.newBufferedReader(Paths.get(filePath))) {
+	            forEachEmployeeInCSV(reader, idHeader, nameHeader, lastNameHeader, employees::add);
 	        }
 
 	        return employees;
 	    }
 
+	  // Calls the consumer with every employee of the roster, in file order, without keeping any of them
+	  public static void forEachEmployeeInCSV(Reader reader, String idHeader, String nameHeader, String lastNameHeader,
+	          Consumer<? super Employee> consumer) throws IOException {
+	        CsvRecordReader records = new CsvRecordReader(reader);
+	        RosterLayout layout = readLayout(records, idHeader, nameHeader, lastNameHeader);
+	        while (records.next()) {
+	            if (!records.isBlankRecord()) {
+	                consumer.accept(layout.toEmployee(records));
+	            }
+	        }
+	    }
+
+	  // Lazily parses the roster; records are only read as the stream is consumed. Closing the stream closes the reader,
+	  // as does a header that cannot be read. I/O errors while streaming are rethrown as UncheckedIOException.
+	  public static Stream<Employee> streamEmployeeDataFromCSV(Reader reader, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
+	        CsvRecordReader records = new CsvRecordReader(reader);
+	        RosterLayout layout;
+	        try {
+	            layout = readLayout(records, idHeader, nameHeader, lastNameHeader);
+	        } catch (IOException | RuntimeException e) {
+	            // No stream to close it later
+	            try {
+	                records.close();
+	            } catch (IOException suppressed) {
+	                e.addSuppressed(suppressed);
+	            }
+	            throw e;
+	        }
+
+	        Spliterator<Employee> employees = new Spliterators.AbstractSpliterator<Employee>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+	            @Override
+	            public boolean tryAdvance(Consumer<? super Employee> action) {
+	                try {
+	                    while (records.next()) {
+	                        if (!records.isBlankRecord()) {
+	                            action.accept(layout.toEmployee(records));
+	                            return true;
+	                        }
+	                    }
+	                    return false;
+	                } catch (IOException e) {
+	                    throw new UncheckedIOException(e);
+	                }
+	            }
+	        };
+	        return StreamSupport.stream(employees, false).onClose(() -> {
+	            try {
+	                records.close();
+	            } catch (IOException e) {
+	                throw new UncheckedIOException(e);
+	            }
+	        });
+	    }
+
+	  public static Stream<Employee> streamEmployeeDataFromCSV(InputStream input, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
+	        return streamEmployeeDataFromCSV(new InputStreamReader(input, StandardCharsets.UTF_8), idHeader, nameHeader, lastNameHeader);
+	    }
+
+	  public static Stream<Employee> streamEmployeeDataFromCSV(String filePath, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
+	        return streamEmployeeDataFromCSV(Files.newBufferedReader(Paths.get(filePath)), idHeader, nameHeader, lastNameHeader);
+	    }
+
+	  // Memory-maps the file and parses it in parallel on the common ForkJoinPool; meant for multi-GB UTF-8 rosters
+	  public static List<Employee> parseEmployeeDataFromCSVParallel(String filePath, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
+	        return MappedRosterLoader.load(Paths.get(filePath), idHeader, nameHeader, lastNameHeader);
+	    }
+
+	  // Reads a shift-demand CSV with 'Shift ID' (optional), 'Start' and 'End' columns holding ISO local date-times,
+	  // an optional comma separated 'Required Skills' column and an optional 'Headcount' column (1 if missing or blank).
+	  // The shifts are stored in a ShiftBlock; the list holds flyweight views over it.
+	  public static List<Shift> parseShiftsFromCSV(String filePath) throws IOException {
+	        ShiftBlock shifts = new ShiftBlock();
+	        try (Reader reader = Files.newBufferedReader(Paths.get(filePath))) {
+	            forEachShiftInCSV(reader, shift -> {
+	                int index = shifts.add(shift.getId(), shift.getStartMinute(), shift.getEndMinute());
+	                shifts.setRequiredSkills(index, shift.getRequiredSkills());
+	                shifts.setHeadcount(index, shift.getHeadcount());
+	            });
+	        }
+	        return shifts.asList();
+	    }
+
+	  public static void forEachShiftInCSV(Reader reader, Consumer<? super Shift> consumer) throws IOException {
+	        CsvRecordReader records = new CsvRecordReader(reader);
+	        String[] headers = readHeaders(records, "Shift CSV is empty");
+	        ShiftColumns columns = new ShiftColumns(headers, "Shift CSV");
+	        int headcountIndex = RosterLayout.findHeaderIndex(headers, SHIFT_HEADCOUNT_HEADER);
+
+	        while (records.next()) {
+	            if (records.isBlankRecord()) {
+	                continue;
+	            }
+	            Shift shift = columns.toShift(records);
+	            String headcount = headcountIndex != -1 && headcountIndex < records.fieldCount() ? records.field(headcountIndex).trim() : "";
+	            if (!headcount.isEmpty()) {
+	                try {
+	                    shift.setHeadcount(Integer.parseInt(headcount));
+	                } catch (IllegalArgumentException e) {
+	                    throw new IOException("Shift CSV record " + records.recordNumber() + ": invalid headcount '" + headcount + "'", e);
+	                }
+	            }
+	            consumer.accept(shift);
+	        }
+	    }
+
+	  // Reads a published schedule, one record per assignment: an 'Employee ID' column, the shift columns of
+	  // forEachShiftInCSV but 'Headcount', and an optional 'Forced' column, true for assignments that overrode a day off
+	  // or rest period (case-insensitive; anything else or blank is false)
+	  public static void forEachAssignmentInCSV(Reader reader, AssignmentConsumer consumer) throws IOException {
+	        CsvRecordReader records = new CsvRecordReader(reader);
+	        String[] headers = readHeaders(records, "Assignment CSV is empty");
+	        ShiftColumns columns = new ShiftColumns(headers, "Assignment CSV");
+	        int employeeIndex = RosterLayout.findHeaderIndex(headers, ASSIGNMENT_EMPLOYEE_HEADER);
+	        int forcedIndex = RosterLayout.findHeaderIndex(headers, ASSIGNMENT_FORCED_HEADER);
+	        if (employeeIndex == -1) {
+	            throw new IOException("Assignment CSV needs an '" + ASSIGNMENT_EMPLOYEE_HEADER + "' column");
+	        }
+
+	        while (records.next()) {
+	            if (records.isBlankRecord()) {
+	                continue;
+	            }
+	            if (employeeIndex >= records.fieldCount()) {
+	                throw new IOException("Assignment CSV record " + records.recordNumber() + " is missing its employee");
+	            }
+	            Shift shift = columns.toShift(records);
+	            boolean forced = forcedIndex != -1 && forcedIndex < records.fieldCount()
+	                    && records.field(forcedIndex).trim().equalsIgnoreCase("true");
+	            consumer.accept(records.field(employeeIndex).trim(), shift, forced);
+	        }
+	    }
+
+	  @FunctionalInterface
+	  public interface AssignmentConsumer {
+	        void accept(String employeeId, Shift shift, boolean forced) throws IOException;
+	    }
+
+	  private static String[] readHeaders(CsvRecordReader records, String emptyMessage) throws IOException {
+	        if (!records.next()) {
+	            throw new IOException(emptyMessage);
+	        }
+	        String[] headers = new String[records.fieldCount()];
+	        for (int i = 0; i < headers.length; i++) {
+	            headers[i] = records.field(i);
+	        }
+	        return headers;
+	    }
+
+	  // Column indexes of the shift fields shared by shift and assignment CSVs
+	  private static final class ShiftColumns {
+	        private final String file;
+	        private final int idIndex;
+	        private final int startIndex;
+	        private final int endIndex;
+	        private final int skillsIndex;
+
+	        ShiftColumns(String[] headers, String file) throws IOException {
+	            this.file = file;
+	            this.idIndex = RosterLayout.findHeaderIndex(headers, SHIFT_ID_HEADER);
+	            this.startIndex = RosterLayout.findHeaderIndex(headers, SHIFT_START_HEADER);
+	            this.endIndex = RosterLayout.findHeaderIndex(headers, SHIFT_END_HEADER);
+	            this.skillsIndex = RosterLayout.findHeaderIndex(headers, SHIFT_SKILLS_HEADER);
+	            if (startIndex == -1 || endIndex == -1) {
+	                throw new IOException(file + " needs '" + SHIFT_START_HEADER + "' and '" + SHIFT_END_HEADER + "' columns");
+	            }
+	        }
+
+	        Shift toShift(CsvRecordReader records) throws IOException {
+	            if (startIndex >= records.fieldCount() || endIndex >= records.fieldCount()) {
+	                throw new IOException(file + " record " + records.recordNumber() + " is missing its start or end");
+	            }
+	            String id = idIndex != -1 && idIndex < records.fieldCount() ? records.field(idIndex) : null;
+	            Shift shift;
+	            try {
+	                shift = new Shift(id, records.field(startIndex).trim(), records.field(endIndex).trim());
+	            } catch (DateTimeParseException e) {
+	                throw new IOException(file + " record " + records.recordNumber() + ": " + e.getMessage(), e);
+	            }
+	            if (skillsIndex != -1 && skillsIndex < records.fieldCount()) {
+	                shift.setRequiredSkills(RosterLayout.parseList(records.buffer(), records.fieldStart(skillsIndex), records.fieldEnd(skillsIndex)));
+	            }
+	            return shift;
+	        }
+	    }
+
+	  private static RosterLayout readLayout(CsvRecordReader records, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
+	        // Parse the header to find indexes; the ID and name headers are optional, 'Days Off' is not
+	        String[] headers = readHeaders(records, "Roster CSV is empty");
+	        return RosterLayout.fromHeader(headers, idHeader, nameHeader, lastNameHeader);
+	    }
 
-	  private static int findHeaderIndex(String[] headers, String headerName) {
-		    // If headerName is provided, find and return its index.
-		    if (headerName != null && !headerName.isEmpty()) {
-		        for (int i = 0; i < headers.length; i++) {
-		            if (headerName.equalsIgnoreCase(headers[i].trim())) {
-		                return i;
-		            }
-		        }
-		    }
-		    // If the headerName is not provided or not found, return -1.
-		    return -1;
-		}
-    private static Set<DayOfWeek> parseDaysOff(String daysOffString) {
-        Set<DayOfWeek> daysOff = EnumSet.noneOf(DayOfWeek.class);
-
-
-        // Remove leading and trailing quotes if they exist and then split by commas
-        daysOffString = daysOffString.replaceAll("^\"|\"$", "");
-        String[] days = daysOffString.split("\\s*,\\s*");
-
-        // Debugging line: Print the split days before adding to the set
-        
-
-        for (String day : days) {
-            try {
-                daysOff.add(DayOfWeek.valueOf(day.toUpperCase()));
-            } catch (IllegalArgumentException e) {
-                System.err.println("Invalid day of week in CSV: " + day);
-            }
-        }
-        return daysOff;
-    }
     public static void main(String[] args) {
         CSVUtils csvUtils = new CSVUtils(); // Assuming CSVUtils provides the readEmployeesFromCsv method.
         String csvFilePath = "C:\\Users\\sacha\\lemurshift\\src\\main\\java\\core\\employees.csv"; // Replace with your actual CSV file path.
@@ -0,0 +1,185 @@
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/*
+ * Single-pass RFC-4180 CSV reader. Characters are pulled from the Reader in blocks and run through a small
+ * state machine, so a line is never split, matched with a regex or copied into a String first.
+ *
+ * Each call to next() unescapes the fields of one record into a reused char buffer. Callers can read a field
+ * as a String, or look at buffer()/fieldStart()/fieldEnd() directly to avoid allocating at all.
+ * Quoted fields may contain commas, line breaks and doubled quotes (""). Records end with \n, \r\n or \r.
+ * Malformed input is read leniently: a stray quote in an unquoted field, or text after a closing quote,
+ * is kept as ordinary text.
+ */
+public final class CsvRecordReader implements Closeable {
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3; // A quote inside a quoted field: either "" or the closing quote
+
+    private final Reader reader;
+    private final char[] input;
+    private int inputPosition;
+    private int inputLimit;
+    private boolean skipLineFeed; // The previous record ended with \r, so a following \n belongs to it
+
+    private char[] record = new char[256]; // Unescaped characters of the current record
+    private int recordLength;
+    private int[] fieldEnds = new int[16]; // fieldEnds[i] is the end of field i in record; field i starts at fieldEnds[i - 1]
+    private int fieldCount;
+    private long recordNumber;
+
+    public CsvRecordReader(Reader reader) {
+        this(reader, 64 * 1024);
+    }
+
+    public CsvRecordReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.input = new char[bufferSize];
+    }
+
+    // Reads the next record; returns false once the input is exhausted
+    public boolean next() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        int state = FIELD_START;
+        boolean started = false;
+
+        while (true) {
+            if (inputPosition == inputLimit) {
+                inputLimit = reader.read(input, 0, input.length);
+                inputPosition = 0;
+                if (inputLimit <= 0) {
+                    inputLimit = 0;
+                    if (!started) {
+                        return false;
+                    }
+                    endField();
+                    recordNumber++;
+                    return true;
+                }
+            }
+
+            char c = input[inputPosition++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            started = true;
+
+            switch (state) {
+                case FIELD_START:
+                    if (c == '"') {
+                        state = QUOTED;
+                        break;
+                    }
+                    // Otherwise the field is unquoted and c is handled exactly like in UNQUOTED
+                    state = UNQUOTED;
+                    // fall through
+                case UNQUOTED:
+                    if (c == ',') {
+                        endField();
+                        state = FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        return endRecord(c);
+                    } else {
+                        append(c);
+                    }
+                    break;
+                case QUOTED:
+                    if (c == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    } else {
+                        append(c);
+                    }
+                    break;
+                default: // QUOTE_IN_QUOTED
+                    if (c == '"') {
+                        append('"'); // Escaped quote
+                        state = QUOTED;
+                    } else if (c == ',') {
+                        endField();
+                        state = FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        return endRecord(c);
+                    } else {
+                        append(c);
+                        state = UNQUOTED;
+                    }
+                    break;
+            }
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    // One-based number of the current record, counting the header
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    public String field(int index) {
+        int start = fieldStart(index);
+        return new String(record, start, fieldEnds[index] - start);
+    }
+
+    // Shared buffer holding the current record; only valid until the next call to next()
+    public char[] buffer() {
+        return record;
+    }
+
+    public int fieldStart(int index) {
+        checkField(index);
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+
+    public int fieldEnd(int index) {
+        checkField(index);
+        return fieldEnds[index];
+    }
+
+    public boolean isBlankRecord() {
+        return fieldCount == 1 && fieldEnds[0] == 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean endRecord(char terminator) {
+        endField();
+        skipLineFeed = terminator == '\r';
+        recordNumber++;
+        return true;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldEnds[fieldCount++] = recordLength;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, recordLength * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private void checkField(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of record " + recordNumber + " with " + fieldCount + " fields");
+        }
+    }
+}
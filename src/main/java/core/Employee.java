@@ -2,6 +2,7 @@ package core;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -16,14 +17,20 @@ public class Employee {
     private int maxConsecutiveShifts; // The maximum number of consecutive shifts allowed
     private LocalDateTime lastShiftEndTime; // The end time of the last shift worked
     private int currentConsecutiveShiftCount; // The current count of consecutive shifts worked
+    private Set<String> skills; // Qualifications such as "forklift"; matched exactly against Shift.getRequiredSkills()
 
     public Employee(String id, String name, Set<DayOfWeek> daysOff, int maxConsecutiveShifts) {
+        this(id, name, daysOff, maxConsecutiveShifts, Collections.<String>emptySet());
+    }
+
+    public Employee(String id, String name, Set<DayOfWeek> daysOff, int maxConsecutiveShifts, Set<String> skills) {
         this.id = id;
         this.name = name;
         this.daysOff = daysOff;
         this.maxConsecutiveShifts = maxConsecutiveShifts;
         this.lastShiftEndTime = null;
         this.currentConsecutiveShiftCount = 0;
+        this.skills = Collections.unmodifiableSet(new HashSet<>(skills));
     }
 
     // Standard getters and setters
@@ -44,6 +51,10 @@ public class Employee {
         return maxConsecutiveShifts;
     }
 
+    public Set<String> getSkills() {
+        return skills; // Unmodifiable
+    }
+
     public LocalDateTime getLastShiftEndTime() {
         return lastShiftEndTime;
     }
@@ -68,6 +79,10 @@ public class Employee {
         this.maxConsecutiveShifts = maxConsecutiveShifts;
     }
 
+    public void setSkills(Set<String> skills) {
+        this.skills = Collections.unmodifiableSet(new HashSet<>(skills));
+    }
+
     public void setLastShiftEndTime(LocalDateTime lastShiftEndTime) {
         this.lastShiftEndTime = lastShiftEndTime;
     }
@@ -0,0 +1,191 @@
+package core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * Parallel roster ingestion for very large CSV files. The file is memory-mapped with FileChannel.map and cut
+ * into byte ranges that are parsed concurrently on a ForkJoinPool, straight from the mapped bytes.
+ *
+ * A raw cut point can fall inside a quoted field that contains a line break, so cuts are moved to record
+ * boundaries in two steps:
+ * 1. every range counts its quote characters in parallel; the prefix sum gives the quote parity, i.e. whether
+ *    the range starts inside a quoted field (escaped "" quotes count twice and leave the parity unchanged),
+ * 2. each cut moves forward to just after the first line break outside quotes. Neighbouring ranges compute the
+ *    same cut, so every record is parsed exactly once.
+ * The per-range results are concatenated in range order, so employees come out in file order.
+ */
+public final class MappedRosterLoader {
+
+    static final long DEFAULT_CHUNK_BYTES = 32L * 1024 * 1024;
+    private static final long MAX_RECORD_BYTES = 16L * 1024 * 1024; // A record may extend this far past its range
+    private static final long MAX_CHUNK_BYTES = Integer.MAX_VALUE - MAX_RECORD_BYTES; // One mapping per range
+
+    private MappedRosterLoader() {
+    }
+
+    public static List<Employee> load(Path file, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
+        return load(file, idHeader, nameHeader, lastNameHeader, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    public static List<Employee> load(Path file, String idHeader, String nameHeader, String lastNameHeader,
+            ForkJoinPool pool, long chunkBytes) throws IOException {
+        if (chunkBytes <= 0 || chunkBytes > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_BYTES + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new IOException("Roster CSV is empty");
+            }
+
+            // Header first: it decides the column layout and where the data starts
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_RECORD_BYTES));
+            int bom = hasUtf8Bom(head) ? 3 : 0;
+            ByteRecordParser headerParser = new ByteRecordParser(head, bom);
+            headerParser.next(head.limit());
+            String[] headers = new String[headerParser.fieldCount()];
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = headerParser.field(i);
+            }
+            RosterLayout layout = RosterLayout.fromHeader(headers, idHeader, nameHeader, lastNameHeader);
+            long dataStart = headerParser.position();
+
+            // Raw ranges of roughly chunkBytes each
+            int chunks = (int) Math.max(1, (size - dataStart + chunkBytes - 1) / chunkBytes);
+            long[] rawStarts = new long[chunks + 1];
+            for (int i = 0; i < chunks; i++) {
+                rawStarts[i] = dataStart + i * chunkBytes;
+            }
+            rawStarts[chunks] = size;
+
+            // Step 1: quote parity at the start of every range
+            List<ForkJoinTask<Long>> counts = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                long from = rawStarts[i];
+                long to = rawStarts[i + 1];
+                counts.add(pool.submit(ForkJoinTask.adapt(() -> countQuotes(channel, from, to))));
+            }
+            boolean[] startsInQuotes = new boolean[chunks + 1];
+            long quotes = 0;
+            for (int i = 0; i < chunks; i++) {
+                startsInQuotes[i] = (quotes & 1) == 1;
+                quotes += join(counts.get(i));
+            }
+
+            // Step 2: align every range on record boundaries and parse it
+            List<ForkJoinTask<List<Employee>>> parts = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                long from = rawStarts[i];
+                long to = rawStarts[i + 1];
+                boolean first = i == 0;
+                boolean last = i == chunks - 1;
+                boolean fromInQuotes = startsInQuotes[i];
+                boolean toInQuotes = startsInQuotes[i + 1];
+                parts.add(pool.submit(ForkJoinTask.adapt(
+                        () -> parseRange(channel, layout, from, to, first, last, fromInQuotes, toInQuotes))));
+            }
+
+            List<Employee> employees = new ArrayList<>();
+            for (ForkJoinTask<List<Employee>> part : parts) {
+                employees.addAll(join(part));
+            }
+            return employees;
+        }
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) {
+        MappedByteBuffer bytes = map(channel, from, to - from);
+        long quotes = 0;
+        for (int i = 0, n = bytes.limit(); i < n; i++) {
+            if (bytes.get(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    private static List<Employee> parseRange(FileChannel channel, RosterLayout layout, long from, long to,
+            boolean first, boolean last, boolean fromInQuotes, boolean toInQuotes) {
+        long size;
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Map a little past the raw end so the record straddling it can be finished here
+        MappedByteBuffer bytes = map(channel, from, Math.min(size, to + MAX_RECORD_BYTES) - from);
+        boolean mappedToEnd = from + bytes.limit() == size;
+        int start = first ? 0 : alignForward(bytes, 0, fromInQuotes, mappedToEnd, from);
+        int end = last ? bytes.limit() : alignForward(bytes, (int) (to - from), toInQuotes, mappedToEnd, to);
+
+        List<Employee> employees = new ArrayList<>();
+        ByteRecordParser records = new ByteRecordParser(bytes, start);
+        while (records.next(end)) {
+            if (!records.isBlankRecord()) {
+                employees.add(layout.toEmployee(records));
+            }
+        }
+        return employees;
+    }
+
+    // Offset just after the first line break outside quotes at or after offset
+    private static int alignForward(MappedByteBuffer bytes, int offset, boolean inQuotes, boolean mappedToEnd, long fileOffset) {
+        int limit = bytes.limit();
+        for (int i = offset; i < limit; i++) {
+            byte b = bytes.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && b == '\n') {
+                return i + 1;
+            } else if (!inQuotes && b == '\r') {
+                return i + 1 < limit && bytes.get(i + 1) == '\n' ? i + 2 : i + 1;
+            }
+        }
+        if (mappedToEnd) {
+            return limit; // The last record has no line break
+        }
+        throw new UncheckedIOException(new IOException(
+                "No record boundary within " + MAX_RECORD_BYTES + " bytes after offset " + fileOffset));
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean hasUtf8Bom(MappedByteBuffer head) {
+        return head.limit() >= 3 && (head.get(0) & 0xFF) == 0xEF && (head.get(1) & 0xFF) == 0xBB && (head.get(2) & 0xFF) == 0xBF;
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading roster", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package core;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Immutable, densely indexed snapshot of a list of employees. Every employee gets a slot number 0..size()-1
+ * and the attributes scheduling needs are copied into primitive arrays, so later edits to the Employee objects
+ * do not affect a run in progress and one Roster can back many scheduling runs at the same time.
+ * Employees are matched by identity; the same instance listed twice gets a single slot.
+ *
+ * Skills are kept as an inverted index: one BitSet of slots per skill, so the employees qualified for a shift
+ * are the intersection of a few bitsets rather than a scan of the roster.
+ *
+ * An edited roster is derived with withChanges, which keeps every slot number, so the indexes of a scheduling run
+ * stay valid and only the changed and added slots need updating (see ShiftScheduler.updateRoster).
+ */
+public final class Roster {
+
+    private final Employee[] employees;
+    private final Map<Employee, Integer> slots;
+    private final byte[] daysOff; // Slot -> bit mask of days off, bit i = DayOfWeek ordinal i
+    private final int[] maxConsecutiveShifts;
+    private final Map<String, BitSet> slotsBySkill;
+
+    public Roster(Collection<? extends Employee> employees) {
+        List<Employee> unique = new ArrayList<>(employees.size());
+        Map<Employee, Integer> slotByEmployee = new IdentityHashMap<>(employees.size());
+        for (Employee employee : employees) {
+            if (slotByEmployee.putIfAbsent(employee, unique.size()) == null) {
+                unique.add(employee);
+            }
+        }
+
+        this.employees = unique.toArray(new Employee[0]);
+        this.slots = slotByEmployee;
+        this.daysOff = new byte[this.employees.length];
+        this.maxConsecutiveShifts = new int[this.employees.length];
+        this.slotsBySkill = new HashMap<>();
+        for (int slot = 0; slot < this.employees.length; slot++) {
+            copyAttributes(slot);
+        }
+    }
+
+    // The given roster with some slots taken by other employees and new ones appended after its last slot
+    private Roster(Roster roster, Map<Integer, ? extends Employee> replaced, Collection<? extends Employee> added) {
+        int size = roster.employees.length;
+        this.employees = Arrays.copyOf(roster.employees, size + added.size());
+        this.slots = new IdentityHashMap<>(roster.slots);
+        this.daysOff = Arrays.copyOf(roster.daysOff, employees.length);
+        this.maxConsecutiveShifts = Arrays.copyOf(roster.maxConsecutiveShifts, employees.length);
+        this.slotsBySkill = new HashMap<>();
+        for (Map.Entry<String, BitSet> skill : roster.slotsBySkill.entrySet()) {
+            slotsBySkill.put(skill.getKey(), (BitSet) skill.getValue().clone());
+        }
+
+        for (Map.Entry<Integer, ? extends Employee> replacement : replaced.entrySet()) {
+            int slot = replacement.getKey();
+            if (slot < 0 || slot >= size) {
+                throw new IllegalArgumentException("No slot " + slot + " in a roster of " + size);
+            }
+            Employee previous = employees[slot];
+            slots.remove(previous);
+            for (String skill : previous.getSkills()) {
+                slotsBySkill.get(skill).clear(slot);
+            }
+            employees[slot] = replacement.getValue();
+        }
+        for (Map.Entry<Integer, ? extends Employee> replacement : replaced.entrySet()) {
+            int slot = replacement.getKey();
+            if (slots.putIfAbsent(employees[slot], slot) != null) {
+                throw new IllegalArgumentException("Employee " + employees[slot].getId() + " has two slots");
+            }
+            copyAttributes(slot);
+        }
+        int slot = size;
+        for (Employee employee : added) {
+            if (slots.putIfAbsent(employee, slot) != null) {
+                throw new IllegalArgumentException("Employee " + employee.getId() + " has two slots");
+            }
+            employees[slot] = employee;
+            copyAttributes(slot++);
+        }
+    }
+
+    private void copyAttributes(int slot) {
+        Employee employee = employees[slot];
+        daysOff[slot] = (byte) daysOffMask(employee.getDaysOff());
+        maxConsecutiveShifts[slot] = employee.getMaxConsecutiveShifts();
+        for (String skill : employee.getSkills()) {
+            slotsBySkill.computeIfAbsent(skill, s -> new BitSet(employees.length)).set(slot);
+        }
+    }
+
+    // A roster with the employees of the given slots replaced, e.g. by their edited records, and the added employees
+    // in new slots from size() on; every other slot keeps its number and employee. This roster is left as it is.
+    // The cost is a copy of the slot arrays and skill bitsets plus the work for the changed employees.
+    public Roster withChanges(Map<Integer, ? extends Employee> replaced, Collection<? extends Employee> added) {
+        return new Roster(this, replaced, added);
+    }
+
+    public int size() {
+        return employees.length;
+    }
+
+    public Employee employee(int slot) {
+        return employees[slot];
+    }
+
+    // Slot of the employee, or -1 if it is not part of this roster
+    public int slotOf(Employee employee) {
+        Integer slot = slots.get(employee);
+        return slot == null ? -1 : slot;
+    }
+
+    public boolean isDayOff(int slot, DayOfWeek day) {
+        return (daysOff[slot] & (1 << day.ordinal())) != 0;
+    }
+
+    // Days off of the slot as a bit mask, bit i = DayOfWeek ordinal i
+    public int daysOffMask(int slot) {
+        return daysOff[slot];
+    }
+
+    public int maxConsecutiveShifts(int slot) {
+        return maxConsecutiveShifts[slot];
+    }
+
+    public boolean hasSkills(int slot, Set<String> skills) {
+        for (String skill : skills) {
+            BitSet slots = slotsBySkill.get(skill);
+            if (slots == null || !slots.get(slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sets target to the slots having all the given skills, starting from the rarest skill; returns false if none do
+    public boolean qualifiedSlots(Set<String> skills, BitSet target) {
+        target.clear();
+        BitSet rarest = null;
+        for (String skill : skills) {
+            BitSet slots = slotsBySkill.get(skill);
+            if (slots == null) {
+                return false;
+            }
+            if (rarest == null || slots.cardinality() < rarest.cardinality()) {
+                rarest = slots;
+            }
+        }
+        if (rarest == null) {
+            target.set(0, employees.length); // No skills required
+            return employees.length > 0;
+        }
+        target.or(rarest);
+        for (String skill : skills) {
+            BitSet slots = slotsBySkill.get(skill);
+            if (slots != rarest) {
+                target.and(slots);
+            }
+        }
+        return !target.isEmpty();
+    }
+
+    // Number of employees with the skill
+    public int skillCount(String skill) {
+        BitSet slots = slotsBySkill.get(skill);
+        return slots == null ? 0 : slots.cardinality();
+    }
+
+    public List<Employee> employees() {
+        return Collections.unmodifiableList(Arrays.asList(employees));
+    }
+
+    public static int daysOffMask(Set<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << day.ordinal();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,274 @@
+package core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * Column positions of a roster CSV, resolved once from its header line, plus the field decoding shared by the
+ * roster parsers. Days off are matched straight from the record characters without building Strings.
+ */
+final class RosterLayout {
+
+    static final String DAYS_OFF_HEADER = "Days Off"; // 'Days Off' column is mandatory and fixed
+    static final String MAX_CONSECUTIVE_HEADER = "Max Consecutive Shifts"; // Optional, defaults to 5
+    static final int DEFAULT_MAX_CONSECUTIVE_SHIFTS = 5;
+    static final String SKILLS_HEADER = "Skills"; // Optional, comma separated like 'Days Off'
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    final int idIndex;
+    final int firstNameIndex;
+    final int lastNameIndex;
+    final int daysOffIndex;
+    final int maxConsecutiveIndex;
+    final int skillsIndex;
+
+    private RosterLayout(int idIndex, int firstNameIndex, int lastNameIndex, int daysOffIndex, int maxConsecutiveIndex, int skillsIndex) {
+        this.idIndex = idIndex;
+        this.firstNameIndex = firstNameIndex;
+        this.lastNameIndex = lastNameIndex;
+        this.daysOffIndex = daysOffIndex;
+        this.maxConsecutiveIndex = maxConsecutiveIndex;
+        this.skillsIndex = skillsIndex;
+    }
+
+    static RosterLayout fromHeader(String[] headers, String idHeader, String nameHeader, String lastNameHeader) throws IOException {
+        int daysOffIndex = findHeaderIndex(headers, DAYS_OFF_HEADER);
+        if (daysOffIndex == -1) {
+            throw new IOException("Roster CSV has no '" + DAYS_OFF_HEADER + "' column");
+        }
+        return new RosterLayout(
+                findHeaderIndex(headers, idHeader),
+                findHeaderIndex(headers, nameHeader),
+                findHeaderIndex(headers, lastNameHeader),
+                daysOffIndex,
+                findHeaderIndex(headers, MAX_CONSECUTIVE_HEADER),
+                findHeaderIndex(headers, SKILLS_HEADER));
+    }
+
+    // Builds the employee described by the current record of the reader
+    Employee toEmployee(CsvRecordReader record) {
+        String id = text(record, idIndex); // Missing ID column gives an empty ID
+        String firstName = text(record, firstNameIndex);
+        String lastName = text(record, lastNameIndex);
+        Set<DayOfWeek> daysOff = daysOffIndex < record.fieldCount()
+                ? parseDaysOff(record.buffer(), record.fieldStart(daysOffIndex), record.fieldEnd(daysOffIndex))
+                : EnumSet.noneOf(DayOfWeek.class);
+        int maxConsecutive = maxConsecutiveIndex != -1 && maxConsecutiveIndex < record.fieldCount()
+                ? parsePositiveInt(record.buffer(), record.fieldStart(maxConsecutiveIndex), record.fieldEnd(maxConsecutiveIndex))
+                : DEFAULT_MAX_CONSECUTIVE_SHIFTS;
+        Set<String> skills = skillsIndex != -1 && skillsIndex < record.fieldCount()
+                ? parseList(record.buffer(), record.fieldStart(skillsIndex), record.fieldEnd(skillsIndex))
+                : Collections.<String>emptySet();
+        return new Employee(id, firstName + " " + lastName, daysOff, maxConsecutive, skills);
+    }
+
+    // Same as above for a record parsed straight from UTF-8 bytes
+    Employee toEmployee(ByteRecordParser record) {
+        String id = text(record, idIndex);
+        String firstName = text(record, firstNameIndex);
+        String lastName = text(record, lastNameIndex);
+        Set<DayOfWeek> daysOff = daysOffIndex < record.fieldCount()
+                ? parseDaysOff(record.buffer(), record.fieldStart(daysOffIndex), record.fieldEnd(daysOffIndex))
+                : EnumSet.noneOf(DayOfWeek.class);
+        int maxConsecutive = maxConsecutiveIndex != -1 && maxConsecutiveIndex < record.fieldCount()
+                ? parsePositiveInt(record.buffer(), record.fieldStart(maxConsecutiveIndex), record.fieldEnd(maxConsecutiveIndex))
+                : DEFAULT_MAX_CONSECUTIVE_SHIFTS;
+        Set<String> skills = skillsIndex != -1 && skillsIndex < record.fieldCount()
+                ? parseList(record.buffer(), record.fieldStart(skillsIndex), record.fieldEnd(skillsIndex))
+                : Collections.<String>emptySet();
+        return new Employee(id, firstName + " " + lastName, daysOff, maxConsecutive, skills);
+    }
+
+    private static String text(CsvRecordReader record, int index) {
+        return index != -1 && index < record.fieldCount() ? record.field(index) : "";
+    }
+
+    private static String text(ByteRecordParser record, int index) {
+        return index != -1 && index < record.fieldCount() ? record.field(index) : "";
+    }
+
+    static int findHeaderIndex(String[] headers, String headerName) {
+        // If headerName is provided, find and return its index.
+        if (headerName != null && !headerName.isEmpty()) {
+            for (int i = 0; i < headers.length; i++) {
+                if (headerName.equalsIgnoreCase(headers[i].trim())) {
+                    return i;
+                }
+            }
+        }
+        // If the headerName is not provided or not found, return -1.
+        return -1;
+    }
+
+    // Blank or malformed values fall back to the default limit rather than rejecting the whole roster
+    private static int parsePositiveInt(char[] chars, int start, int end) {
+        int value = 0;
+        boolean digits = false;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9' && value < 100_000) {
+                value = value * 10 + (c - '0');
+                digits = true;
+            } else if (!Character.isWhitespace(c)) {
+                return DEFAULT_MAX_CONSECUTIVE_SHIFTS;
+            }
+        }
+        return digits && value > 0 ? value : DEFAULT_MAX_CONSECUTIVE_SHIFTS;
+    }
+
+    private static int parsePositiveInt(byte[] bytes, int start, int end) {
+        int value = 0;
+        boolean digits = false;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9' && value < 100_000) {
+                value = value * 10 + (b - '0');
+                digits = true;
+            } else if (b != ' ' && b != '\t') {
+                return DEFAULT_MAX_CONSECUTIVE_SHIFTS;
+            }
+        }
+        return digits && value > 0 ? value : DEFAULT_MAX_CONSECUTIVE_SHIFTS;
+    }
+
+    // Parses a comma separated list of day names such as "Monday, tuesday" from chars[start, end)
+    static Set<DayOfWeek> parseDaysOff(char[] chars, int start, int end) {
+        Set<DayOfWeek> daysOff = EnumSet.noneOf(DayOfWeek.class);
+        int tokenStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || chars[i] == ',') {
+                int from = tokenStart;
+                int to = i;
+                while (from < to && Character.isWhitespace(chars[from])) {
+                    from++;
+                }
+                while (to > from && Character.isWhitespace(chars[to - 1])) {
+                    to--;
+                }
+                if (from < to) {
+                    DayOfWeek day = matchDay(chars, from, to);
+                    if (day != null) {
+                        daysOff.add(day);
+                    } else {
+                        System.err.println("Invalid day of week in CSV: " + new String(chars, from, to - from));
+                    }
+                }
+                tokenStart = i + 1;
+            }
+        }
+        return daysOff;
+    }
+
+    // Byte variant of the above; day names are ASCII so UTF-8 input can be matched byte by byte
+    static Set<DayOfWeek> parseDaysOff(byte[] bytes, int start, int end) {
+        Set<DayOfWeek> daysOff = EnumSet.noneOf(DayOfWeek.class);
+        int tokenStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || bytes[i] == ',') {
+                int from = tokenStart;
+                int to = i;
+                while (from < to && (bytes[from] & 0xFF) <= ' ') {
+                    from++;
+                }
+                while (to > from && (bytes[to - 1] & 0xFF) <= ' ') {
+                    to--;
+                }
+                if (from < to) {
+                    DayOfWeek day = matchDay(bytes, from, to);
+                    if (day != null) {
+                        daysOff.add(day);
+                    } else {
+                        System.err.println("Invalid day of week in CSV: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+                    }
+                }
+                tokenStart = i + 1;
+            }
+        }
+        return daysOff;
+    }
+
+    // Comma separated values such as skills from chars[start, end), trimmed, empty entries skipped
+    static Set<String> parseList(char[] chars, int start, int end) {
+        Set<String> values = new HashSet<>();
+        int tokenStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || chars[i] == ',') {
+                int from = tokenStart;
+                int to = i;
+                while (from < to && Character.isWhitespace(chars[from])) {
+                    from++;
+                }
+                while (to > from && Character.isWhitespace(chars[to - 1])) {
+                    to--;
+                }
+                if (from < to) {
+                    values.add(new String(chars, from, to - from));
+                }
+                tokenStart = i + 1;
+            }
+        }
+        return values;
+    }
+
+    static Set<String> parseList(byte[] bytes, int start, int end) {
+        Set<String> values = new HashSet<>();
+        int tokenStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || bytes[i] == ',') {
+                int from = tokenStart;
+                int to = i;
+                while (from < to && (bytes[from] & 0xFF) <= ' ') {
+                    from++;
+                }
+                while (to > from && (bytes[to - 1] & 0xFF) <= ' ') {
+                    to--;
+                }
+                if (from < to) {
+                    values.add(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+                }
+                tokenStart = i + 1;
+            }
+        }
+        return values;
+    }
+
+    private static DayOfWeek matchDay(byte[] bytes, int from, int to) {
+        for (DayOfWeek day : DAYS) {
+            String name = day.name();
+            if (name.length() != to - from) {
+                continue;
+            }
+            int i = 0;
+            while (i < name.length() && (bytes[from + i] & ~0x20) == name.charAt(i)) {
+                i++; // Clearing bit 5 upper-cases ASCII letters; names are all letters so nothing else can match
+            }
+            if (i == name.length()) {
+                return day;
+            }
+        }
+        return null;
+    }
+
+    private static DayOfWeek matchDay(char[] chars, int from, int to) {
+        for (DayOfWeek day : DAYS) {
+            String name = day.name();
+            if (name.length() != to - from) {
+                continue;
+            }
+            int i = 0;
+            while (i < name.length() && Character.toUpperCase(chars[from + i]) == name.charAt(i)) {
+                i++;
+            }
+            if (i == name.length()) {
+                return day;
+            }
+        }
+        return null;
+    }
+}
@@ -2,65 +2,115 @@ package core;
 
 
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Set;
 
+// A shift is a view of one row of a ShiftBlock. Standalone shifts get a private single-row block, while shifts
+// obtained from ShiftBlock.get()/asList() are flyweights: the times live in the block's primitive arrays and
+// LocalDateTime objects are only created when asked for. Setters write through to the block.
 public class Shift {
-    private String id;
-    private LocalDateTime startTime;
-    private LocalDateTime endTime;
+    private static final DateTimeFormatter MINUTES = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm");
+
+    private final ShiftBlock block;
+    private final int index;
 
     // Constructor using string inputs for start and end time, parsing them into LocalDateTime objects
     public Shift(String id, String start, String end) {
-        this.id = id;
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-        this.startTime = LocalDateTime.parse(start, formatter);
-        this.endTime = LocalDateTime.parse(end, formatter);
+        this(id, LocalDateTime.parse(start, DateTimeFormatter.ISO_LOCAL_DATE_TIME), LocalDateTime.parse(end, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    }
+
+    public Shift(String id, LocalDateTime start, LocalDateTime end) {
+        this.block = new ShiftBlock(1);
+        this.index = block.add(id, start, end);
+    }
+
+    // View of an existing row, see ShiftBlock.get
+    Shift(ShiftBlock block, int index) {
+        this.block = block;
+        this.index = index;
     }
 
     // Getters and Setters
     public String getId() {
-        return id;
+        return block.id(index);
     }
 
     public void setId(String id) {
-        this.id = id;
+        block.setId(index, id);
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return ShiftBlock.toLocalDateTime(block.startMinute(index));
     }
 
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        block.setStartMinute(index, ShiftBlock.toEpochMinute(startTime));
     }
 
     public LocalDateTime getEndTime() {
-        return endTime;
+        return ShiftBlock.toLocalDateTime(block.endMinute(index));
     }
 
     public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
+        block.setEndMinute(index, ShiftBlock.toEpochMinute(endTime));
+    }
+
+    // Skills an employee needs for this shift; empty if anybody can work it
+    public Set<String> getRequiredSkills() {
+        return block.requiredSkills(index);
+    }
+
+    public void setRequiredSkills(Set<String> requiredSkills) {
+        block.setRequiredSkills(index, requiredSkills);
+    }
+
+    // Number of employees needed for this shift, 1 unless set
+    public int getHeadcount() {
+        return block.headcount(index);
+    }
+
+    public void setHeadcount(int headcount) {
+        block.setHeadcount(index, headcount);
+    }
+
+    // Start and end as epoch minutes, for arithmetic without LocalDateTime objects
+    public long getStartMinute() {
+        return block.startMinute(index);
+    }
+
+    public long getEndMinute() {
+        return block.endMinute(index);
     }
 
     // Helper method to check if a shift occurs on a given day
     public boolean isOnDay(String day) {
-        DateTimeFormatter dayFormatter = DateTimeFormatter.ISO_LOCAL_DATE;
-        return this.startTime.toLocalDate().toString().equals(day);
+        return getStartTime().toLocalDate().toString().equals(day);
+    }
+
+    // Two views of the same block row are the same shift
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Shift)) {
+            return false;
+        }
+        Shift shift = (Shift) other;
+        return block == shift.block && index == shift.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(block) + index;
     }
 
     // Override toString() for easier logging and debugging
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm");
-        return String.format("Shift ID: %s, Start Time: %s, End Time: %s", 
-                getId(), 
-                getStartTime().format(formatter), 
-                getEndTime().format(formatter));
+        return "Shift ID: " + getId() + ", Start Time: " + getStartTime().format(MINUTES) + ", End Time: "
+                + getEndTime().format(MINUTES);
     }
 
     // Other methods can be added as required to facilitate shift management
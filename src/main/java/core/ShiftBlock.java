@@ -0,0 +1,223 @@
+package core;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/*
+ * Struct-of-arrays storage for many shifts: start and end are kept as epoch minutes (minutes since
+ * 1970-01-01T00:00 on the local wall clock) in int arrays. IDs, required skills and headcounts only get an
+ * array once a shift has a non-default value.
+ * A shift costs 8 bytes here instead of a Shift with two LocalDateTime objects, and generation and overlap math
+ * never leave primitives. Shift objects handed out by get() or asList() are flyweight views over one row.
+ *
+ * Times are stored with minute precision; seconds are truncated. Not thread-safe for concurrent writes.
+ */
+public final class ShiftBlock {
+
+    public static final int MINUTES_PER_HOUR = 60;
+    public static final int MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    private int[] starts;
+    private int[] ends;
+    private String[] ids; // Null until the first non-null ID is stored
+    private Set<String>[] requiredSkills; // Null until the first shift with required skills is stored
+    private int[] headcounts; // Null until the first headcount other than 1 is stored
+    private int size;
+
+    public ShiftBlock() {
+        this(16);
+    }
+
+    public ShiftBlock(int expectedShifts) {
+        int capacity = Math.max(expectedShifts, 1);
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    // Back-to-back shifts of the given length covering [scheduleStart, scheduleEnd); the last one may be shorter
+    public static ShiftBlock generate(LocalDateTime scheduleStart, LocalDateTime scheduleEnd, int shiftDurationHours) {
+        // Ensure that the schedule start time is before the end time and shift duration is positive.
+        if (scheduleStart.isAfter(scheduleEnd) || shiftDurationHours <= 0) {
+            throw new IllegalArgumentException("Invalid schedule start/end time or shift duration.");
+        }
+        long start = toEpochMinute(scheduleStart);
+        long end = toEpochMinute(scheduleEnd);
+        long duration = (long) shiftDurationHours * MINUTES_PER_HOUR;
+
+        ShiftBlock block = new ShiftBlock((int) Math.min(Integer.MAX_VALUE - 8, (end - start + duration - 1) / duration));
+        for (long shiftStart = start; shiftStart < end; shiftStart += duration) {
+            block.add(null, shiftStart, Math.min(shiftStart + duration, end));
+        }
+        return block;
+    }
+
+    // Appends a shift and returns its index
+    public int add(String id, long startMinute, long endMinute) {
+        if (size == starts.length) {
+            int capacity = size + (size >> 1) + 1;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            if (ids != null) {
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            if (requiredSkills != null) {
+                requiredSkills = Arrays.copyOf(requiredSkills, capacity);
+            }
+            if (headcounts != null) {
+                headcounts = Arrays.copyOf(headcounts, capacity);
+                Arrays.fill(headcounts, size, capacity, 1);
+            }
+        }
+        starts[size] = checkedMinute(startMinute);
+        ends[size] = checkedMinute(endMinute);
+        int index = size++;
+        if (id != null) {
+            setId(index, id);
+        }
+        return index;
+    }
+
+    public int add(String id, LocalDateTime start, LocalDateTime end) {
+        return add(id, toEpochMinute(start), toEpochMinute(end));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long startMinute(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    public long endMinute(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    public String id(int index) {
+        checkIndex(index);
+        return ids == null ? null : ids[index];
+    }
+
+    public void setStartMinute(int index, long startMinute) {
+        checkIndex(index);
+        starts[index] = checkedMinute(startMinute);
+    }
+
+    public void setEndMinute(int index, long endMinute) {
+        checkIndex(index);
+        ends[index] = checkedMinute(endMinute);
+    }
+
+    public void setId(int index, String id) {
+        checkIndex(index);
+        if (ids == null) {
+            if (id == null) {
+                return;
+            }
+            ids = new String[starts.length];
+        }
+        ids[index] = id;
+    }
+
+    // Skills an employee needs for the shift; empty if anybody can work it
+    public Set<String> requiredSkills(int index) {
+        checkIndex(index);
+        Set<String> skills = requiredSkills == null ? null : requiredSkills[index];
+        return skills == null ? Collections.<String>emptySet() : skills;
+    }
+
+    public void setRequiredSkills(int index, Set<String> skills) {
+        checkIndex(index);
+        if (requiredSkills == null) {
+            if (skills.isEmpty()) {
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            Set<String>[] byShift = (Set<String>[]) new Set<?>[starts.length];
+            requiredSkills = byShift;
+        }
+        requiredSkills[index] = skills.isEmpty() ? null : Collections.unmodifiableSet(new HashSet<>(skills));
+    }
+
+    // Number of employees the shift needs
+    public int headcount(int index) {
+        checkIndex(index);
+        return headcounts == null ? 1 : headcounts[index];
+    }
+
+    public void setHeadcount(int index, int headcount) {
+        checkIndex(index);
+        if (headcount < 1) {
+            throw new IllegalArgumentException("Headcount must be at least 1: " + headcount);
+        }
+        if (headcounts == null) {
+            if (headcount == 1) {
+                return;
+            }
+            headcounts = new int[starts.length];
+            Arrays.fill(headcounts, 1);
+        }
+        headcounts[index] = headcount;
+    }
+
+    // Flyweight view of one row; views of the same row are equal
+    public Shift get(int index) {
+        checkIndex(index);
+        return new Shift(this, index);
+    }
+
+    // List of views backed by this block; creating it and reading from it allocates nothing per shift but the view
+    public List<Shift> asList() {
+        return new Views();
+    }
+
+    public static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    public static DayOfWeek dayOfWeek(long epochMinute) {
+        // 1970-01-01 was a Thursday, i.e. DayOfWeek ordinal 3
+        return DAYS[(int) Math.floorMod(Math.floorDiv(epochMinute, (long) MINUTES_PER_DAY) + 3, 7L)];
+    }
+
+    private static int checkedMinute(long minute) {
+        if (minute < Integer.MIN_VALUE || minute > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Time out of range: " + minute + " epoch minutes");
+        }
+        return (int) minute;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Shift " + index + " of " + size);
+        }
+    }
+
+    private final class Views extends AbstractList<Shift> implements RandomAccess {
+        @Override
+        public Shift get(int index) {
+            return ShiftBlock.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package core;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Recurring weekly shift pattern, parsed from rules such as
+ *
+ *   weekdays 06:00-14:00, 14:00-22:00 x2; weekends 08:00-20:00; fri 22:00-06:00
+ *
+ * Rules are separated by ';'. Each starts with the days it applies to, followed by a comma separated list of
+ * shifts as start-end times (HH:mm, 24:00 allowed as an end). An end at or before the start means the shift ends
+ * the next day; it still belongs to the day it starts on. An optional "xN" gives the headcount.
+ * Days are "daily", "weekdays", "weekends", a day name ("monday" or "mon"), a range ("mon-thu") or a list
+ * joined by '/' ("mon/wed/fri"). Case does not matter.
+ *
+ * Shifts are generated lazily, in start order, through a Spliterator: only one day of shifts exists at a time, so
+ * a horizon of years streams in constant memory. Each day's shifts are views over a small ShiftBlock of their own;
+ * IDs are the date followed by the shift's position in the day ("2024-01-01-2").
+ */
+public final class ShiftPattern {
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+    private static final int MINUTES_PER_DAY = ShiftBlock.MINUTES_PER_DAY;
+
+    // Indexed by DayOfWeek.ordinal(); shifts of the day sorted by start minute of the day
+    private final int[][] starts = new int[DAYS.length][];
+    private final int[][] durations = new int[DAYS.length][];
+    private final int[][] headcounts = new int[DAYS.length][];
+
+    private ShiftPattern(List<List<int[]>> shiftsByDay) {
+        for (int day = 0; day < DAYS.length; day++) {
+            List<int[]> shifts = shiftsByDay.get(day);
+            shifts.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+            starts[day] = new int[shifts.size()];
+            durations[day] = new int[shifts.size()];
+            headcounts[day] = new int[shifts.size()];
+            for (int i = 0; i < shifts.size(); i++) {
+                starts[day][i] = shifts.get(i)[0];
+                durations[day][i] = shifts.get(i)[1];
+                headcounts[day][i] = shifts.get(i)[2];
+            }
+        }
+    }
+
+    // Throws IllegalArgumentException describing the first malformed part
+    public static ShiftPattern parse(String rules) {
+        List<List<int[]>> shiftsByDay = new ArrayList<>(DAYS.length);
+        for (int day = 0; day < DAYS.length; day++) {
+            shiftsByDay.add(new ArrayList<>());
+        }
+        for (String rule : rules.split(";")) {
+            rule = rule.trim();
+            if (rule.isEmpty()) {
+                continue;
+            }
+            int space = indexOfWhitespace(rule);
+            if (space == -1) {
+                throw new IllegalArgumentException("Rule '" + rule + "' has no shifts");
+            }
+            Set<DayOfWeek> days = parseDays(rule.substring(0, space));
+            for (String shift : rule.substring(space + 1).split(",")) {
+                int[] parsed = parseShift(shift.trim(), rule);
+                for (DayOfWeek day : days) {
+                    shiftsByDay.get(day.ordinal()).add(parsed);
+                }
+            }
+        }
+        return new ShiftPattern(shiftsByDay);
+    }
+
+    // Number of shifts (not positions) generated for one week
+    public int shiftsPerWeek() {
+        int count = 0;
+        for (int[] day : starts) {
+            count += day.length;
+        }
+        return count;
+    }
+
+    // Shifts starting on dates in [from, until)
+    public Stream<Shift> stream(LocalDate from, LocalDate until) {
+        return StreamSupport.stream(spliterator(from, until), false);
+    }
+
+    // Shifts starting on or after from, without end; limit the stream before collecting it
+    public Stream<Shift> stream(LocalDate from) {
+        return StreamSupport.stream(spliterator(from, null), false);
+    }
+
+    // until is exclusive; null means no end
+    public Spliterator<Shift> spliterator(LocalDate from, LocalDate until) {
+        long end = until == null ? Long.MAX_VALUE : until.toEpochDay();
+        return new Shifts(from.toEpochDay(), Math.max(from.toEpochDay(), end));
+    }
+
+    private long count(long fromDay, long untilDay) {
+        long days = untilDay - fromDay;
+        long count = days / DAYS.length * shiftsPerWeek();
+        for (long day = fromDay + days / DAYS.length * DAYS.length; day < untilDay; day++) {
+            count += starts[dayOfWeek(day)].length;
+        }
+        return count;
+    }
+
+    private static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, (long) DAYS.length); // 1970-01-01 was a Thursday
+    }
+
+    private static Set<DayOfWeek> parseDays(String spec) {
+        String lower = spec.toLowerCase(Locale.ROOT);
+        switch (lower) {
+            case "daily":
+                return EnumSet.allOf(DayOfWeek.class);
+            case "weekdays":
+                return EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+            case "weekends":
+                return EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY);
+            default:
+                break;
+        }
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String part : lower.split("/")) {
+            int dash = part.indexOf('-');
+            if (dash == -1) {
+                days.add(parseDay(part, spec));
+            } else {
+                // Ranges may wrap around the week, e.g. fri-mon
+                int first = parseDay(part.substring(0, dash), spec).ordinal();
+                int last = parseDay(part.substring(dash + 1), spec).ordinal();
+                for (int day = first; ; day = (day + 1) % DAYS.length) {
+                    days.add(DAYS[day]);
+                    if (day == last) {
+                        break;
+                    }
+                }
+            }
+        }
+        return days;
+    }
+
+    private static DayOfWeek parseDay(String name, String spec) {
+        if (name.length() >= 3) {
+            for (DayOfWeek day : DAYS) {
+                String full = day.name().toLowerCase(Locale.ROOT);
+                if (full.equals(name) || full.substring(0, 3).equals(name)) {
+                    return day;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown day '" + name + "' in '" + spec + "'");
+    }
+
+    // {start minute of day, duration in minutes, headcount}
+    private static int[] parseShift(String shift, String rule) {
+        int headcount = 1;
+        String times = shift;
+        int x = shift.toLowerCase(Locale.ROOT).lastIndexOf('x');
+        if (x != -1) {
+            times = shift.substring(0, x).trim();
+            try {
+                headcount = Integer.parseInt(shift.substring(x + 1).trim());
+            } catch (NumberFormatException e) {
+                headcount = 0;
+            }
+            if (headcount < 1) {
+                throw new IllegalArgumentException("Invalid headcount in '" + shift + "' of rule '" + rule + "'");
+            }
+        }
+        int dash = times.indexOf('-');
+        if (dash == -1) {
+            throw new IllegalArgumentException("Shift '" + shift + "' of rule '" + rule + "' is not start-end");
+        }
+        int start = parseTime(times.substring(0, dash).trim(), rule);
+        int end = parseTime(times.substring(dash + 1).trim(), rule);
+        if (start == MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Shift '" + shift + "' of rule '" + rule + "' starts at 24:00");
+        }
+        int duration = end > start ? end - start : end + MINUTES_PER_DAY - start;
+        return new int[] {start, duration, headcount};
+    }
+
+    // HH:mm as minutes since midnight, 00:00 to 24:00
+    private static int parseTime(String time, String rule) {
+        int colon = time.indexOf(':');
+        if (colon > 0 && colon <= 2 && time.length() == colon + 3) {
+            try {
+                int hours = Integer.parseInt(time.substring(0, colon));
+                int minutes = Integer.parseInt(time.substring(colon + 1));
+                if (hours >= 0 && minutes >= 0 && minutes < 60 && hours * 60 + minutes <= MINUTES_PER_DAY) {
+                    return hours * 60 + minutes;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new IllegalArgumentException("Invalid time '" + time + "' in rule '" + rule + "'");
+    }
+
+    private static int indexOfWhitespace(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Walks the days of [day, untilDay) and hands out the shifts of one day at a time
+    private final class Shifts implements Spliterator<Shift> {
+
+        private long day;
+        private final long untilDay;
+        private ShiftBlock block; // Shifts of day - 1 still to be handed out, null if none
+        private int position;
+
+        Shifts(long day, long untilDay) {
+            this.day = day;
+            this.untilDay = untilDay;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Shift> action) {
+            while (block == null || position == block.size()) {
+                if (day >= untilDay) {
+                    return false;
+                }
+                block = generateDay(day++);
+                position = 0;
+            }
+            action.accept(block.get(position++));
+            return true;
+        }
+
+        private ShiftBlock generateDay(long epochDay) {
+            int weekday = dayOfWeek(epochDay);
+            int[] dayStarts = starts[weekday];
+            ShiftBlock shifts = new ShiftBlock(dayStarts.length);
+            long midnight = epochDay * MINUTES_PER_DAY;
+            String date = LocalDate.ofEpochDay(epochDay).toString();
+            for (int i = 0; i < dayStarts.length; i++) {
+                long start = midnight + dayStarts[i];
+                int index = shifts.add(date + "-" + (i + 1), start, start + durations[weekday][i]);
+                shifts.setHeadcount(index, headcounts[weekday][i]);
+            }
+            return shifts;
+        }
+
+        // Splits off whole days at the front; the prefix also takes the shifts already generated for the current day
+        @Override
+        public Spliterator<Shift> trySplit() {
+            if (untilDay == Long.MAX_VALUE || untilDay - day < 2) {
+                return null;
+            }
+            long middle = day + (untilDay - day) / 2;
+            Shifts prefix = new Shifts(day, middle);
+            prefix.block = block;
+            prefix.position = position;
+            day = middle;
+            block = null;
+            position = 0;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            if (untilDay == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            long buffered = block == null ? 0 : block.size() - position;
+            return buffered + count(day, untilDay);
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | NONNULL | IMMUTABLE;
+            return untilDay == Long.MAX_VALUE ? characteristics : characteristics | SIZED | SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package functionality;
+
+import core.Employee;
+import core.Shift;
+
+// One shift given to one employee; forced means a day off or rest period was overridden to staff it
+public final class Assignment {
+
+    private final Employee employee;
+    private final Shift shift;
+    private final boolean forced;
+
+    public Assignment(Employee employee, Shift shift, boolean forced) {
+        this.employee = employee;
+        this.shift = shift;
+        this.forced = forced;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public Shift getShift() {
+        return shift;
+    }
+
+    public boolean isForced() {
+        return forced;
+    }
+
+    @Override
+    public String toString() {
+        return employee.getId() + " -> " + shift + (forced ? " (forced)" : "");
+    }
+}
@@ -0,0 +1,175 @@
+package functionality;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+
+/*
+ * Bitset view of which employee slots could possibly take a shift, so candidate search only touches employees
+ * that pass the cheap rules. It keeps:
+ * - one BitSet per DayOfWeek with the slots that do not have that day off,
+ * - a "blocked" BitSet of slots still inside their rest period at the current watermark, backed by a
+ *   blockedUntil time per slot and a release queue so moving forward in time only touches released slots,
+ * - a "saturated" BitSet of slots that reached their maximum number of consecutive shifts, released through the
+ *   same queue once the gap since their last shift breaks the run.
+ *
+ * Single slots can be tested in O(1), and the full candidate set for a shift is a couple of word-wise operations:
+ * workingOn[day] AND NOT blocked AND NOT saturated. Both are only valid after advanceTo(shift start).
+ * The index is a prefilter; the scheduler still runs its full checks on the slots it returns.
+ */
+final class AvailabilityIndex {
+
+    private static final long NOT_BLOCKED = Long.MIN_VALUE;
+
+    private final BitSet roster = new BitSet();
+    private final BitSet[] workingOn = new BitSet[DayOfWeek.values().length]; // Indexed by DayOfWeek.ordinal()
+    private final BitSet blocked = new BitSet();
+    private final BitSet saturated = new BitSet();
+    private long[] blockedUntil = new long[16]; // Slot -> epoch minute at which the rest period ends
+    private long[] saturatedUntil = new long[16]; // Slot -> epoch minute at which the consecutive run is broken
+    private final PriorityQueue<Release> releases = new PriorityQueue<>();
+    private long watermark = Long.MIN_VALUE; // Time of the last candidate query, in epoch minutes
+
+    AvailabilityIndex() {
+        for (int day = 0; day < workingOn.length; day++) {
+            workingOn[day] = new BitSet();
+        }
+        Arrays.fill(blockedUntil, NOT_BLOCKED);
+        Arrays.fill(saturatedUntil, NOT_BLOCKED);
+    }
+
+    // Days off as a bit mask, bit i = DayOfWeek ordinal i
+    void add(int slot, int daysOffMask) {
+        if (slot >= blockedUntil.length) {
+            int previous = blockedUntil.length;
+            blockedUntil = Arrays.copyOf(blockedUntil, Math.max(slot + 1, previous * 2));
+            Arrays.fill(blockedUntil, previous, blockedUntil.length, NOT_BLOCKED);
+            saturatedUntil = Arrays.copyOf(saturatedUntil, blockedUntil.length);
+            Arrays.fill(saturatedUntil, previous, saturatedUntil.length, NOT_BLOCKED);
+        }
+        roster.set(slot);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            workingOn[day.ordinal()].set(slot, (daysOffMask & (1 << day.ordinal())) == 0);
+        }
+    }
+
+    // The slot is no longer a candidate for any shift
+    void remove(int slot) {
+        roster.clear(slot);
+        for (BitSet day : workingOn) {
+            day.clear(slot);
+        }
+    }
+
+    // The slot may not start another regular shift before the given epoch minute
+    void markResting(int slot, long untilMinute) {
+        blockedUntil[slot] = untilMinute;
+        if (untilMinute > watermark) {
+            blocked.set(slot);
+            releases.add(new Release(untilMinute, slot, false));
+        } else {
+            blocked.clear(slot);
+        }
+    }
+
+    // The slot may not start another shift before the given epoch minute, not even a forced one
+    void markSaturated(int slot, long untilMinute) {
+        saturatedUntil[slot] = untilMinute;
+        if (untilMinute > watermark) {
+            saturated.set(slot);
+            releases.add(new Release(untilMinute, slot, true));
+        } else {
+            saturated.clear(slot);
+        }
+    }
+
+    void clearSaturated(int slot) {
+        saturatedUntil[slot] = NOT_BLOCKED;
+        saturated.clear(slot);
+    }
+
+    // Moves the watermark to the start of the shift being staffed, releasing or re-blocking rest periods
+    void advanceTo(long shiftStartMinute) {
+        long time = shiftStartMinute;
+        if (time < watermark) {
+            // Going back in time: rebuild the blocked set from scratch (rare, shifts usually arrive in order)
+            blocked.clear();
+            saturated.clear();
+            releases.clear();
+            for (int slot = roster.nextSetBit(0); slot >= 0; slot = roster.nextSetBit(slot + 1)) {
+                if (blockedUntil[slot] > time) {
+                    blocked.set(slot);
+                    releases.add(new Release(blockedUntil[slot], slot, false));
+                }
+                if (saturatedUntil[slot] > time) {
+                    saturated.set(slot);
+                    releases.add(new Release(saturatedUntil[slot], slot, true));
+                }
+            }
+        } else {
+            while (!releases.isEmpty() && releases.peek().time <= time) {
+                Release release = releases.poll();
+                // Skip stale releases: the slot may have been blocked again for longer since
+                if (release.saturation) {
+                    if (saturatedUntil[release.slot] <= time) {
+                        saturated.clear(release.slot);
+                    }
+                } else if (blockedUntil[release.slot] <= time) {
+                    blocked.clear(release.slot);
+                }
+            }
+        }
+        watermark = time;
+    }
+
+    boolean isRegularCandidate(int slot, DayOfWeek day) {
+        return workingOn[day.ordinal()].get(slot) && !blocked.get(slot) && !saturated.get(slot);
+    }
+
+    boolean isForcedCandidate(int slot) {
+        return roster.get(slot) && !saturated.get(slot);
+    }
+
+    // Slots that are working on the day, rested at the watermark and not saturated; written into target
+    BitSet regularCandidates(DayOfWeek day, BitSet target) {
+        target.clear();
+        target.or(workingOn[day.ordinal()]);
+        target.andNot(blocked);
+        target.andNot(saturated);
+        return target;
+    }
+
+    // Slots that could be forced onto a shift: days off and rest periods are ignored
+    BitSet forcedCandidates(BitSet target) {
+        target.clear();
+        target.or(roster);
+        target.andNot(saturated);
+        return target;
+    }
+
+    // Slots that do not have the day off, or every slot in the index when day is null; rest periods and runs are
+    // ignored, so this also holds for shifts before the watermark
+    BitSet present(DayOfWeek day, BitSet target) {
+        target.clear();
+        target.or(day == null ? roster : workingOn[day.ordinal()]);
+        return target;
+    }
+
+    private static final class Release implements Comparable<Release> {
+        final long time;
+        final int slot;
+        final boolean saturation; // Releases a saturated slot rather than a resting one
+
+        Release(long time, int slot, boolean saturation) {
+            this.time = time;
+            this.slot = slot;
+            this.saturation = saturation;
+        }
+
+        @Override
+        public int compareTo(Release other) {
+            return Long.compare(time, other.time);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package functionality;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import core.ShiftBlock;
+
+/*
+ * Thread-safe scheduler for independent "assign this shift" requests arriving at the same time, e.g. from shift
+ * swaps and call-outs. It applies the same constraints as ShiftScheduler: the least loaded employee passing all of
+ * them gets the shift, and otherwise the least loaded one passing the hard ones is forced to take it.
+ *
+ * Every employee slot holds an immutable SlotSchedule snapshot in an AtomicReferenceArray. Candidate search only
+ * reads snapshots, so it takes no locks and never blocks a writer. An assignment is published with a
+ * compareAndSet on the chosen slot; when another request changed that employee first, the rules are checked
+ * again on the new snapshot and the search moves on if the employee no longer fits. Constraints read the live
+ * snapshots; if one changes while a constraint reads it, the compareAndSet fails, so an assignment is only
+ * published after passing the constraints on the exact snapshot it replaces.
+ * Each shift is claimed once through a map of futures, so concurrent requests for the same shift share one result
+ * and a shift is never staffed twice. A shift that could not be staffed is released and can be requested again.
+ * A request staffs one position: the headcount of the shift is not used here.
+ *
+ * Snapshots are copied on write, so an assignment costs O(k) for an employee with k shifts; this is meant for
+ * interactive traffic, ShiftScheduler remains the tool for bulk runs.
+ * submit() runs requests on the executor given to the constructor (the common ForkJoinPool by default), e.g. a
+ * virtual-thread-per-task executor on runtimes that have one.
+ */
+public final class ConcurrentShiftScheduler {
+
+    private final Roster roster;
+    private final ConstraintChain regularRules;
+    private final ConstraintChain forcedRules;
+    private final ScheduleView view = new LiveView();
+    private final BitSet[] workingOn; // Indexed by DayOfWeek.ordinal(); never modified after construction
+    private final boolean skillsRequired; // Whether SKILLS is enforced and candidates can come from the skill index
+    private final AtomicReferenceArray<SlotSchedule> schedules; // Slot -> current snapshot
+    private final ConcurrentHashMap<Shift, CompletableFuture<Optional<Assignment>>> claims = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    public ConcurrentShiftScheduler(Roster roster) {
+        this(roster, ForkJoinPool.commonPool());
+    }
+
+    public ConcurrentShiftScheduler(Roster roster, Executor executor) {
+        this(roster, executor, ShiftConstraints.defaults());
+    }
+
+    public ConcurrentShiftScheduler(Roster roster, Executor executor, Collection<? extends ShiftConstraint> constraints) {
+        this.roster = roster;
+        this.executor = executor;
+        this.regularRules = ConstraintChain.compile(constraints);
+        this.forcedRules = ConstraintChain.compileHard(constraints);
+        this.skillsRequired = forcedRules.contains(ShiftConstraints.SKILLS);
+        boolean daysOff = regularRules.contains(ShiftConstraints.DAY_OFF);
+        this.schedules = new AtomicReferenceArray<>(roster.size());
+        this.workingOn = new BitSet[DayOfWeek.values().length];
+        for (DayOfWeek day : DayOfWeek.values()) {
+            BitSet slots = new BitSet(roster.size());
+            for (int slot = 0; slot < roster.size(); slot++) {
+                if (!daysOff || !roster.isDayOff(slot, day)) {
+                    slots.set(slot);
+                }
+            }
+            workingOn[day.ordinal()] = slots;
+        }
+        for (int slot = 0; slot < roster.size(); slot++) {
+            schedules.set(slot, SlotSchedule.EMPTY);
+        }
+    }
+
+    public Roster getRoster() {
+        return roster;
+    }
+
+    public ConstraintChain getRegularConstraints() {
+        return regularRules;
+    }
+
+    public ConstraintChain getForcedConstraints() {
+        return forcedRules;
+    }
+
+    // Runs assign(shift) on the executor
+    public CompletableFuture<Optional<Assignment>> submit(Shift shift) {
+        return CompletableFuture.supplyAsync(() -> assign(shift), executor);
+    }
+
+    // Staffs the shift on the calling thread; empty if nobody can take it. Asking again for a staffed shift
+    // returns its existing assignment.
+    public Optional<Assignment> assign(Shift shift) {
+        CompletableFuture<Optional<Assignment>> claim = new CompletableFuture<>();
+        CompletableFuture<Optional<Assignment>> existing = claims.putIfAbsent(shift, claim);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        Optional<Assignment> result;
+        try {
+            result = place(shift, false);
+            if (!result.isPresent()) {
+                result = place(shift, true);
+            }
+        } catch (RuntimeException | Error e) {
+            claims.remove(shift, claim);
+            claim.completeExceptionally(e);
+            throw e;
+        }
+        if (!result.isPresent()) {
+            claims.remove(shift, claim); // Unfilled: a later request may succeed
+        }
+        claim.complete(result);
+        return result;
+    }
+
+    // Read-only search for the employee assign(shift) would pick right now
+    public Optional<Employee> findCandidate(Shift shift) {
+        int slot = findCandidate(shift, false);
+        if (slot < 0) {
+            slot = findCandidate(shift, true);
+        }
+        return slot < 0 ? Optional.<Employee>empty() : Optional.of(roster.employee(slot));
+    }
+
+    public Optional<Assignment> getAssignment(Shift shift) {
+        CompletableFuture<Optional<Assignment>> claim = claims.get(shift);
+        return claim != null && claim.isDone() && !claim.isCompletedExceptionally()
+                ? claim.join() : Optional.<Assignment>empty();
+    }
+
+    // Assignments of the employee in the order they were made
+    public List<Assignment> getAssignments(Employee employee) {
+        int slot = roster.slotOf(employee);
+        return slot < 0 ? Collections.<Assignment>emptyList()
+                : Collections.unmodifiableList(Arrays.asList(schedules.get(slot).assignments));
+    }
+
+    public List<Shift> getAssignedShifts(Employee employee) {
+        List<Assignment> assignments = getAssignments(employee);
+        List<Shift> shifts = new ArrayList<>(assignments.size());
+        for (Assignment assignment : assignments) {
+            shifts.add(assignment.getShift());
+        }
+        return shifts;
+    }
+
+    private Optional<Assignment> place(Shift shift, boolean forced) {
+        while (true) {
+            int slot = findCandidate(shift, forced);
+            if (slot < 0) {
+                return Optional.empty();
+            }
+            Assignment assignment = new Assignment(roster.employee(slot), shift, forced);
+            if (tryAssign(slot, assignment)) {
+                return Optional.of(assignment);
+            }
+            // Another request changed that employee and it no longer fits; search again on fresh snapshots
+        }
+    }
+
+    private boolean tryAssign(int slot, Assignment assignment) {
+        Shift shift = assignment.getShift();
+        while (true) {
+            SlotSchedule current = schedules.get(slot);
+            if (!fits(slot, shift, assignment.isForced())) {
+                return false;
+            }
+            SlotSchedule next = current.with(assignment);
+            if (schedules.compareAndSet(slot, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // Least loaded slot that fits, lowest slot first among equals; -1 if there is none
+    private int findCandidate(Shift shift, boolean forced) {
+        BitSet candidates = forced ? null : workingOn[ShiftBlock.dayOfWeek(shift.getStartMinute()).ordinal()];
+        Set<String> required = shift.getRequiredSkills();
+        if (skillsRequired && !required.isEmpty()) {
+            // Start from the employees having the skills rather than from the whole roster
+            BitSet qualified = new BitSet(roster.size());
+            if (!roster.qualifiedSlots(required, qualified)) {
+                return -1;
+            }
+            if (candidates != null) {
+                qualified.and(candidates);
+            }
+            candidates = qualified;
+        }
+
+        int best = -1;
+        int bestLoad = Integer.MAX_VALUE;
+        int slot = candidates == null ? 0 : candidates.nextSetBit(0);
+        while (slot >= 0 && slot < roster.size()) {
+            int load = schedules.get(slot).load();
+            if (load < bestLoad && fits(slot, shift, forced)) {
+                best = slot;
+                bestLoad = load;
+            }
+            slot = candidates == null ? slot + 1 : candidates.nextSetBit(slot + 1);
+        }
+        return best;
+    }
+
+    private boolean fits(int slot, Shift shift, boolean forced) {
+        return (forced ? forcedRules : regularRules).test(view, slot, shift);
+    }
+
+    // Reads the current snapshots; see the class comment for why that is safe
+    private final class LiveView implements ScheduleView {
+
+        @Override
+        public Roster roster() {
+            return roster;
+        }
+
+        @Override
+        public int load(int slot) {
+            return schedules.get(slot).load();
+        }
+
+        @Override
+        public int consecutiveShifts(int slot) {
+            return schedules.get(slot).consecutive;
+        }
+
+        @Override
+        public int consecutiveShiftsAround(int slot, long start, long end) {
+            return schedules.get(slot).consecutiveAround(start, end);
+        }
+
+        @Override
+        public long lastShiftEnd(int slot) {
+            return schedules.get(slot).lastShiftEnd;
+        }
+
+        @Override
+        public boolean overlaps(int slot, long start, long end) {
+            return schedules.get(slot).intervals.overlaps(start, end);
+        }
+
+        @Override
+        public long previousEnd(int slot, long start) {
+            return schedules.get(slot).intervals.previousEnd(start);
+        }
+
+        @Override
+        public long nextStart(int slot, long end) {
+            return schedules.get(slot).intervals.nextStart(end);
+        }
+    }
+
+    // Immutable view of one employee's assignments; a new one replaces it on every change
+    private static final class SlotSchedule {
+
+        static final SlotSchedule EMPTY = new SlotSchedule(new Assignment[0], new ShiftIntervalIndex(), 0, ScheduleState.NO_SHIFT);
+
+        final Assignment[] assignments; // In assignment order; the index is the interval ID
+        final ShiftIntervalIndex intervals; // Never modified once published
+        final int consecutive;
+        final long lastShiftEnd;
+
+        SlotSchedule(Assignment[] assignments, ShiftIntervalIndex intervals, int consecutive, long lastShiftEnd) {
+            this.assignments = assignments;
+            this.intervals = intervals;
+            this.consecutive = consecutive;
+            this.lastShiftEnd = lastShiftEnd;
+        }
+
+        int load() {
+            return assignments.length;
+        }
+
+        SlotSchedule with(Assignment assignment) {
+            Shift shift = assignment.getShift();
+            Assignment[] nextAssignments = Arrays.copyOf(assignments, assignments.length + 1);
+            nextAssignments[assignments.length] = assignment;
+            ShiftIntervalIndex nextIntervals = intervals.copy();
+            nextIntervals.add(shift.getStartMinute(), shift.getEndMinute(), assignments.length);
+            // Same counting as ScheduleState.assign: requests may come in any order, so the shift can land between
+            // existing ones, in which case the latest run is counted again
+            if (shift.getStartMinute() >= lastShiftEnd) {
+                int nextConsecutive = ScheduleState.consecutiveBefore(consecutive, lastShiftEnd, shift.getStartMinute()) + 1;
+                return new SlotSchedule(nextAssignments, nextIntervals, nextConsecutive, shift.getEndMinute());
+            }
+            return new SlotSchedule(nextAssignments, nextIntervals,
+                    nextIntervals.lastRun(ScheduleState.RUN_BREAK_MINUTES), lastShiftEnd);
+        }
+
+        int consecutiveAround(long start, long end) {
+            if (start >= lastShiftEnd) {
+                return ScheduleState.consecutiveBefore(consecutive, lastShiftEnd, start) + 1;
+            }
+            return intervals.runBefore(start, ScheduleState.RUN_BREAK_MINUTES) + 1
+                    + intervals.runAfter(end, ScheduleState.RUN_BREAK_MINUTES);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import core.Shift;
+
+/*
+ * Constraints compiled into a short-circuiting AND, ordered so the expected cost of a test is as low as possible:
+ * a rule costing c that rejects a share (1 - selectivity) of candidates goes before the others when
+ * c / (1 - selectivity) is smallest, so cheap rules that reject many candidates run first and rules that
+ * almost never reject run last.
+ *
+ * Every test and every rejection is counted per rule (with LongAdders, so a chain can be shared between threads).
+ * A rule is evaluated as often as the tests that got past all rules before it, which shows where candidate search
+ * spends its time.
+ */
+public final class ConstraintChain {
+
+    private final ShiftConstraint[] rules; // In evaluation order
+    private final LongAdder tests = new LongAdder();
+    private final LongAdder[] rejections;
+
+    private ConstraintChain(List<ShiftConstraint> rules) {
+        this.rules = rules.toArray(new ShiftConstraint[0]);
+        this.rejections = new LongAdder[this.rules.length];
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    // All constraints, for regular assignments
+    public static ConstraintChain compile(Collection<? extends ShiftConstraint> constraints) {
+        return new ConstraintChain(order(constraints, false));
+    }
+
+    // Only the hard constraints, for forced assignments
+    public static ConstraintChain compileHard(Collection<? extends ShiftConstraint> constraints) {
+        return new ConstraintChain(order(constraints, true));
+    }
+
+    private static List<ShiftConstraint> order(Collection<? extends ShiftConstraint> constraints, boolean hardOnly) {
+        List<ShiftConstraint> ordered = new ArrayList<>(constraints.size());
+        for (ShiftConstraint constraint : constraints) {
+            if ((!hardOnly || constraint.isHard()) && !ordered.contains(constraint)) {
+                ordered.add(constraint);
+            }
+        }
+        // Stable sort: rules with the same rank keep the order they were given in
+        ordered.sort(Comparator.comparingDouble(ConstraintChain::rank));
+        return ordered;
+    }
+
+    // Expected cost per rejection; a rule that never rejects ranks last
+    private static double rank(ShiftConstraint constraint) {
+        double rejected = 1 - constraint.selectivity();
+        return rejected <= 0 ? Double.POSITIVE_INFINITY : constraint.cost() / rejected;
+    }
+
+    public boolean test(ScheduleView schedule, int slot, Shift shift) {
+        tests.increment();
+        for (int i = 0; i < rules.length; i++) {
+            if (!rules[i].test(schedule, slot, shift)) {
+                rejections[i].increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(ShiftConstraint constraint) {
+        return Arrays.asList(rules).contains(constraint);
+    }
+
+    // Constraints in evaluation order
+    public List<ShiftConstraint> rules() {
+        return Collections.unmodifiableList(Arrays.asList(rules));
+    }
+
+    public long tests() {
+        return tests.sum();
+    }
+
+    // Per-rule counters in evaluation order
+    public List<RuleStatistics> statistics() {
+        List<RuleStatistics> statistics = new ArrayList<>(rules.length);
+        long reached = tests.sum();
+        for (int i = 0; i < rules.length; i++) {
+            long rejected = rejections[i].sum();
+            statistics.add(new RuleStatistics(rules[i].name(), reached, rejected));
+            reached -= rejected;
+        }
+        return statistics;
+    }
+
+    public void resetStatistics() {
+        tests.reset();
+        for (LongAdder rejected : rejections) {
+            rejected.reset();
+        }
+    }
+
+    public static final class RuleStatistics {
+
+        private final String name;
+        private final long evaluations;
+        private final long rejections;
+
+        RuleStatistics(String name, long evaluations, long rejections) {
+            this.name = name;
+            this.evaluations = evaluations;
+            this.rejections = rejections;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public long getRejections() {
+            return rejections;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + rejections + " of " + evaluations + " rejected";
+        }
+    }
+}
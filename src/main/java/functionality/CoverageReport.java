@@ -0,0 +1,108 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import core.Shift;
+
+/*
+ * Outcome of ShiftScheduler.assignShifts: totals over all shifts, and one entry for every shift that did not get
+ * its full headcount. Forced assignments count as filled; they are reported in the totals.
+ */
+public final class CoverageReport {
+
+    private final List<ShiftCoverage> underCovered = new ArrayList<>();
+    private int shiftCount;
+    private long required;
+    private long assigned;
+    private long forced;
+
+    void add(Shift shift, int required, int assigned, int forced) {
+        shiftCount++;
+        this.required += required;
+        this.assigned += assigned + forced;
+        this.forced += forced;
+        if (assigned + forced < required) {
+            underCovered.add(new ShiftCoverage(shift, required, assigned, forced));
+        }
+    }
+
+    public int getShiftCount() {
+        return shiftCount;
+    }
+
+    // Sum of the headcounts of all shifts
+    public long getRequired() {
+        return required;
+    }
+
+    // Assignments made, forced ones included
+    public long getAssigned() {
+        return assigned;
+    }
+
+    public long getForced() {
+        return forced;
+    }
+
+    public long getUnfilled() {
+        return required - assigned;
+    }
+
+    public boolean isFullyCovered() {
+        return underCovered.isEmpty();
+    }
+
+    // Shifts short of their headcount, in the order they were scheduled
+    public List<ShiftCoverage> getUnderCovered() {
+        return Collections.unmodifiableList(underCovered);
+    }
+
+    @Override
+    public String toString() {
+        return assigned + " of " + required + " positions filled (" + forced + " forced) over " + shiftCount
+                + " shifts, " + underCovered.size() + " shifts under-covered";
+    }
+
+    public static final class ShiftCoverage {
+
+        private final Shift shift;
+        private final int required;
+        private final int assigned;
+        private final int forced;
+
+        ShiftCoverage(Shift shift, int required, int assigned, int forced) {
+            this.shift = shift;
+            this.required = required;
+            this.assigned = assigned;
+            this.forced = forced;
+        }
+
+        public Shift getShift() {
+            return shift;
+        }
+
+        public int getRequired() {
+            return required;
+        }
+
+        // Regular assignments
+        public int getAssigned() {
+            return assigned;
+        }
+
+        public int getForced() {
+            return forced;
+        }
+
+        public int getMissing() {
+            return required - assigned - forced;
+        }
+
+        @Override
+        public String toString() {
+            return shift + ": " + getMissing() + " of " + required + " missing";
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package functionality;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/*
+ * Indexed binary min-heap over dense employee slots, keyed by the number of shifts assigned to each slot.
+ * Ties are broken by slot number so the fairness order is fully deterministic.
+ *
+ * Every slot remembers its heap position, so changing one employee's load is a single sift (O(log n))
+ * instead of rebuilding the whole queue. A Cursor walks the heap in fairness order without removing anything,
+ * which is what candidate search needs: look at the least loaded employees first and stop at the first fit.
+ */
+final class FairnessHeap {
+
+    private static final int ABSENT = -1;
+
+    private int[] heap;     // heap position -> slot
+    private int[] position; // slot -> heap position, ABSENT when the slot is not in the heap
+    private int[] keys;     // slot -> current key (assigned shift count)
+    private int size;
+
+    FairnessHeap(int expectedSlots) {
+        int capacity = Math.max(expectedSlots, 4);
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new int[capacity];
+        Arrays.fill(position, ABSENT);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int slot) {
+        return slot >= 0 && slot < position.length && position[slot] != ABSENT;
+    }
+
+    int key(int slot) {
+        return keys[slot];
+    }
+
+    // Returns the slot with the lowest key without removing it
+    int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return heap[0];
+    }
+
+    void add(int slot, int key) {
+        if (contains(slot)) {
+            throw new IllegalArgumentException("Slot " + slot + " is already in the heap");
+        }
+        ensureSlotCapacity(slot + 1);
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        keys[slot] = key;
+        heap[size] = slot;
+        position[slot] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    void remove(int slot) {
+        if (!contains(slot)) {
+            return;
+        }
+        int index = position[slot];
+        int last = heap[--size];
+        position[slot] = ABSENT;
+        if (index == size) {
+            return; // Removed the last element, nothing to re-balance
+        }
+        heap[index] = last;
+        position[last] = index;
+        siftDown(index);
+        siftUp(position[last]);
+    }
+
+    // Changes the key of a slot already in the heap and restores the heap order around it
+    void updateKey(int slot, int key) {
+        if (!contains(slot)) {
+            throw new IllegalArgumentException("Slot " + slot + " is not in the heap");
+        }
+        int previous = keys[slot];
+        keys[slot] = key;
+        if (key < previous) {
+            siftUp(position[slot]);
+        } else if (key > previous) {
+            siftDown(position[slot]);
+        }
+    }
+
+    void increment(int slot) {
+        updateKey(slot, keys[slot] + 1);
+    }
+
+    void decrement(int slot) {
+        updateKey(slot, keys[slot] - 1);
+    }
+
+    // Returns a reusable cursor positioned before the least loaded slot
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private boolean less(int slotA, int slotB) {
+        int keyA = keys[slotA];
+        int keyB = keys[slotB];
+        return keyA < keyB || (keyA == keyB && slotA < slotB);
+    }
+
+    private void siftUp(int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+            if (!less(slot, parent)) {
+                break;
+            }
+            heap[index] = parent;
+            position[parent] = index;
+            index = parentIndex;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+
+    private void siftDown(int index) {
+        int slot = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            int child = heap[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && less(heap[rightIndex], child)) {
+                childIndex = rightIndex;
+                child = heap[childIndex];
+            }
+            if (!less(child, slot)) {
+                break;
+            }
+            heap[index] = child;
+            position[child] = index;
+            index = childIndex;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+
+    private void ensureSlotCapacity(int slots) {
+        if (slots > position.length) {
+            int capacity = Math.max(slots, position.length * 2);
+            int previous = position.length;
+            position = Arrays.copyOf(position, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            Arrays.fill(position, previous, capacity, ABSENT);
+        }
+    }
+
+    /*
+     * Non-destructive iteration in fairness order. It runs a best-first walk of the heap tree using a small
+     * frontier heap of heap positions: visiting k slots costs O(k log k) regardless of the roster size.
+     * The heap must not be modified while a cursor is in use; call reset() after any change.
+     */
+    final class Cursor {
+        private int[] frontier = new int[16]; // heap positions still to visit, itself ordered as a min-heap
+        private int frontierSize;
+
+        private Cursor() {
+            reset();
+        }
+
+        void reset() {
+            frontierSize = 0;
+            if (size > 0) {
+                frontier[frontierSize++] = 0;
+            }
+        }
+
+        boolean hasNext() {
+            return frontierSize > 0;
+        }
+
+        int next() {
+            if (frontierSize == 0) {
+                throw new NoSuchElementException();
+            }
+            int index = frontier[0];
+            int last = frontier[--frontierSize];
+            if (frontierSize > 0) {
+                frontier[0] = last;
+                frontierSiftDown(0);
+            }
+            int left = 2 * index + 1;
+            if (left < size) {
+                push(left);
+                if (left + 1 < size) {
+                    push(left + 1);
+                }
+            }
+            return heap[index];
+        }
+
+        private void push(int index) {
+            if (frontierSize == frontier.length) {
+                frontier = Arrays.copyOf(frontier, frontierSize * 2);
+            }
+            int i = frontierSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(heap[index], heap[frontier[parent]])) {
+                    break;
+                }
+                frontier[i] = frontier[parent];
+                i = parent;
+            }
+            frontier[i] = index;
+        }
+
+        private void frontierSiftDown(int i) {
+            int index = frontier[i];
+            int half = frontierSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < frontierSize && less(heap[frontier[child + 1]], heap[frontier[child]])) {
+                    child++;
+                }
+                if (!less(heap[frontier[child]], heap[index])) {
+                    break;
+                }
+                frontier[i] = frontier[child];
+                i = child;
+            }
+            frontier[i] = index;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package functionality;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import core.ShiftBlock;
+
+/*
+ * Staffs shifts a calendar day at a time with a min-cost flow (see MinCostFlow) instead of shift by shift.
+ * ShiftScheduler commits every shift to the least loaded eligible employees in start order, so an employee picked
+ * for an early shift may be the only one who could have taken a later one, which is then forced on someone or left
+ * short. Here all shifts of a day are placed together:
+ *
+ *   source -> shift group -> employee -> sink
+ *
+ * - a shift group is the shifts with the same start, end and required skills; its capacity is their headcount,
+ * - a group has an arc to every employee passing the constraints (free) or only the hard ones (a forced
+ *   assignment, FORCED_COST), checked against the schedule so far, which holds the days before,
+ * - an employee takes one shift of the day, at a cost of 2 * load + 1, so the cheapest flow also minimizes the sum
+ *   of squared loads.
+ * The most positions are staffed first, then the fewest forced assignments, then the flattest load. A whole
+ * multi-day window as one flow cannot see the rest period and consecutive shifts between its days; solving the days
+ * in order keeps those rules exact.
+ *
+ * Shifts of the same day can still conflict with each other (an overnight shift and the next morning's), so the
+ * flow is applied in start order through the scheduler, which checks every assignment against the ones before it.
+ * What it rejects is solved again against the updated schedule, up to MAX_ROUNDS times, and whatever is still
+ * open, or was not reached within the time budget, is staffed by ShiftScheduler.repair(). Each group only gets arcs
+ * to CANDIDATES_PER_POSITION employees per position, taken round-robin over the roster, so the graph stays linear in
+ * the number of shifts and large rosters solve in milliseconds per day.
+ */
+public final class FlowScheduler {
+
+    static final long FORCED_COST = 1 << 20; // Outweighs any difference in load costs
+    private static final int CANDIDATES_PER_POSITION = 8;
+    private static final int MIN_CANDIDATES = 32;
+    private static final int MAX_ROUNDS = 4;
+    private static final long NO_BUDGET = Long.MAX_VALUE >> 1; // Nanoseconds; long enough to never expire
+
+    private final ShiftScheduler scheduler;
+    private final BitSet qualified = new BitSet(); // Reused candidate set of a group
+    private long budgetNanos = NO_BUDGET;
+    private long cursor; // Round-robin start of the next group's candidates
+    private boolean optimal;
+
+    public FlowScheduler(Roster roster) {
+        this(new ShiftScheduler(roster));
+    }
+
+    // Adds to the schedule of the given scheduler; its constraints apply
+    public FlowScheduler(ShiftScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    // Time assignShifts may spend on the flows; once it is up, the flow found so far is used and the remaining
+    // shifts are staffed greedily. Unlimited by default.
+    public void setTimeBudget(Duration budget) {
+        if (budget.isNegative()) {
+            throw new IllegalArgumentException("Time budget must not be negative: " + budget);
+        }
+        this.budgetNanos = budget.compareTo(Duration.ofNanos(NO_BUDGET)) >= 0 ? NO_BUDGET : budget.toNanos();
+    }
+
+    // Staffs every shift with as many employees as its headcount; shifts that could not be fully staffed are listed
+    // in the returned report
+    public CoverageReport assignShifts(List<Shift> shifts) {
+        long deadline = System.nanoTime() + budgetNanos;
+        List<Group> groups = group(shifts);
+        Map<Shift, int[]> tallies = new HashMap<>(); // Shift -> {assigned, forced}
+        optimal = true;
+        for (int from = 0, to; from < groups.size(); from = to) {
+            long day = groups.get(from).day;
+            to = from;
+            while (to < groups.size() && groups.get(to).day == day) {
+                to++;
+            }
+            staffDay(new ArrayList<>(groups.subList(from, to)), deadline, tallies);
+        }
+
+        CoverageReport report = new CoverageReport();
+        for (Shift shift : shifts) {
+            int[] tally = tallies.get(shift);
+            report.add(shift, shift.getHeadcount(), tally == null ? 0 : tally[0], tally == null ? 0 : tally[1]);
+        }
+        return report;
+    }
+
+    // Whether every flow of the last assignShifts was solved within the time budget, i.e. was of minimum cost
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    public ShiftScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public ScheduleState getState() {
+        return scheduler.getState();
+    }
+
+    // Read from the scheduler every time, as ShiftScheduler.updateRoster replaces it
+    private Roster roster() {
+        return scheduler.getState().roster();
+    }
+
+    public List<Shift> getAssignedShifts(Employee employee) {
+        return scheduler.getAssignedShifts(employee);
+    }
+
+    private void staffDay(List<Group> groups, long deadline, Map<Shift, int[]> tallies) {
+        for (int round = 0; round < MAX_ROUNDS && !groups.isEmpty(); round++) {
+            if (System.nanoTime() - deadline >= 0) {
+                optimal = false;
+                break;
+            }
+            MinCostFlow flow = new MinCostFlow(2 + groups.size() + roster().size());
+            int source = flow.addNode();
+            int sink = flow.addNode();
+            build(flow, source, sink, groups);
+            flow.solve(source, sink, deadline);
+            optimal &= flow.isComplete();
+            int placed = apply(flow, groups, tallies);
+            groups.removeIf(group -> group.positions == 0);
+            if (placed == 0 || !flow.isComplete()) {
+                break;
+            }
+        }
+
+        // Whatever the flows left open is staffed greedily before the next day
+        if (!groups.isEmpty()) {
+            for (Group group : groups) {
+                for (int i = 0; i < group.shifts.size(); i++) {
+                    if (group.open[i] > 0) {
+                        scheduler.openPositions(group.shifts.get(i), group.open[i]);
+                    }
+                }
+            }
+            for (Assignment assignment : scheduler.repair().getAdded()) {
+                tallies.computeIfAbsent(assignment.getShift(), s -> new int[2])[assignment.isForced() ? 1 : 0]++;
+            }
+        }
+    }
+
+    private void build(MinCostFlow flow, int source, int sink, List<Group> groups) {
+        ScheduleState state = scheduler.getState();
+        ConstraintChain regularRules = scheduler.getRegularConstraints();
+        ConstraintChain forcedRules = scheduler.getForcedConstraints();
+        boolean skillsRequired = forcedRules.contains(ShiftConstraints.SKILLS);
+        BitSet removed = scheduler.removedSlots();
+        int n = roster().size();
+        int[] employeeNode = new int[n];
+        Arrays.fill(employeeNode, -1);
+
+        for (Group group : groups) {
+            group.arcs.clear();
+            group.slots.clear();
+            group.forced.clear();
+            int node = flow.addNode();
+            flow.addArc(source, node, group.positions, 0);
+            if (skillsRequired && !group.skills.isEmpty()) {
+                roster().qualifiedSlots(group.skills, qualified);
+            } else {
+                qualified.set(0, n);
+            }
+            qualified.andNot(removed);
+            int candidates = qualified.cardinality();
+            long wanted = Math.max(MIN_CANDIDATES, (long) CANDIDATES_PER_POSITION * group.positions);
+
+            // Round-robin start, so the arcs of successive groups spread over the whole roster
+            int slot = candidates == 0 ? -1 : qualified.nextSetBit((int) (cursor % n));
+            int regular = 0;
+            int forced = 0;
+            for (int visited = 0; visited < candidates && regular < wanted; visited++) {
+                if (slot < 0) {
+                    slot = qualified.nextSetBit(0);
+                }
+                boolean isForced;
+                if (regularRules.test(state, slot, group.representative)) {
+                    isForced = false;
+                    regular++;
+                } else if (forced < wanted && forcedRules.test(state, slot, group.representative)) {
+                    isForced = true;
+                    forced++;
+                } else {
+                    slot = qualified.nextSetBit(slot + 1);
+                    continue;
+                }
+                if (employeeNode[slot] < 0) {
+                    employeeNode[slot] = flow.addNode();
+                    flow.addArc(employeeNode[slot], sink, 1, 2L * state.load(slot) + 1);
+                }
+                group.arcs.add(flow.addArc(node, employeeNode[slot], 1, isForced ? FORCED_COST : 0));
+                group.slots.add(slot);
+                if (isForced) {
+                    group.forced.set(group.arcs.size() - 1);
+                }
+                slot = qualified.nextSetBit(slot + 1);
+            }
+            cursor += wanted;
+        }
+    }
+
+    // Places the flow in start order through the scheduler; returns the number of assignments it accepted
+    private int apply(MinCostFlow flow, List<Group> groups, Map<Shift, int[]> tallies) {
+        ScheduleState state = scheduler.getState();
+        int placed = 0;
+        for (Group group : groups) {
+            int[] units = group.open.clone(); // Flow units each shift can still take in this round
+            int shift = 0;
+            for (int edge = 0; edge < group.arcs.size(); edge++) {
+                if (flow.flow(group.arcs.get(edge)) == 0) {
+                    continue;
+                }
+                while (units[shift] == 0) {
+                    shift++;
+                }
+                units[shift]--;
+                Shift target = group.shifts.get(shift);
+                if (scheduler.place(group.slots.get(edge), target, group.forced.get(edge))) {
+                    boolean isForced = state.isForced(state.assignmentCount() - 1);
+                    tallies.computeIfAbsent(target, s -> new int[2])[isForced ? 1 : 0]++;
+                    group.open[shift]--;
+                    group.positions--;
+                    placed++;
+                }
+            }
+        }
+        return placed;
+    }
+
+    // Shift groups in start order; shifts with the same times and skills are interchangeable for the flow
+    private static List<Group> group(List<Shift> shifts) {
+        List<Shift> ordered = new ArrayList<>(shifts);
+        ordered.sort(Comparator.comparingLong(Shift::getStartMinute).thenComparingLong(Shift::getEndMinute));
+        List<Group> groups = new ArrayList<>();
+        Map<Set<String>, Group> sameTimes = new HashMap<>();
+        for (Shift shift : ordered) {
+            if (shift.getHeadcount() == 0) {
+                continue;
+            }
+            Group previous = groups.isEmpty() ? null : groups.get(groups.size() - 1);
+            if (previous == null || previous.start != shift.getStartMinute() || previous.end != shift.getEndMinute()) {
+                sameTimes.clear();
+            }
+            Group group = sameTimes.get(shift.getRequiredSkills());
+            if (group == null) {
+                group = new Group(shift);
+                sameTimes.put(shift.getRequiredSkills(), group);
+                groups.add(group);
+            }
+            group.shifts.add(shift);
+            group.positions += shift.getHeadcount();
+        }
+        for (Group group : groups) {
+            group.open = new int[group.shifts.size()];
+            for (int i = 0; i < group.open.length; i++) {
+                group.open[i] = group.shifts.get(i).getHeadcount();
+            }
+        }
+        return groups;
+    }
+
+    // Interchangeable shifts, and the arcs of the current flow to the employees that could take them
+    private static final class Group {
+        final long start;
+        final long end;
+        final long day; // Calendar day of the start, in days since the epoch
+        final Set<String> skills;
+        final Shift representative; // Rules are checked with the first shift of the group
+        final List<Shift> shifts = new ArrayList<>();
+        final IntList arcs = new IntList();
+        final IntList slots = new IntList();
+        final BitSet forced = new BitSet(); // By position in arcs
+        int[] open; // Positions of every shift still to staff
+        int positions; // Sum of open
+
+        Group(Shift shift) {
+            this.start = shift.getStartMinute();
+            this.end = shift.getEndMinute();
+            this.day = Math.floorDiv(start, ShiftBlock.MINUTES_PER_DAY);
+            this.skills = shift.getRequiredSkills();
+            this.representative = shift;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package functionality;
+
+import java.util.Arrays;
+
+// Growable list of primitive ints, used for per-employee assignment lists without boxing. Removing from the front
+// is O(1), so it also works as a queue of the oldest assignments.
+final class IntList {
+
+    private int[] values;
+    private int head; // Index of the first value in values
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    void add(int value) {
+        if (head + size == values.length) {
+            if (head > 0 && size < values.length / 2) {
+                // Reuse the room freed at the front instead of growing
+                System.arraycopy(values, head, values, 0, size);
+            } else {
+                values = Arrays.copyOfRange(values, head, head + Math.max(size * 2, 1));
+            }
+            head = 0;
+        }
+        values[head + size++] = value;
+    }
+
+    int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        return values[head + index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int removeFirst() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("List is empty");
+        }
+        size--;
+        return values[head++];
+    }
+
+    // Removes the first occurrence of the value, keeping the order of the others
+    boolean removeValue(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[head + i] == value) {
+                System.arraycopy(values, head + i + 1, values, head + i, size - i - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOfRange(values, head, head + size);
+    }
+}
@@ -0,0 +1,92 @@
+package functionality;
+
+import core.Employee;
+import core.Shift;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*
+ * SchedulerListener that emits Java Flight Recorder events, so production runs can be profiled with a recording
+ * (e.g. -XX:StartFlightRecording) instead of log output. Events are only built when a recording has them enabled;
+ * otherwise each callback is a single check. Needs a runtime with the jdk.jfr module, as every Java 11 JDK has.
+ */
+public final class JfrSchedulerListener implements SchedulerListener {
+
+    @Override
+    public void shiftStaffed(Shift shift, int required, int assigned, int forced, int candidatesScanned, long nanos) {
+        ShiftStaffed event = new ShiftStaffed();
+        if (event.shouldCommit()) {
+            event.shiftId = shift.getId();
+            event.startMinute = shift.getStartMinute();
+            event.required = required;
+            event.assigned = assigned;
+            event.forced = forced;
+            event.unfilled = required - assigned - forced;
+            event.candidatesScanned = candidatesScanned;
+            event.staffingTime = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void assigned(Employee employee, Shift shift, boolean forced, long nanos) {
+        if (!forced) {
+            return;
+        }
+        ForcedAssignment event = new ForcedAssignment();
+        if (event.shouldCommit()) {
+            event.employeeId = employee.getId();
+            event.shiftId = shift.getId();
+            event.startMinute = shift.getStartMinute();
+            event.assignmentTime = nanos;
+            event.commit();
+        }
+    }
+
+    @Name("lemurshift.ShiftStaffed")
+    @Label("Shift Staffed")
+    @Category({"LemurShift", "Scheduling"})
+    @Description("Positions of one shift staffed by a ShiftScheduler")
+    @StackTrace(false)
+    static final class ShiftStaffed extends Event {
+        @Label("Shift ID")
+        String shiftId;
+        @Label("Start (epoch minute)")
+        long startMinute;
+        @Label("Required")
+        int required;
+        @Label("Assigned")
+        int assigned;
+        @Label("Forced")
+        int forced;
+        @Label("Unfilled")
+        int unfilled;
+        @Label("Candidates Scanned")
+        int candidatesScanned;
+        @Label("Staffing Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long staffingTime;
+    }
+
+    @Name("lemurshift.ForcedAssignment")
+    @Label("Forced Assignment")
+    @Category({"LemurShift", "Scheduling"})
+    @Description("Shift given to an employee on a day off or during a rest period")
+    @StackTrace(false)
+    static final class ForcedAssignment extends Event {
+        @Label("Employee ID")
+        String employeeId;
+        @Label("Shift ID")
+        String shiftId;
+        @Label("Start (epoch minute)")
+        long startMinute;
+        @Label("Assignment Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long assignmentTime;
+    }
+}
@@ -0,0 +1,61 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import core.Roster;
+
+/*
+ * In-process LocationCoordinator: every store is solved by its own ShiftScheduler on a ForkJoinPool, so the solve
+ * phase scales with the cores. The solves are forked from one task inside the pool rather than submitted from
+ * outside, so they land in a worker's deque and idle workers steal them; stores differ a lot in size, and stealing
+ * keeps every core busy until the last one is done. The largest stores are forked first, so they are the first
+ * to be stolen and the small ones fill the gaps at the end.
+ */
+public final class LocalCoordinator implements LocationCoordinator {
+
+    private final ForkJoinPool pool;
+    private final Collection<? extends ShiftConstraint> constraints;
+
+    public LocalCoordinator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public LocalCoordinator(ForkJoinPool pool) {
+        this(pool, ShiftConstraints.defaults());
+    }
+
+    public LocalCoordinator(ForkJoinPool pool, Collection<? extends ShiftConstraint> constraints) {
+        this.pool = pool;
+        this.constraints = constraints;
+    }
+
+    @Override
+    public List<StoreSchedule> solve(List<Store> stores) {
+        StoreSchedule[] schedules = new StoreSchedule[stores.size()];
+        Integer[] largestFirst = new Integer[stores.size()];
+        for (int i = 0; i < largestFirst.length; i++) {
+            largestFirst[i] = i;
+        }
+        Arrays.sort(largestFirst, Comparator.comparingLong((Integer i) -> stores.get(i).positions()).reversed());
+
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            List<ForkJoinTask<?>> solves = new ArrayList<>(stores.size());
+            for (int i : largestFirst) {
+                solves.add(ForkJoinTask.adapt(() -> schedules[i] = solve(stores.get(i))));
+            }
+            ForkJoinTask.invokeAll(solves);
+        }));
+        return Arrays.asList(schedules);
+    }
+
+    private StoreSchedule solve(Store store) {
+        ShiftScheduler scheduler = new ShiftScheduler(new Roster(store.getEmployees()), constraints);
+        return new StoreSchedule(store, scheduler, scheduler.assignShifts(store.getShifts()));
+    }
+}
@@ -0,0 +1,522 @@
+package functionality;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import core.Roster;
+import core.Shift;
+
+/*
+ * Improves a finished schedule, e.g. the result of ShiftScheduler.assignShifts, by local search until a deadline.
+ * The objective is the one FlowScheduler minimizes: FORCED_COST per forced assignment plus the sum of squared
+ * loads. The moves tried are:
+ * - move: an assignment goes to a less loaded employee who passes every constraint; a forced assignment always
+ *   gains, a regular one gains if the loads get closer,
+ * - release: a shift next to a forced one goes to someone else, after which the forced shift passes every
+ *   constraint, e.g. the shift that left no rest period before it,
+ * - chain: another employee takes the forced shift once a shift of theirs in the way goes to a third one,
+ * - swap: a forced assignment and a shift of another employee trade places, when each side can take the other's
+ *   shift without forcing.
+ * Every move is scored by its delta alone: the load term only depends on the loads of the employees involved and
+ * the forced term on the assignments moved, so the schedule is never rescored. The constraints are checked against
+ * a view of the schedule without the assignments an employee gives away (see Without), so a move is accepted
+ * exactly when applying it forces nobody.
+ *
+ * The search runs in batches on a ForkJoinPool. Candidate moves of a batch are evaluated in parallel against the
+ * unchanged schedule, then applied best first on one thread; a move touching an employee already changed in the
+ * batch is dropped, which keeps every evaluation exact when it is applied. Every batch that changed something is
+ * reported as a Progress, and the returned future completes with the last one when the deadline passes or no move
+ * improves the schedule any more. Cancelling the future stops the search after the current batch; the schedule is
+ * consistent and as good as the last progress either way.
+ *
+ * The scheduler must not be used by anyone else until the future completes.
+ */
+public final class LocalSearchOptimizer {
+
+    private static final int BATCH_SIZE = 1024; // Candidate assignments evaluated per batch
+    private static final int MOVE_TARGETS = 64; // Employees tested as targets of one move
+    private static final long FORCED_COST = FlowScheduler.FORCED_COST;
+    private static final int SWAP_PARTNERS = 16; // Employees whose shifts are tried in swaps for one forced assignment
+
+    private final ShiftScheduler scheduler;
+    private final ScheduleState state;
+    private final ConstraintChain regularRules;
+    private final boolean skillsRequired; // Whether SKILLS is enforced and partners can be prefiltered by skill
+    private final ForkJoinPool pool;
+
+    public LocalSearchOptimizer(ShiftScheduler scheduler) {
+        this(scheduler, ForkJoinPool.commonPool());
+    }
+
+    // Runs the search, and evaluates the moves, on the given pool
+    public LocalSearchOptimizer(ShiftScheduler scheduler, ForkJoinPool pool) {
+        this.scheduler = scheduler;
+        this.state = scheduler.getState();
+        this.regularRules = scheduler.getRegularConstraints();
+        this.skillsRequired = scheduler.getForcedConstraints().contains(ShiftConstraints.SKILLS);
+        this.pool = pool;
+    }
+
+    // Searches for at most the given time; progress, if not null, gets every improvement on the search thread
+    public CompletableFuture<Progress> optimize(Duration timeLimit, Consumer<? super Progress> progress) {
+        if (timeLimit.isNegative()) {
+            throw new IllegalArgumentException("Time limit must not be negative: " + timeLimit);
+        }
+        CompletableFuture<Progress> result = new CompletableFuture<>();
+        long started = System.nanoTime();
+        long deadline = started + Math.min(timeLimit.toNanos(), Long.MAX_VALUE >> 1);
+        pool.execute(() -> {
+            try {
+                Progress last = search(started, deadline, result, progress == null ? p -> { } : progress);
+                result.complete(last);
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private Progress search(long started, long deadline, CompletableFuture<Progress> result,
+                            Consumer<? super Progress> progress) {
+        BitSet removed = scheduler.removedSlots();
+        long forced = 0;
+        for (int assignment = state.firstRetainedAssignment(); assignment < state.assignmentCount(); assignment++) {
+            if (!state.isUndone(assignment) && state.isForced(assignment)) {
+                forced++;
+            }
+        }
+        long squares = 0;
+        for (int slot = 0; slot < state.roster().size(); slot++) {
+            squares += (long) state.load(slot) * state.load(slot);
+        }
+        Progress last = new Progress(0, 0, forced, squares, 0, new ScheduleDiff(new ArrayList<>()), false);
+
+        int offset = 0;
+        int idle = 0; // Candidates evaluated since the last improvement
+        while (!result.isDone() && System.nanoTime() - deadline < 0) {
+            int[] byLoad = slotsByLoad(removed);
+            int[] sources = sources(byLoad, removed);
+            if (sources.length == 0 || idle >= sources.length) {
+                return last.finish(System.nanoTime() - started);
+            }
+            offset %= sources.length;
+            int[] batch = Arrays.copyOfRange(sources, offset, Math.min(sources.length, offset + BATCH_SIZE));
+            offset += batch.length;
+
+            // Evaluate in parallel against the unchanged schedule, apply the best non-conflicting moves in order
+            Move[] moves = IntStream.of(batch).parallel()
+                    .mapToObj(assignment -> evaluate(assignment, byLoad))
+                    .filter(move -> move != null)
+                    .sorted(Comparator.comparingLong((Move move) -> move.delta).thenComparingInt(move -> move.first))
+                    .toArray(Move[]::new);
+            BitSet touched = new BitSet(state.roster().size());
+            List<Assignment> taken = new ArrayList<>();
+            ScheduleDiff changes = new ScheduleDiff(taken);
+            int applied = 0;
+            for (Move move : moves) {
+                if (touched.get(move.from) || touched.get(move.via) || touched.get(move.to)) {
+                    continue;
+                }
+                touched.set(move.from);
+                touched.set(move.via);
+                touched.set(move.to);
+                forced += apply(move, taken, changes);
+                squares += move.loadDelta;
+                applied++;
+            }
+            if (applied == 0) {
+                idle += batch.length;
+                continue;
+            }
+            idle = 0;
+            last = new Progress(last.batches + 1, last.moves + applied, forced, squares,
+                    System.nanoTime() - started, changes, false);
+            progress.accept(last);
+        }
+        return last.finish(System.nanoTime() - started);
+    }
+
+    // Active slots, least loaded first
+    private int[] slotsByLoad(BitSet removed) {
+        long[] keyed = new long[state.roster().size() - removed.cardinality()];
+        int n = 0;
+        for (int slot = 0; slot < state.roster().size(); slot++) {
+            if (!removed.get(slot)) {
+                keyed[n++] = (long) state.load(slot) << 32 | slot;
+            }
+        }
+        Arrays.sort(keyed);
+        int[] slots = new int[n];
+        for (int i = 0; i < n; i++) {
+            slots[i] = (int) keyed[i];
+        }
+        return slots;
+    }
+
+    // Assignments worth a move: the forced ones, then those of employees at least two shifts above the least loaded,
+    // most loaded first
+    private int[] sources(int[] byLoad, BitSet removed) {
+        IntList sources = new IntList();
+        for (int assignment = state.firstRetainedAssignment(); assignment < state.assignmentCount(); assignment++) {
+            if (!state.isUndone(assignment) && state.isForced(assignment) && !removed.get(state.assignee(assignment))) {
+                sources.add(assignment);
+            }
+        }
+        if (byLoad.length > 0) {
+            int lightest = state.load(byLoad[0]);
+            for (int i = byLoad.length - 1; i >= 0 && state.load(byLoad[i]) > lightest + 1; i--) {
+                IntList held = state.assignmentIds(byLoad[i]);
+                for (int j = 0; j < held.size(); j++) {
+                    if (!state.isForced(held.get(j))) {
+                        sources.add(held.get(j));
+                    }
+                }
+            }
+        }
+        return sources.toArray();
+    }
+
+    // Best move for the assignment, or null if none improves the schedule
+    private Move evaluate(int assignment, int[] byLoad) {
+        int from = state.assignee(assignment);
+        Shift shift = state.shift(assignment);
+        boolean wasForced = state.isForced(assignment);
+        int load = state.load(from);
+
+        // The least loaded employee passing every rule is the best target; nobody else holds the shift, so the
+        // schedule as it is gives the exact answer
+        int tested = 0;
+        for (int i = 0; i < byLoad.length && tested < MOVE_TARGETS; i++) {
+            int to = byLoad[i];
+            long loadDelta = 2L * (state.load(to) - load + 1);
+            if (!wasForced && loadDelta >= 0) {
+                break; // Everyone further on is at least as loaded
+            }
+            if (to == from) {
+                continue;
+            }
+            tested++;
+            if (regularRules.test(state, to, shift)) {
+                return new Move(Move.MOVE, assignment, -1, from, to, to,
+                        (wasForced ? -FORCED_COST : 0) + loadDelta, loadDelta);
+            }
+        }
+        if (!wasForced) {
+            return null;
+        }
+        Move release = release(assignment, from, shift, byLoad);
+        if (release != null) {
+            return release;
+        }
+        Move chain = chain(assignment, from, shift, byLoad);
+        return chain != null ? chain : swap(assignment, from, shift, byLoad);
+    }
+
+    // IDs of the slot's assignments right before and after the shift, -1 where there is none
+    private int[] neighbours(int slot, int assignment, Shift shift) {
+        int before = -1;
+        int after = -1;
+        IntList held = state.assignmentIds(slot);
+        for (int i = 0; i < held.size(); i++) {
+            int other = held.get(i);
+            if (other == assignment) {
+                continue;
+            }
+            long start = state.shift(other).getStartMinute();
+            if (start < shift.getStartMinute() && (before < 0 || start > state.shift(before).getStartMinute())) {
+                before = other;
+            } else if (start >= shift.getStartMinute() && (after < 0 || start < state.shift(after).getStartMinute())) {
+                after = other;
+            }
+        }
+        return new int[] { before, after };
+    }
+
+    // Least loaded employee other than the given ones who passes every rule for the shift, or -1
+    private int target(Shift shift, int[] byLoad, int excluded, int alsoExcluded) {
+        for (int i = 0, tested = 0; i < byLoad.length && tested < MOVE_TARGETS; i++) {
+            int to = byLoad[i];
+            if (to == excluded || to == alsoExcluded) {
+                continue;
+            }
+            tested++;
+            if (regularRules.test(state, to, shift)) {
+                return to;
+            }
+        }
+        return -1;
+    }
+
+    private boolean qualified(int slot, Shift shift) {
+        return !skillsRequired || shift.getRequiredSkills().isEmpty() || state.roster().hasSkills(slot, shift.getRequiredSkills());
+    }
+
+    // Someone else takes the forced shift once a neighbouring shift of theirs goes to a third employee: an ejection
+    // chain of length one
+    private Move chain(int assignment, int from, Shift shift, int[] byLoad) {
+        for (int i = 0, partners = 0; i < byLoad.length && partners < SWAP_PARTNERS; i++) {
+            int via = byLoad[i];
+            if (via == from || !qualified(via, shift)) {
+                continue;
+            }
+            partners++;
+            for (int neighbour : neighbours(via, -1, shift)) {
+                if (neighbour < 0 || !regularRules.test(new Without(via, neighbour, -1), via, shift)) {
+                    continue;
+                }
+                int to = target(state.shift(neighbour), byLoad, from, via);
+                if (to >= 0) {
+                    long loadDelta = 2L * (state.load(to) - state.load(from) + 1);
+                    long forced = 1 + (state.isForced(neighbour) ? 1 : 0);
+                    return new Move(Move.CHAIN, assignment, neighbour, from, via, to, -FORCED_COST * forced + loadDelta,
+                            loadDelta);
+                }
+            }
+        }
+        return null;
+    }
+
+    // A neighbouring shift of the forced one that someone else can take, after which the forced shift passes every
+    // rule, e.g. the shift that left no rest period before it
+    private Move release(int assignment, int from, Shift shift, int[] byLoad) {
+        for (int neighbour : neighbours(from, assignment, shift)) {
+            if (neighbour < 0 || !regularRules.test(new Without(from, assignment, neighbour), from, shift)) {
+                continue;
+            }
+            int to = target(state.shift(neighbour), byLoad, from, -1);
+            if (to >= 0) {
+                long loadDelta = 2L * (state.load(to) - state.load(from) + 1);
+                long forced = 1 + (state.isForced(neighbour) ? 1 : 0);
+                return new Move(Move.RELEASE, neighbour, assignment, from, from, to, -FORCED_COST * forced + loadDelta,
+                        loadDelta);
+            }
+        }
+        return null;
+    }
+
+    // A shift of another employee that the owner of the forced assignment can take without forcing, traded for the
+    // forced shift
+    private Move swap(int assignment, int from, Shift shift, int[] byLoad) {
+        ScheduleView withoutForced = new Without(from, assignment, -1);
+        for (int i = 0, partners = 0; i < byLoad.length && partners < SWAP_PARTNERS; i++) {
+            int to = byLoad[i];
+            if (to == from || !qualified(to, shift)) {
+                continue;
+            }
+            partners++;
+            IntList held = state.assignmentIds(to);
+            for (int j = 0; j < held.size(); j++) {
+                int other = held.get(j);
+                if (regularRules.test(withoutForced, from, state.shift(other))
+                        && regularRules.test(new Without(to, other, -1), to, shift)) {
+                    long forced = 1 + (state.isForced(other) ? 1 : 0);
+                    return new Move(Move.SWAP, assignment, other, from, to, from, -FORCED_COST * forced, 0);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Returns the change in forced assignments
+    private int apply(Move move, List<Assignment> taken, ScheduleDiff changes) {
+        switch (move.kind) {
+            case Move.MOVE:
+                return -reassign(move.first, move.from, move.via, taken, changes);
+            case Move.SWAP:
+                return -reassign(move.second, move.via, move.from, taken, changes)
+                        - reassign(move.first, move.from, move.via, taken, changes);
+            case Move.RELEASE:
+                return -reassign(move.first, move.from, move.to, taken, changes)
+                        - reassign(move.second, move.from, move.from, taken, changes);
+            default: // CHAIN
+                return -reassign(move.second, move.via, move.to, taken, changes)
+                        - reassign(move.first, move.from, move.via, taken, changes);
+        }
+    }
+
+    // Returns 1 if the assignment was forced; the new one never is
+    private int reassign(int assignment, int holder, int to, List<Assignment> taken, ScheduleDiff changes) {
+        Shift shift = state.shift(assignment);
+        boolean wasForced = state.isForced(assignment);
+        taken.add(new Assignment(state.roster().employee(holder), shift, wasForced));
+        scheduler.reassign(assignment, to, false);
+        changes.add(new Assignment(state.roster().employee(to), shift, false));
+        return wasForced ? 1 : 0;
+    }
+
+    // The schedule with up to two assignments of one slot left out, to check a shift against what the slot keeps
+    private final class Without implements ScheduleView {
+
+        private final int slot;
+        private final ShiftIntervalIndex kept;
+        private final int dropped;
+
+        Without(int slot, int first, int second) {
+            this.slot = slot;
+            this.kept = state.intervals(slot).copy();
+            kept.remove(state.shift(first).getStartMinute(), first);
+            if (second >= 0) {
+                kept.remove(state.shift(second).getStartMinute(), second);
+            }
+            this.dropped = second >= 0 ? 2 : 1;
+        }
+
+        @Override
+        public Roster roster() {
+            return state.roster();
+        }
+
+        @Override
+        public int load(int slot) {
+            return slot == this.slot ? state.load(slot) - dropped : state.load(slot);
+        }
+
+        @Override
+        public int consecutiveShifts(int slot) {
+            if (slot != this.slot) {
+                return state.consecutiveShifts(slot);
+            }
+            return kept.size() == 0 ? 0 : state.runBefore(slot, kept, kept.lastEnd() + 1);
+        }
+
+        @Override
+        public int consecutiveShiftsAround(int slot, long start, long end) {
+            if (slot != this.slot) {
+                return state.consecutiveShiftsAround(slot, start, end);
+            }
+            return state.runBefore(slot, kept, start) + 1 + kept.runAfter(end, ScheduleState.RUN_BREAK_MINUTES);
+        }
+
+        @Override
+        public long lastShiftEnd(int slot) {
+            if (slot != this.slot) {
+                return state.lastShiftEnd(slot);
+            }
+            return kept.size() == 0 ? ScheduleState.NO_SHIFT : kept.lastEnd();
+        }
+
+        @Override
+        public boolean overlaps(int slot, long start, long end) {
+            return slot == this.slot ? kept.overlaps(start, end) : state.overlaps(slot, start, end);
+        }
+
+        @Override
+        public long previousEnd(int slot, long start) {
+            return slot == this.slot ? kept.previousEnd(start) : state.previousEnd(slot, start);
+        }
+
+        @Override
+        public long nextStart(int slot, long end) {
+            return slot == this.slot ? kept.nextStart(end) : state.nextStart(slot, end);
+        }
+    }
+
+    // One step of the search, taking the first assignment away from its owner (from):
+    // - MOVE: the first goes to the target (via = to),
+    // - SWAP: the first goes to via, whose second comes back to from in exchange (to = from),
+    // - RELEASE: the second, a forced shift of from, stops being forced once its neighbour, the first, goes to the
+    //   target (via = from),
+    // - CHAIN: the first goes to via once via's neighbouring second goes to the target.
+    private static final class Move {
+        static final int MOVE = 0;
+        static final int SWAP = 1;
+        static final int RELEASE = 2;
+        static final int CHAIN = 3;
+
+        final int kind;
+        final int first;
+        final int second;
+        final int from;
+        final int via;
+        final int to;
+        final long delta;
+        final long loadDelta;
+
+        Move(int kind, int first, int second, int from, int via, int to, long delta, long loadDelta) {
+            this.kind = kind;
+            this.first = first;
+            this.second = second;
+            this.from = from;
+            this.via = via;
+            this.to = to;
+            this.delta = delta;
+            this.loadDelta = loadDelta;
+        }
+    }
+
+    // Best-so-far state of a search: the schedule only ever improves, so the scheduler's current schedule is the best
+    // one found, and getChanges() turns the previous progress's schedule into it
+    public static final class Progress {
+
+        private final int batches;
+        private final long moves;
+        private final long forced;
+        private final long squaredLoads;
+        private final long elapsedNanos;
+        private final ScheduleDiff changes;
+        private final boolean finished;
+
+        Progress(int batches, long moves, long forced, long squaredLoads, long elapsedNanos, ScheduleDiff changes,
+                 boolean finished) {
+            this.batches = batches;
+            this.moves = moves;
+            this.forced = forced;
+            this.squaredLoads = squaredLoads;
+            this.elapsedNanos = elapsedNanos;
+            this.changes = changes;
+            this.finished = finished;
+        }
+
+        Progress finish(long elapsedNanos) {
+            return new Progress(batches, moves, forced, squaredLoads, elapsedNanos,
+                    new ScheduleDiff(new ArrayList<>()), true);
+        }
+
+        // Batches that improved the schedule
+        public int getBatches() {
+            return batches;
+        }
+
+        // Moves of any kind applied so far
+        public long getMoves() {
+            return moves;
+        }
+
+        public long getForced() {
+            return forced;
+        }
+
+        // Sum over all employees of their load squared; lower is flatter
+        public long getSquaredLoads() {
+            return squaredLoads;
+        }
+
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        // Assignments taken back and made since the previous progress
+        public ScheduleDiff getChanges() {
+            return changes;
+        }
+
+        // Whether this is the outcome of the search rather than an intermediate result
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public String toString() {
+            return moves + " moves in " + getElapsed().toMillis() + " ms: " + forced + " forced, squared loads "
+                    + squaredLoads + (finished ? "" : " (running)");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package functionality;
+
+import java.util.List;
+
+/*
+ * Solve phase of a MultiLocationScheduler: staffs every store with its own employees, independently of the other
+ * stores. Where the solves run is up to the implementation; LocalCoordinator runs them on a work-stealing pool in
+ * this process. One that farms them out to other processes would ship the Store and rebuild each result from a
+ * ScheduleSnapshot of the remote state.
+ */
+public interface LocationCoordinator {
+
+    // The schedules of the stores, in the same order
+    List<StoreSchedule> solve(List<Store> stores);
+}
@@ -0,0 +1,271 @@
+package functionality;
+
+import java.util.Arrays;
+
+/*
+ * Min-cost max-flow over a graph kept in primitive arrays: every arc is an index into parallel int/long arrays,
+ * stored next to its reverse arc (arc ^ 1), with per-node adjacency lists threaded through next[].
+ *
+ * The solver is the primal-dual method: Dijkstra on reduced costs (costs must be non-negative) updates the node
+ * potentials, then a Dinic-style blocking flow pushes as much as possible along the arcs whose reduced cost is zero.
+ * Path costs only take a few distinct values in scheduling graphs (convex load steps and a forced-assignment
+ * penalty), so there are few phases however many units flow. The deadline is checked between augmentations; a
+ * solve that runs out of time keeps the flow found so far, which is valid but not necessarily of minimum cost.
+ */
+final class MinCostFlow {
+
+    private static final long UNREACHED = Long.MAX_VALUE;
+    private static final int NODE_BITS = 24; // Dijkstra queue entries pack the distance above the node
+    private static final int NONE = -1;
+    static final long MAX_COST = 1L << 30; // Keeps path lengths packable next to a node index
+
+    private int nodes;
+    private int[] firstArc;
+    private int[] next = new int[64];
+    private int[] to = new int[64];
+    private int[] capacity = new int[64];
+    private long[] cost = new long[64];
+    private int arcs;
+    private boolean complete;
+
+    MinCostFlow(int expectedNodes) {
+        firstArc = new int[Math.max(expectedNodes, 2)];
+        Arrays.fill(firstArc, NONE);
+    }
+
+    int addNode() {
+        if (nodes == firstArc.length) {
+            firstArc = Arrays.copyOf(firstArc, nodes * 2);
+            Arrays.fill(firstArc, nodes, firstArc.length, NONE);
+        }
+        if (nodes == 1 << NODE_BITS) {
+            throw new IllegalStateException("Too many nodes: " + nodes);
+        }
+        return nodes++;
+    }
+
+    int nodeCount() {
+        return nodes;
+    }
+
+    int arcCount() {
+        return arcs / 2;
+    }
+
+    // Adds an arc and its reverse; returns the arc's index
+    int addArc(int from, int target, int arcCapacity, long arcCost) {
+        if (arcCost < 0 || arcCost > MAX_COST) {
+            throw new IllegalArgumentException("Cost out of range: " + arcCost);
+        }
+        if (arcs + 2 > to.length) {
+            int size = to.length * 2;
+            next = Arrays.copyOf(next, size);
+            to = Arrays.copyOf(to, size);
+            capacity = Arrays.copyOf(capacity, size);
+            cost = Arrays.copyOf(cost, size);
+        }
+        int arc = arcs;
+        link(arc, from, target, arcCapacity, arcCost);
+        link(arc + 1, target, from, 0, -arcCost);
+        arcs += 2;
+        return arc;
+    }
+
+    // Units flowing through the arc
+    int flow(int arc) {
+        return capacity[arc ^ 1];
+    }
+
+    int target(int arc) {
+        return to[arc];
+    }
+
+    // Sends as much flow as possible from source to sink at minimum cost; returns the amount sent. Stops early,
+    // with a valid but possibly costlier flow, once System.nanoTime() passes the deadline; see isComplete().
+    int solve(int source, int sink, long deadlineNanos) {
+        long[] potential = new long[nodes];
+        long[] distance = new long[nodes];
+        int[] level = new int[nodes];
+        int[] current = new int[nodes];
+        int[] queue = new int[nodes];
+        int[] path = new int[nodes];
+        long[] heap = new long[Math.max(16, nodes)];
+        int total = 0;
+        complete = false;
+
+        while (System.nanoTime() - deadlineNanos < 0) {
+            if (!shortestPaths(source, sink, potential, distance, heap)) {
+                complete = true;
+                break;
+            }
+            // Nodes farther than the sink (or unreached) move by the sink's distance, which keeps every
+            // residual arc's reduced cost non-negative
+            long sinkDistance = distance[sink];
+            for (int node = 0; node < nodes; node++) {
+                potential[node] += Math.min(distance[node], sinkDistance);
+            }
+            // Blocking flows on the zero-reduced-cost arcs until the sink is cut off from the source
+            while (levels(source, sink, potential, level, queue)) {
+                System.arraycopy(firstArc, 0, current, 0, nodes);
+                total += blockingFlow(source, sink, potential, level, current, path, deadlineNanos);
+                if (System.nanoTime() - deadlineNanos >= 0) {
+                    return total;
+                }
+            }
+        }
+        return total;
+    }
+
+    // Whether the last solve finished, i.e. its flow is of minimum cost
+    boolean isComplete() {
+        return complete;
+    }
+
+    private void link(int arc, int from, int target, int arcCapacity, long arcCost) {
+        to[arc] = target;
+        capacity[arc] = arcCapacity;
+        cost[arc] = arcCost;
+        next[arc] = firstArc[from];
+        firstArc[from] = arc;
+    }
+
+    // Dijkstra on reduced costs; true if the sink can still be reached
+    private boolean shortestPaths(int source, int sink, long[] potential, long[] distance, long[] heap) {
+        Arrays.fill(distance, UNREACHED);
+        distance[source] = 0;
+        int size = 0;
+        heap[size++] = source;
+        while (size > 0) {
+            long entry = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, 0);
+            int node = (int) (entry & ((1 << NODE_BITS) - 1));
+            long dist = entry >>> NODE_BITS;
+            if (dist > distance[node]) {
+                continue; // Stale entry
+            }
+            for (int arc = firstArc[node]; arc != NONE; arc = next[arc]) {
+                if (capacity[arc] == 0) {
+                    continue;
+                }
+                int target = to[arc];
+                long candidate = dist + cost[arc] + potential[node] - potential[target];
+                if (candidate < distance[target]) {
+                    distance[target] = candidate;
+                    if (size == heap.length) {
+                        heap = Arrays.copyOf(heap, size * 2);
+                    }
+                    heap[size] = candidate << NODE_BITS | target;
+                    siftUp(heap, size++);
+                }
+            }
+        }
+        return distance[sink] != UNREACHED;
+    }
+
+    // BFS levels over the admissible arcs (residual capacity, zero reduced cost); true if the sink is reachable
+    private boolean levels(int source, int sink, long[] potential, int[] level, int[] queue) {
+        Arrays.fill(level, NONE);
+        level[source] = 0;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int arc = firstArc[node]; arc != NONE; arc = next[arc]) {
+                int target = to[arc];
+                if (capacity[arc] > 0 && level[target] == NONE
+                        && cost[arc] + potential[node] - potential[target] == 0) {
+                    level[target] = level[node] + 1;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return level[sink] != NONE;
+    }
+
+    // Depth-first augmenting paths along the level graph, kept on an explicit stack since paths through reverse arcs
+    // can be long; current[] remembers the next arc to try from every node. Returns the units pushed, early once the
+    // deadline has passed.
+    private int blockingFlow(int source, int sink, long[] potential, int[] level, int[] current, int[] path,
+                             long deadlineNanos) {
+        int total = 0;
+        int depth = 0;
+        int node = source;
+        while (true) {
+            if (node == sink) {
+                int pushed = Integer.MAX_VALUE;
+                for (int i = 0; i < depth; i++) {
+                    pushed = Math.min(pushed, capacity[path[i]]);
+                }
+                for (int i = 0; i < depth; i++) {
+                    capacity[path[i]] -= pushed;
+                    capacity[path[i] ^ 1] += pushed;
+                }
+                total += pushed;
+                if (System.nanoTime() - deadlineNanos >= 0) {
+                    return total;
+                }
+                depth = 0;
+                node = source;
+                continue;
+            }
+            int arc = current[node];
+            while (arc != NONE && !admissible(arc, node, potential, level)) {
+                arc = next[arc];
+            }
+            current[node] = arc;
+            if (arc != NONE) {
+                path[depth++] = arc;
+                node = to[arc];
+            } else if (depth == 0) {
+                return total;
+            } else {
+                // Dead end: back up and skip the arc that led here
+                level[node] = NONE;
+                int back = path[--depth];
+                node = to[back ^ 1];
+                current[node] = next[back];
+            }
+        }
+    }
+
+    private boolean admissible(int arc, int node, long[] potential, int[] level) {
+        int target = to[arc];
+        return capacity[arc] > 0 && level[target] == level[node] + 1
+                && cost[arc] + potential[node] - potential[target] == 0;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = entry;
+    }
+
+    private static void siftDown(long[] heap, int size, int index) {
+        if (size == 0) {
+            return;
+        }
+        long entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= entry) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = entry;
+    }
+}
@@ -0,0 +1,222 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+
+/*
+ * Schedules many stores at once, each with its own employees and demand, plus floaters: employees who may work at
+ * several of the stores. It runs in two phases:
+ * 1. solve: a LocationCoordinator staffs every store with its own employees, independently of the others, so the
+ *    stores are solved in parallel (on a work-stealing pool with the default LocalCoordinator),
+ * 2. reconciliation: the floaters cover what the stores could not, on the calling thread. One ShiftScheduler holds
+ *    the floaters' assignments at every store, so the rules hold for a floater's whole schedule. Going through the
+ *    affected shifts of all stores in start order, positions left open get a floater that passes every rule, and
+ *    shifts forced on a store's own employee are handed to such a floater (the employee is released); then the
+ *    positions still open are forced on floaters that pass the hard rules, as a store would. Floaters are tried
+ *    least loaded first among those allowed at the store.
+ * Reconciliation only visits open and forced positions, so next to the solves it costs little.
+ *
+ * Floaters are not on any store's roster, and a store's employees only work at their own store.
+ */
+public final class MultiLocationScheduler {
+
+    private final LocationCoordinator coordinator;
+    private final Collection<? extends ShiftConstraint> constraints; // Of the floaters
+    private final Map<Employee, Set<String>> floaters = new LinkedHashMap<>();
+
+    public MultiLocationScheduler() {
+        this(new LocalCoordinator());
+    }
+
+    public MultiLocationScheduler(LocationCoordinator coordinator) {
+        this(coordinator, ShiftConstraints.defaults());
+    }
+
+    // Constraints of the floaters; those of the stores are the coordinator's
+    public MultiLocationScheduler(LocationCoordinator coordinator, Collection<? extends ShiftConstraint> constraints) {
+        this.coordinator = coordinator;
+        this.constraints = constraints;
+    }
+
+    // The floater may work at the stores with the given IDs; adding a floater again replaces its stores
+    public void addFloater(Employee floater, Collection<String> storeIds) {
+        floaters.put(floater, new LinkedHashSet<>(storeIds));
+    }
+
+    // Solves every store and then reconciles the floaters; the schedules are in store order
+    public List<StoreSchedule> schedule(List<Store> stores) {
+        Map<String, Integer> storeIndex = new HashMap<>(stores.size() * 2);
+        Set<Employee> storeEmployees = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Store store : stores) {
+            if (storeIndex.putIfAbsent(store.getId(), storeIndex.size()) != null) {
+                throw new IllegalArgumentException("Store " + store.getId() + " is listed twice");
+            }
+            storeEmployees.addAll(store.getEmployees());
+        }
+        // Floater slot -> indexes of the stores they may work at
+        int[][] storesOf = new int[floaters.size()][];
+        int slot = 0;
+        for (Map.Entry<Employee, Set<String>> floater : floaters.entrySet()) {
+            if (storeEmployees.contains(floater.getKey())) {
+                throw new IllegalArgumentException("Floater " + floater.getKey().getId() + " is on a store's roster");
+            }
+            int[] allowed = new int[floater.getValue().size()];
+            int n = 0;
+            for (String storeId : floater.getValue()) {
+                Integer index = storeIndex.get(storeId);
+                if (index == null) {
+                    throw new IllegalArgumentException("Floater " + floater.getKey().getId() + " is allowed at unknown store " + storeId);
+                }
+                allowed[n++] = index;
+            }
+            storesOf[slot++] = allowed;
+        }
+
+        List<StoreSchedule> schedules = coordinator.solve(stores);
+        if (!floaters.isEmpty()) {
+            reconcile(schedules, storesOf);
+        }
+        return schedules;
+    }
+
+    private void reconcile(List<StoreSchedule> schedules, int[][] storesOf) {
+        ShiftScheduler floaterScheduler = new ShiftScheduler(new Roster(new ArrayList<>(floaters.keySet())), constraints);
+        int[][] floatersAt = floatersAt(schedules.size(), storesOf);
+
+        // Every open position and every forced assignment of the stores, in start order
+        List<Position> positions = new ArrayList<>();
+        for (int store = 0; store < schedules.size(); store++) {
+            StoreSchedule schedule = schedules.get(store);
+            for (CoverageReport.ShiftCoverage shift : schedule.getCoverage().getUnderCovered()) {
+                for (int i = 0; i < shift.getMissing(); i++) {
+                    positions.add(new Position(store, shift.getShift(), -1));
+                }
+            }
+            ScheduleState state = schedule.getScheduler().getState();
+            for (int assignment = state.firstRetainedAssignment(); assignment < state.assignmentCount(); assignment++) {
+                if (state.isActive(assignment) && state.isForced(assignment)) {
+                    positions.add(new Position(store, state.shift(assignment), assignment));
+                }
+            }
+        }
+        positions.sort(Comparator.comparingLong(position -> position.shift.getStartMinute()));
+
+        Set<StoreSchedule> changed = new HashSet<>();
+        List<Position> stillOpen = new ArrayList<>();
+        for (Position position : positions) {
+            StoreSchedule schedule = schedules.get(position.store);
+            Assignment placed = place(floaterScheduler, floatersAt[position.store], position.shift, false);
+            if (placed != null) {
+                if (position.forcedAssignment >= 0) {
+                    ShiftScheduler storeScheduler = schedule.getScheduler();
+                    ScheduleState state = storeScheduler.getState();
+                    schedule.addReleased(new Assignment(state.roster().employee(state.assignee(position.forcedAssignment)),
+                            position.shift, true));
+                    storeScheduler.release(position.forcedAssignment);
+                }
+                schedule.addFloaterAssignment(placed);
+                changed.add(schedule);
+            } else if (position.forcedAssignment < 0) {
+                stillOpen.add(position);
+            }
+        }
+        for (Position position : stillOpen) {
+            StoreSchedule schedule = schedules.get(position.store);
+            Assignment placed = place(floaterScheduler, floatersAt[position.store], position.shift, true);
+            if (placed != null) {
+                schedule.addFloaterAssignment(placed);
+                changed.add(schedule);
+            }
+        }
+        for (StoreSchedule schedule : changed) {
+            schedule.setCoverage(coverage(schedule));
+        }
+    }
+
+    // Store index -> floater slots allowed there
+    private static int[][] floatersAt(int storeCount, int[][] storesOf) {
+        int[] counts = new int[storeCount];
+        for (int[] stores : storesOf) {
+            for (int store : stores) {
+                counts[store]++;
+            }
+        }
+        int[][] floatersAt = new int[storeCount][];
+        for (int store = 0; store < storeCount; store++) {
+            floatersAt[store] = new int[counts[store]];
+        }
+        Arrays.fill(counts, 0);
+        for (int slot = 0; slot < storesOf.length; slot++) {
+            for (int store : storesOf[slot]) {
+                floatersAt[store][counts[store]++] = slot;
+            }
+        }
+        return floatersAt;
+    }
+
+    // Gives the shift to the least loaded of the floaters that passes every rule, or with isForced the hard ones;
+    // returns the assignment, or null if none could take it
+    private static Assignment place(ShiftScheduler floaterScheduler, int[] allowed, Shift shift, boolean isForced) {
+        ScheduleState state = floaterScheduler.getState();
+        long[] byLoad = new long[allowed.length];
+        for (int i = 0; i < allowed.length; i++) {
+            byLoad[i] = (long) state.load(allowed[i]) << 32 | allowed[i];
+        }
+        Arrays.sort(byLoad);
+        for (long entry : byLoad) {
+            int slot = (int) entry;
+            if (floaterScheduler.place(slot, shift, isForced)) {
+                return new Assignment(state.roster().employee(slot), shift, state.isForced(state.assignmentCount() - 1));
+            }
+        }
+        return null;
+    }
+
+    // Coverage of the store's shifts by its own employees and the floaters
+    private static CoverageReport coverage(StoreSchedule schedule) {
+        Map<Shift, int[]> tallies = new HashMap<>(); // Shift -> regular and forced assignments
+        ScheduleState state = schedule.getScheduler().getState();
+        for (int assignment = state.firstRetainedAssignment(); assignment < state.assignmentCount(); assignment++) {
+            if (state.isActive(assignment)) {
+                tallies.computeIfAbsent(state.shift(assignment), s -> new int[2])[state.isForced(assignment) ? 1 : 0]++;
+            }
+        }
+        for (Assignment assignment : schedule.getFloaterAssignments()) {
+            tallies.computeIfAbsent(assignment.getShift(), s -> new int[2])[assignment.isForced() ? 1 : 0]++;
+        }
+        CoverageReport report = new CoverageReport();
+        for (Shift shift : schedule.getStore().getShifts()) {
+            int[] tally = tallies.getOrDefault(shift, new int[2]);
+            report.add(shift, shift.getHeadcount(), tally[0], tally[1]);
+        }
+        return report;
+    }
+
+    // A position of a store's shift for the floaters: open, or held by a forced assignment of the store
+    private static final class Position {
+        final int store;
+        final Shift shift;
+        final int forcedAssignment; // In the store's scheduler, or -1 for an open position
+
+        Position(int store, Shift shift, int forcedAssignment) {
+            this.store = store;
+            this.shift = shift;
+            this.forcedAssignment = forcedAssignment;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import core.Employee;
+
+/*
+ * Outcome of ShiftScheduler.updateRoster: the employees of the edited roster that were not on the schedule, those
+ * that are gone from it, and those whose record changed, matched by Employee ID. Only these were touched; the
+ * positions their changes opened are staffed by the next repair().
+ */
+public final class RosterUpdate {
+
+    private final List<Employee> added = new ArrayList<>();
+    private final List<Employee> removed = new ArrayList<>();
+    private final List<Employee> changed = new ArrayList<>();
+    private int positionsOpened;
+
+    RosterUpdate() {
+    }
+
+    void added(Employee employee) {
+        added.add(employee);
+    }
+
+    void removed(Employee employee) {
+        removed.add(employee);
+    }
+
+    void changed(Employee employee) {
+        changed.add(employee);
+    }
+
+    void positionsOpened(int positions) {
+        positionsOpened += positions;
+    }
+
+    public List<Employee> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    // As they were before the update
+    public List<Employee> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    // As they are after the update
+    public List<Employee> getChanged() {
+        return Collections.unmodifiableList(changed);
+    }
+
+    // Assignments taken back because of the update: from removed employees, and from changed ones that may no
+    // longer work them
+    public int getPositionsOpened() {
+        return positionsOpened;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return added.size() + " employees added, " + removed.size() + " removed, " + changed.size() + " changed; "
+                + positionsOpened + " positions opened";
+    }
+}
@@ -0,0 +1,169 @@
+package functionality;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import core.CSVUtils;
+import core.Employee;
+
+/*
+ * Keeps a running schedule in line with its roster CSV: whenever the file is replaced it is parsed again and applied
+ * with ShiftScheduler.updateRoster, which only touches the added, removed and changed employees, followed by
+ * repair(). Shifts starting before the clock's current time are left as they are.
+ *
+ * A daemon thread waits on a WatchService for the file's directory (the platform watches directories, not files).
+ * A file written in place can be read while half-written, and a file cut at a line break still parses: every
+ * employee past the cut would look removed. So an edited roster must replace the file atomically, by writing it
+ * next to the file and moving it over the file (Files.move with ATOMIC_MOVE, or mv on the same file system); only
+ * the file appearing under its name, which is what such a move reports, triggers a reload, and writes into the
+ * file in place are ignored. Events coming close together are coalesced: the file is read once the directory has
+ * been quiet for the settle delay. Parsing runs on the watcher thread; the update and the repair run on the
+ * executor given to the constructor, because the scheduler is not thread-safe: it should be the executor of the
+ * thread that owns the scheduler (or Runnable::run if nothing else uses it).
+ *
+ * A file that cannot be read or applied, e.g. one listing an ID twice, is reported to the listener and leaves the
+ * schedule unchanged; the next replacement of the file is read again. So is a reload the executor rejects, and an
+ * exception thrown by the listener on the watcher thread does not stop the watching either.
+ */
+public final class RosterWatcher implements Closeable {
+
+    public interface Listener {
+        // On the executor, after the roster was applied and the opened positions repaired
+        void reloaded(RosterUpdate update, ScheduleDiff diff);
+
+        void failed(Path file, Exception e);
+    }
+
+    static final long DEFAULT_SETTLE_MILLIS = 200;
+
+    private final ShiftScheduler scheduler;
+    private final Path file;
+    private final Executor executor;
+    private final Listener listener;
+    private String idHeader = CSVUtils.ASSIGNMENT_EMPLOYEE_HEADER;
+    private String nameHeader = "First Name";
+    private String lastNameHeader = "Last Name";
+    private Supplier<LocalDateTime> clock = LocalDateTime::now;
+    private long settleMillis = DEFAULT_SETTLE_MILLIS;
+    private WatchService watcher;
+    private Thread thread;
+
+    public RosterWatcher(ShiftScheduler scheduler, Path file, Executor executor, Listener listener) {
+        this.scheduler = scheduler;
+        this.file = file.toAbsolutePath();
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    // Columns of the roster CSV, as for CSVUtils.parseEmployeeDataFromCSV; Employee ID, First Name and Last Name
+    // by default. The ID column must be there: employees are matched by ID.
+    public void setHeaders(String idHeader, String nameHeader, String lastNameHeader) {
+        this.idHeader = idHeader;
+        this.nameHeader = nameHeader;
+        this.lastNameHeader = lastNameHeader;
+    }
+
+    // Time from which a reload changes the schedule; the system clock by default
+    public void setClock(Supplier<LocalDateTime> clock) {
+        this.clock = clock;
+    }
+
+    void setSettleMillis(long settleMillis) {
+        this.settleMillis = settleMillis;
+    }
+
+    // Starts watching; replacements of the file from now on are reloaded
+    public synchronized void start() throws IOException {
+        if (watcher != null) {
+            throw new IllegalStateException("Watcher already started");
+        }
+        watcher = file.getFileSystem().newWatchService();
+        file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE);
+        thread = new Thread(this::watch, "roster-watcher-" + file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Reads the file now and applies it on the executor, as the watcher does after every replacement
+    public void reload() {
+        List<Employee> employees;
+        try {
+            employees = CSVUtils.parseEmployeeDataFromCSV(file.toString(), idHeader, nameHeader, lastNameHeader);
+        } catch (IOException | RuntimeException e) {
+            listener.failed(file, e);
+            return;
+        }
+        executor.execute(() -> {
+            RosterUpdate update;
+            try {
+                update = scheduler.updateRoster(employees, clock.get());
+            } catch (RuntimeException e) {
+                listener.failed(file, e); // Nothing was changed
+                return;
+            }
+            listener.reloaded(update, scheduler.repair());
+        });
+    }
+
+    // Stops watching; a reload already handed to the executor still runs
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            thread.interrupt();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean changed = concernsFile(watcher.take());
+                // Coalesce the events of one edit
+                WatchKey key;
+                while (changed && (key = watcher.poll(settleMillis, TimeUnit.MILLISECONDS)) != null) {
+                    concernsFile(key);
+                }
+                if (changed) {
+                    reloadAndReport();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed
+        }
+    }
+
+    // As reload, but what it throws, e.g. a RejectedExecutionException from the executor or an exception from the
+    // listener, is reported rather than ending the watcher thread
+    private void reloadAndReport() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            try {
+                listener.failed(file, e);
+            } catch (RuntimeException again) {
+                // The listener cannot take it either; keep watching
+            }
+        }
+    }
+
+    // Whether the key's events may be a replacement of the file; lost events (OVERFLOW) might. Resets the key.
+    private boolean concernsFile(WatchKey key) {
+        boolean concerns = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            concerns |= event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return concerns;
+    }
+}
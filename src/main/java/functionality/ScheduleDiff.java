@@ -0,0 +1,47 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Outcome of ShiftScheduler.repair: the assignments taken back since the previous repair (call-outs, removed
+ * employees), the assignments made to replace them or to staff added shifts, and the coverage of the repaired
+ * shifts. Applying the removals and then the additions to the previous schedule gives the current one.
+ */
+public final class ScheduleDiff {
+
+    private final List<Assignment> removed;
+    private final List<Assignment> added = new ArrayList<>();
+    private final CoverageReport coverage = new CoverageReport();
+
+    ScheduleDiff(List<Assignment> removed) {
+        this.removed = removed;
+    }
+
+    void add(Assignment assignment) {
+        added.add(assignment);
+    }
+
+    public List<Assignment> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    public List<Assignment> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    // Positions that had to be staffed, and the shifts still short of their headcount
+    public CoverageReport getCoverage() {
+        return coverage;
+    }
+
+    public boolean isEmpty() {
+        return removed.isEmpty() && added.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return removed.size() + " assignments removed, " + added.size() + " added; " + coverage;
+    }
+}
@@ -0,0 +1,260 @@
+package functionality;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import core.CSVUtils;
+import core.Shift;
+import core.ShiftBlock;
+
+/*
+ * Streams a schedule to a channel or output stream as CSV or NDJSON, one record per assignment, so schedules of
+ * millions of assignments can be published without holding their text. Records are encoded into one reused buffer
+ * of BUFFER_SIZE bytes that is written out whenever it fills up, and what records share is encoded once:
+ * - employee IDs once per employee,
+ * - the shift columns (ID, start, end, required skills) once per shift while it stays in a small direct-mapped
+ *   cache; a shift is exported once for every employee working it, mostly back to back in time order,
+ * - dates once per calendar day in a row, times straight from the epoch minute.
+ * The order is by employee (roster order, then start) or by time (start, then assignment order); both sort packed
+ * keys (see StartOrder) instead of building per-employee lists.
+ *
+ * CSV records have the columns CSVUtils.forEachAssignmentInCSV reads, so an exported schedule can be read back, e.g.
+ * by ScheduleValidator.validateCSV. NDJSON records are objects with employeeId, shiftId (null if the shift has no
+ * ID), start, end, requiredSkills and forced. Text is UTF-8; skills are listed in alphabetical order.
+ *
+ * An exporter reuses its buffer, so it must not export on two threads at once, and the schedule must not change
+ * while it is exported.
+ */
+public final class ScheduleExporter {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public enum Order {
+        EMPLOYEE, TIME
+    }
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SHIFT_CACHE_SIZE = 4096; // Power of two
+    private static final byte[] CSV_HEADER = utf8(String.join(",", CSVUtils.ASSIGNMENT_EMPLOYEE_HEADER,
+            CSVUtils.SHIFT_ID_HEADER, CSVUtils.SHIFT_START_HEADER, CSVUtils.SHIFT_END_HEADER,
+            CSVUtils.SHIFT_SKILLS_HEADER, CSVUtils.ASSIGNMENT_FORCED_HEADER) + "\n");
+    private static final byte[] CSV_FORCED = utf8(",true\n");
+    private static final byte[] CSV_REGULAR = utf8(",false\n");
+    private static final byte[] JSON_START = utf8("{\"employeeId\":");
+    private static final byte[] JSON_FORCED = utf8(",\"forced\":true}\n");
+    private static final byte[] JSON_REGULAR = utf8(",\"forced\":false}\n");
+
+    private final ScheduleState state;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int position;
+    private WritableByteChannel channel; // Of the export in progress
+
+    // Encodings of the export in progress
+    private Format format;
+    private byte[][] employeeIds;
+    private final Shift[] cachedShifts = new Shift[SHIFT_CACHE_SIZE];
+    private final byte[][] shiftColumns = new byte[SHIFT_CACHE_SIZE][];
+    private long cachedDay = Long.MIN_VALUE;
+    private String cachedDate;
+
+    public ScheduleExporter(ShiftScheduler scheduler) {
+        this(scheduler.getState());
+    }
+
+    public ScheduleExporter(ScheduleState state) {
+        this.state = state;
+    }
+
+    // Writes every active retained assignment; returns the number of records. The channel is left open.
+    public long export(WritableByteChannel channel, Format format, Order order) throws IOException {
+        int size = 0;
+        int[] ids = new int[state.assignmentCount() - state.firstRetainedAssignment()];
+        int[] slots = new int[ids.length];
+        long[] starts = new long[ids.length];
+        for (int assignment = state.firstRetainedAssignment(); assignment < state.assignmentCount(); assignment++) {
+            if (state.isActive(assignment)) {
+                ids[size] = assignment;
+                slots[size] = state.assignee(assignment);
+                starts[size] = state.shift(assignment).getStartMinute();
+                size++;
+            }
+        }
+        long[] keys = order == Order.EMPLOYEE
+                ? StartOrder.bySlot(slots, starts, size, new int[state.roster().size() + 1])
+                : StartOrder.byStart(starts, size);
+
+        this.channel = channel;
+        this.format = format;
+        this.employeeIds = new byte[state.roster().size()][];
+        Arrays.fill(cachedShifts, null);
+        position = 0;
+        try {
+            if (format == Format.CSV) {
+                put(CSV_HEADER);
+            }
+            for (long key : keys) {
+                int entry = StartOrder.entry(key);
+                writeRecord(slots[entry], state.shift(ids[entry]), state.isForced(ids[entry]));
+            }
+            flush();
+        } finally {
+            this.channel = null;
+            this.employeeIds = null;
+        }
+        return size;
+    }
+
+    // Same to a stream, which is flushed but left open
+    public long export(OutputStream out, Format format, Order order) throws IOException {
+        long records = export(Channels.newChannel(out), format, order);
+        out.flush();
+        return records;
+    }
+
+    private void writeRecord(int slot, Shift shift, boolean forced) throws IOException {
+        byte[] employeeId = employeeIds[slot];
+        if (employeeId == null) {
+            String id = state.roster().employee(slot).getId();
+            employeeId = utf8(format == Format.CSV ? csv(id) : json(new StringBuilder(), id).toString());
+            employeeIds[slot] = employeeId;
+        }
+        int cached = shift.hashCode() & (SHIFT_CACHE_SIZE - 1);
+        if (!shift.equals(cachedShifts[cached])) {
+            cachedShifts[cached] = shift;
+            shiftColumns[cached] = utf8(format == Format.CSV ? csvColumns(shift) : jsonColumns(shift));
+        }
+
+        if (format == Format.CSV) {
+            put(employeeId);
+            put((byte) ',');
+            put(shiftColumns[cached]);
+            put(forced ? CSV_FORCED : CSV_REGULAR);
+        } else {
+            put(JSON_START);
+            put(employeeId);
+            put((byte) ',');
+            put(shiftColumns[cached]);
+            put(forced ? JSON_FORCED : JSON_REGULAR);
+        }
+    }
+
+    private String csvColumns(Shift shift) {
+        StringBuilder columns = new StringBuilder();
+        if (shift.getId() != null) {
+            columns.append(csv(shift.getId()));
+        }
+        columns.append(',');
+        appendTime(columns, shift.getStartMinute()).append(',');
+        appendTime(columns, shift.getEndMinute()).append(',');
+        return columns.append(csv(String.join(", ", sorted(shift.getRequiredSkills())))).toString();
+    }
+
+    private String jsonColumns(Shift shift) {
+        StringBuilder columns = new StringBuilder("\"shiftId\":");
+        if (shift.getId() == null) {
+            columns.append("null");
+        } else {
+            json(columns, shift.getId());
+        }
+        appendTime(columns.append(",\"start\":\""), shift.getStartMinute());
+        appendTime(columns.append("\",\"end\":\""), shift.getEndMinute());
+        columns.append("\",\"requiredSkills\":[");
+        boolean first = true;
+        for (String skill : sorted(shift.getRequiredSkills())) {
+            if (!first) {
+                columns.append(',');
+            }
+            json(columns, skill);
+            first = false;
+        }
+        return columns.append(']').toString();
+    }
+
+    // ISO local date-time to the minute, e.g. 2024-01-01T06:00, as ShiftBlock stores it
+    private StringBuilder appendTime(StringBuilder text, long epochMinute) {
+        long day = Math.floorDiv(epochMinute, (long) ShiftBlock.MINUTES_PER_DAY);
+        if (day != cachedDay) {
+            cachedDay = day;
+            cachedDate = LocalDate.ofEpochDay(day).toString();
+        }
+        int minute = (int) Math.floorMod(epochMinute, (long) ShiftBlock.MINUTES_PER_DAY);
+        int hour = minute / 60;
+        minute %= 60;
+        return text.append(cachedDate).append('T')
+                .append((char) ('0' + hour / 10)).append((char) ('0' + hour % 10)).append(':')
+                .append((char) ('0' + minute / 10)).append((char) ('0' + minute % 10));
+    }
+
+    private void put(byte[] data) throws IOException {
+        for (int offset = 0; offset < data.length; ) {
+            if (position == bytes.length) {
+                flush();
+            }
+            int length = Math.min(data.length - offset, bytes.length - position);
+            System.arraycopy(data, offset, bytes, position, length);
+            position += length;
+            offset += length;
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (position == bytes.length) {
+            flush();
+        }
+        bytes[position++] = b;
+    }
+
+    private void flush() throws IOException {
+        buffer.clear().limit(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        position = 0;
+    }
+
+    private static Set<String> sorted(Set<String> skills) {
+        return skills.size() < 2 ? skills : new TreeSet<>(skills);
+    }
+
+    // Quoted, with quotes doubled, if the field holds a separator, quote or line break
+    private static String csv(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + field.replace("\"", "\"\"") + '"';
+            }
+        }
+        return field;
+    }
+
+    // Appends the text as a JSON string
+    private static StringBuilder json(StringBuilder out, String text) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"');
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,393 @@
+package functionality;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import core.ShiftBlock;
+
+/*
+ * Compact binary snapshot of a ShiftScheduler, so a restart can continue where the previous process stopped instead
+ * of parsing the roster CSV again and replaying every assignment. The file holds, in this order (big-endian):
+ *
+ *   header       magic "LMSS", format version, employee, shift and assignment counts, first assignment ID,
+ *                rolling-horizon look-back and watermark
+ *   roster       per employee: ID, name, days off mask, max consecutive shifts, skills
+ *   counters     per employee: flags, load, run length, last shift end and the summary of evicted shifts
+ *   shifts       every distinct assigned shift: start and end epoch minute, ID, headcount, required skills
+ *   assignments  per retained assignment, in ID order: shift index, employee slot, flags
+ *   trailer      CRC32 of everything before it
+ *
+ * Strings are a length (-1 for null) followed by UTF-8 bytes. The file is written sequentially through one
+ * reused buffer and loaded from a single MappedByteBuffer; the checksum is verified before anything is parsed.
+ * Constraints are code, not data, so they are given again on load. Shifts come back as views over one ShiftBlock:
+ * they are equal to each other as before, but not to the Shift objects of the process that wrote the snapshot.
+ */
+public final class ScheduleSnapshot {
+
+    static final int MAGIC = 0x4C4D5353; // "LMSS"
+    static final int VERSION = 1;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int TRAILER_BYTES = Long.BYTES;
+    private static final int NULL_STRING = -1;
+
+    private static final byte SLOT_REMOVED = 1;
+    private static final byte ASSIGNMENT_FORCED = 1;
+    private static final byte ASSIGNMENT_UNDONE = 2;
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    private ScheduleSnapshot() {
+    }
+
+    // Positions opened for repair() are not part of a snapshot, so they have to be repaired first
+    public static void write(ShiftScheduler scheduler, Path file) throws IOException {
+        if (scheduler.hasOpenPositions()) {
+            throw new IllegalStateException("Repair the open positions before taking a snapshot");
+        }
+        ScheduleState state = scheduler.getState();
+        Roster roster = state.roster();
+        int first = state.firstRetainedAssignment();
+        int assignments = state.assignmentCount() - first;
+
+        // Assignments share their shift with the other positions of it; every shift is written once
+        Map<Shift, Integer> shiftIndex = new HashMap<>();
+        List<Shift> shifts = new ArrayList<>();
+        int[] shiftOf = new int[assignments];
+        for (int i = 0; i < assignments; i++) {
+            Shift shift = state.shift(first + i);
+            Integer index = shiftIndex.get(shift);
+            if (index == null) {
+                index = shifts.size();
+                shiftIndex.put(shift, index);
+                shifts.add(shift);
+            }
+            shiftOf[i] = index;
+        }
+
+        try (Output out = new Output(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(roster.size());
+            out.putInt(shifts.size());
+            out.putInt(assignments);
+            out.putInt(first);
+            out.putLong(scheduler.lookBackMinutes());
+            out.putLong(scheduler.getWatermark());
+
+            for (int slot = 0; slot < roster.size(); slot++) {
+                Employee employee = roster.employee(slot);
+                out.putString(employee.getId());
+                out.putString(employee.getName());
+                out.put((byte) roster.daysOffMask(slot));
+                out.putInt(roster.maxConsecutiveShifts(slot));
+                out.putStrings(employee.getSkills());
+            }
+
+            BitSet removed = scheduler.removedSlots();
+            for (int slot = 0; slot < roster.size(); slot++) {
+                out.put(removed.get(slot) ? SLOT_REMOVED : 0);
+                out.putInt(state.load(slot));
+                out.putInt(state.consecutiveShifts(slot));
+                out.putLong(state.lastShiftEnd(slot));
+                out.putInt(state.evictedShifts(slot));
+                out.putInt(state.evictedForcedShifts(slot));
+                out.putLong(state.evictedMinutes(slot));
+                out.putInt(state.evictedRun(slot));
+                out.putLong(state.evictedRunEnd(slot));
+            }
+
+            for (Shift shift : shifts) {
+                out.putInt((int) shift.getStartMinute());
+                out.putInt((int) shift.getEndMinute());
+                out.putString(shift.getId());
+                out.putInt(shift.getHeadcount());
+                out.putStrings(shift.getRequiredSkills());
+            }
+
+            for (int i = 0; i < assignments; i++) {
+                int assignment = first + i;
+                out.putInt(shiftOf[i]);
+                out.putInt(state.assignee(assignment));
+                out.put((byte) ((state.isForced(assignment) ? ASSIGNMENT_FORCED : 0)
+                        | (state.isUndone(assignment) ? ASSIGNMENT_UNDONE : 0)));
+            }
+            out.finish();
+        }
+    }
+
+    public static ShiftScheduler load(Path file) throws IOException {
+        return load(file, ShiftConstraints.defaults());
+    }
+
+    public static ShiftScheduler load(Path file, Collection<? extends ShiftConstraint> constraints) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot of " + size + " bytes is too large");
+            }
+            if (size < 2 * Integer.BYTES + TRAILER_BYTES) {
+                throw new IOException("Not a schedule snapshot: " + file);
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return read(bytes, constraints, file);
+        }
+    }
+
+    private static ShiftScheduler read(ByteBuffer bytes, Collection<? extends ShiftConstraint> constraints, Path file)
+            throws IOException {
+        if (bytes.getInt(0) != MAGIC) {
+            throw new IOException("Not a schedule snapshot: " + file);
+        }
+        int version = bytes.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        int contentEnd = bytes.limit() - TRAILER_BYTES;
+        CRC32 crc = new CRC32();
+        ByteBuffer content = bytes.duplicate();
+        content.limit(contentEnd);
+        crc.update(content);
+        if (crc.getValue() != bytes.getLong(contentEnd)) {
+            throw new IOException("Snapshot checksum mismatch in " + file);
+        }
+
+        try {
+            Input in = new Input(bytes, 2 * Integer.BYTES);
+            int employees = in.getCount();
+            int shiftCount = in.getCount();
+            int assignments = in.getCount();
+            int first = in.getCount();
+            long lookBackMinutes = in.getLong();
+            long watermark = in.getLong();
+
+            List<Employee> roster = new ArrayList<>(employees);
+            for (int slot = 0; slot < employees; slot++) {
+                String id = in.getString();
+                String name = in.getString();
+                Set<DayOfWeek> daysOff = daysOff(in.get());
+                int maxConsecutiveShifts = in.getInt();
+                roster.add(new Employee(id, name, daysOff, maxConsecutiveShifts, in.getStrings()));
+            }
+            ScheduleState state = new ScheduleState(new Roster(roster));
+
+            BitSet removed = new BitSet();
+            for (int slot = 0; slot < employees; slot++) {
+                if ((in.get() & SLOT_REMOVED) != 0) {
+                    removed.set(slot);
+                }
+                state.restoreCounters(slot, in.getInt(), in.getInt(), in.getLong(), in.getInt(), in.getInt(),
+                        in.getLong(), in.getInt(), in.getLong());
+            }
+
+            ShiftBlock block = new ShiftBlock(shiftCount);
+            for (int i = 0; i < shiftCount; i++) {
+                long start = in.getInt();
+                long end = in.getInt();
+                int index = block.add(in.getString(), start, end);
+                block.setHeadcount(index, in.getInt());
+                block.setRequiredSkills(index, in.getStrings());
+            }
+            Shift[] shifts = block.asList().toArray(new Shift[0]);
+
+            state.restoreFirstAssignment(first, assignments);
+            for (int i = 0; i < assignments; i++) {
+                Shift shift = shifts[in.getIndex(shiftCount)];
+                int slot = in.getIndex(employees);
+                byte flags = in.get();
+                state.restoreAssignment(slot, shift, (flags & ASSIGNMENT_FORCED) != 0, (flags & ASSIGNMENT_UNDONE) != 0);
+            }
+            if (in.position() != contentEnd) {
+                throw new IOException("Snapshot has " + (contentEnd - in.position()) + " unexpected bytes: " + file);
+            }
+
+            ShiftScheduler scheduler = new ShiftScheduler(state, constraints);
+            scheduler.restore(removed, lookBackMinutes, watermark);
+            return scheduler;
+        } catch (RuntimeException e) {
+            // A valid checksum over inconsistent content means the writer was broken, not the disk
+            throw new IOException("Corrupt snapshot " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Set<DayOfWeek> daysOff(int mask) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DAYS) {
+            if ((mask & (1 << day.ordinal())) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    // Sequential writer through one reused buffer, checksumming every byte it flushes
+    private static final class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32 crc = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void put(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(NULL_STRING);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putInt(utf8.length);
+            for (int offset = 0; offset < utf8.length; ) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), utf8.length - offset);
+                buffer.put(utf8, offset, length);
+                offset += length;
+            }
+        }
+
+        void putStrings(Set<String> values) throws IOException {
+            putInt(values.size());
+            for (String value : values) {
+                putString(value);
+            }
+        }
+
+        // Appends the checksum of everything written so far
+        void finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            writeFully();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.flip();
+            writeFully();
+        }
+
+        private void writeFully() throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Reader over the mapped file; strings are decoded through one reused byte array
+    private static final class Input {
+        private final ByteBuffer bytes;
+        private byte[] scratch = new byte[64];
+
+        Input(ByteBuffer bytes, int position) {
+            this.bytes = bytes;
+            bytes.position(position);
+        }
+
+        int position() {
+            return bytes.position();
+        }
+
+        byte get() {
+            return bytes.get();
+        }
+
+        int getInt() {
+            return bytes.getInt();
+        }
+
+        long getLong() {
+            return bytes.getLong();
+        }
+
+        int getCount() throws IOException {
+            int count = bytes.getInt();
+            if (count < 0) {
+                throw new IOException("Negative count " + count + " at offset " + (bytes.position() - Integer.BYTES));
+            }
+            return count;
+        }
+
+        int getIndex(int bound) throws IOException {
+            int index = bytes.getInt();
+            if (index < 0 || index >= bound) {
+                throw new IOException("Index " + index + " out of range at offset " + (bytes.position() - Integer.BYTES));
+            }
+            return index;
+        }
+
+        String getString() throws IOException {
+            int length = bytes.getInt();
+            if (length == NULL_STRING) {
+                return null;
+            }
+            if (length < 0 || length > bytes.remaining()) {
+                throw new IOException("Invalid string length " + length + " at offset " + (bytes.position() - Integer.BYTES));
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            bytes.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        Set<String> getStrings() throws IOException {
+            int count = getCount();
+            if (count == 0) {
+                return Collections.emptySet(); // Most shifts and many employees
+            }
+            Set<String> values = new HashSet<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                values.add(getString());
+            }
+            return values;
+        }
+    }
+}
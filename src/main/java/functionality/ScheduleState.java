@@ -0,0 +1,427 @@
+package functionality;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import core.ShiftBlock;
+
+/*
+ * Mutable state of one scheduling run over an immutable Roster, indexed by the roster's dense slot numbers.
+ * Per-employee counters live in primitive arrays and assignments in primitive int lists, so the Employee objects
+ * are never written to and the same Roster can back any number of runs.
+ *
+ * Every assignment gets an ID (0, 1, 2, ... in assignment order) that keys the assignment table: the shift,
+ * the slot it went to and whether it was forced. Per slot the state keeps the IDs in assignment order and a
+ * ShiftIntervalIndex of the same IDs ordered by start time for the overlap and rest checks.
+ *
+ * Consecutive shifts form a run as long as less than RUN_BREAK_MINUTES pass between the end of one shift and the
+ * start of the next; consecutiveShifts() is the length of the run ending with the slot's latest shift.
+ * Shifts normally arrive in time order and the counters are updated in O(1); a shift assigned between existing ones,
+ * or an assignment undone by unassign, makes the slot's latest run be counted again from its interval index.
+ *
+ * For long-running schedules the oldest assignments can be evicted (see ShiftScheduler.enableRollingHorizon).
+ * Evicted assignments leave the table and the per-slot indexes; only per-slot summary counters remain, so memory
+ * and lookups depend on the retained window, not on the whole history. Assignment IDs are never reused.
+ */
+public final class ScheduleState implements ScheduleView {
+
+    public static final long NO_SHIFT = Long.MIN_VALUE; // lastShiftEnd() of a slot without assignments
+    public static final long RUN_BREAK_MINUTES = ShiftBlock.MINUTES_PER_DAY; // Gap that ends a consecutive run
+
+    private Roster roster;
+    private int[] load;           // Slot -> number of assigned shifts, evicted ones included
+    private int[] consecutive;    // Slot -> length of the current consecutive run
+    private long[] lastShiftEnd;  // Slot -> end of the most recently assigned shift, in epoch minutes
+    private IntList[] assignmentsBySlot;
+    private ShiftIntervalIndex[] intervals;
+
+    // Summary of evicted assignments per slot
+    private int[] evictedShifts;
+    private int[] evictedForced;
+    private long[] evictedMinutes;
+    private int[] evictedRun;      // Length of the run ending with the latest evicted shift
+    private long[] evictedRunEnd;  // End of the latest evicted shift, or NO_SHIFT
+
+    // Assignment table; assignment ID i is stored at index i - base
+    private Shift[] shifts = new Shift[16];
+    private int[] assignees = new int[16];
+    private BitSet forced = new BitSet();
+    private BitSet undone = new BitSet(); // Assignments taken back by unassign
+    private int base;
+    private int firstRetained; // ID of the oldest assignment not evicted yet
+    private int assignmentCount;
+
+    public ScheduleState(Roster roster) {
+        this.roster = roster;
+        int size = roster.size();
+        load = new int[size];
+        consecutive = new int[size];
+        lastShiftEnd = new long[size];
+        assignmentsBySlot = new IntList[size];
+        intervals = new ShiftIntervalIndex[size];
+        evictedShifts = new int[size];
+        evictedForced = new int[size];
+        evictedMinutes = new long[size];
+        evictedRun = new int[size];
+        evictedRunEnd = new long[size];
+        clearSlots(0, size);
+    }
+
+    // Moves the state to a roster derived from its own by Roster.withChanges: existing slots keep their counters and
+    // assignments, and the slots added at the end start without any
+    void updateRoster(Roster updated) {
+        int previous = roster.size();
+        int size = updated.size();
+        if (size < previous) {
+            throw new IllegalArgumentException("Roster has " + size + " slots, the schedule " + previous);
+        }
+        roster = updated;
+        if (size == previous) {
+            return;
+        }
+        load = Arrays.copyOf(load, size);
+        consecutive = Arrays.copyOf(consecutive, size);
+        lastShiftEnd = Arrays.copyOf(lastShiftEnd, size);
+        assignmentsBySlot = Arrays.copyOf(assignmentsBySlot, size);
+        intervals = Arrays.copyOf(intervals, size);
+        evictedShifts = Arrays.copyOf(evictedShifts, size);
+        evictedForced = Arrays.copyOf(evictedForced, size);
+        evictedMinutes = Arrays.copyOf(evictedMinutes, size);
+        evictedRun = Arrays.copyOf(evictedRun, size);
+        evictedRunEnd = Arrays.copyOf(evictedRunEnd, size);
+        clearSlots(previous, size);
+    }
+
+    // Sets up the slots from..to-1 without any assignment; the counters are already zero
+    private void clearSlots(int from, int to) {
+        Arrays.fill(lastShiftEnd, from, to, NO_SHIFT);
+        Arrays.fill(evictedRunEnd, from, to, NO_SHIFT);
+        for (int slot = from; slot < to; slot++) {
+            assignmentsBySlot[slot] = new IntList();
+            intervals[slot] = new ShiftIntervalIndex();
+        }
+    }
+
+    @Override
+    public Roster roster() {
+        return roster;
+    }
+
+    @Override
+    public int load(int slot) {
+        return load[slot];
+    }
+
+    @Override
+    public int consecutiveShifts(int slot) {
+        return consecutive[slot];
+    }
+
+    @Override
+    public int consecutiveShiftsAround(int slot, long start, long end) {
+        if (start >= lastShiftEnd[slot]) {
+            return consecutiveBefore(consecutive[slot], lastShiftEnd[slot], start) + 1;
+        }
+        return runBefore(slot, start) + 1 + intervals[slot].runAfter(end, RUN_BREAK_MINUTES);
+    }
+
+    @Override
+    public long lastShiftEnd(int slot) {
+        return lastShiftEnd[slot];
+    }
+
+    @Override
+    public boolean overlaps(int slot, long start, long end) {
+        return intervals[slot].overlaps(start, end);
+    }
+
+    @Override
+    public long previousEnd(int slot, long start) {
+        return intervals[slot].previousEnd(start);
+    }
+
+    @Override
+    public long nextStart(int slot, long end) {
+        return intervals[slot].nextStart(end);
+    }
+
+    // Number of assignments ever made, evicted ones included; also the ID the next assignment gets
+    public int assignmentCount() {
+        return assignmentCount;
+    }
+
+    // ID of the oldest assignment still in the table; 0 unless assignments were evicted
+    public int firstRetainedAssignment() {
+        return firstRetained;
+    }
+
+    public Shift shift(int assignment) {
+        checkAssignment(assignment);
+        return shifts[assignment - base];
+    }
+
+    public int assignee(int assignment) {
+        checkAssignment(assignment);
+        return assignees[assignment - base];
+    }
+
+    public boolean isForced(int assignment) {
+        checkAssignment(assignment);
+        return forced.get(assignment - base);
+    }
+
+    // False once the assignment was taken back with unassign
+    public boolean isActive(int assignment) {
+        checkAssignment(assignment);
+        return !undone.get(assignment - base);
+    }
+
+    // ID of the slot's active assignment of the shift, or -1
+    public int assignmentOf(int slot, Shift shift) {
+        int assignment = intervals[slot].idAt(shift.getStartMinute());
+        return assignment >= 0 && shifts[assignment - base].equals(shift) ? assignment : -1;
+    }
+
+    // Retained shifts of the slot in assignment order, as a read-only view
+    public List<Shift> assignedShifts(int slot) {
+        return new SlotShifts(assignmentsBySlot[slot]);
+    }
+
+    public List<Shift> assignedShifts(Employee employee) {
+        int slot = roster.slotOf(employee);
+        return slot < 0 ? Collections.<Shift>emptyList() : assignedShifts(slot);
+    }
+
+    public int evictedShifts(int slot) {
+        return evictedShifts[slot];
+    }
+
+    public int evictedForcedShifts(int slot) {
+        return evictedForced[slot];
+    }
+
+    // Total length of the slot's evicted shifts
+    public long evictedMinutes(int slot) {
+        return evictedMinutes[slot];
+    }
+
+    // IDs of the slot's retained assignments in assignment order; the live list, not to be modified
+    IntList assignmentIds(int slot) {
+        return assignmentsBySlot[slot];
+    }
+
+    ShiftIntervalIndex intervals(int slot) {
+        return intervals[slot];
+    }
+
+    // Length and end of the run ending with the slot's latest evicted shift; kept for snapshots
+    int evictedRun(int slot) {
+        return evictedRun[slot];
+    }
+
+    long evictedRunEnd(int slot) {
+        return evictedRunEnd[slot];
+    }
+
+    boolean isUndone(int assignment) {
+        return undone.get(assignment - base);
+    }
+
+    // Loading a snapshot: sets the slot's counters as they were saved, before any assignment is restored
+    void restoreCounters(int slot, int load, int consecutive, long lastShiftEnd, int evictedShifts, int evictedForced,
+            long evictedMinutes, int evictedRun, long evictedRunEnd) {
+        this.load[slot] = load;
+        this.consecutive[slot] = consecutive;
+        this.lastShiftEnd[slot] = lastShiftEnd;
+        this.evictedShifts[slot] = evictedShifts;
+        this.evictedForced[slot] = evictedForced;
+        this.evictedMinutes[slot] = evictedMinutes;
+        this.evictedRun[slot] = evictedRun;
+        this.evictedRunEnd[slot] = evictedRunEnd;
+        int retained = Math.max(load - evictedShifts, 0); // Sized for the assignments about to be restored
+        assignmentsBySlot[slot] = new IntList(retained);
+        intervals[slot] = new ShiftIntervalIndex(retained);
+    }
+
+    // Loading a snapshot: the table continues at the given ID, the first one the snapshot retained
+    void restoreFirstAssignment(int firstAssignment, int expectedAssignments) {
+        if (assignmentCount != 0) {
+            throw new IllegalStateException("State already holds assignments");
+        }
+        base = firstAssignment;
+        firstRetained = firstAssignment;
+        assignmentCount = firstAssignment;
+        shifts = new Shift[Math.max(expectedAssignments, 16)];
+        assignees = new int[shifts.length];
+    }
+
+    // Loading a snapshot: appends a table entry without touching the counters restored before
+    void restoreAssignment(int slot, Shift shift, boolean isForced, boolean isUndone) {
+        int index = assignmentCount - base;
+        if (index == shifts.length) {
+            shifts = Arrays.copyOf(shifts, index * 2);
+            assignees = Arrays.copyOf(assignees, index * 2);
+        }
+        int assignment = assignmentCount++;
+        shifts[index] = shift;
+        assignees[index] = slot;
+        forced.set(index, isForced);
+        undone.set(index, isUndone);
+        if (!isUndone) {
+            assignmentsBySlot[slot].add(assignment);
+            intervals[slot].add(shift.getStartMinute(), shift.getEndMinute(), assignment);
+        }
+    }
+
+    // Records the assignment and returns its ID
+    int assign(int slot, Shift shift, boolean isForced) {
+        int index = assignmentCount - base;
+        if (index == shifts.length) {
+            shifts = Arrays.copyOf(shifts, index * 2);
+            assignees = Arrays.copyOf(assignees, index * 2);
+        }
+        int assignment = assignmentCount++;
+        shifts[index] = shift;
+        assignees[index] = slot;
+        forced.set(index, isForced);
+        undone.clear(index);
+
+        long start = shift.getStartMinute();
+        long end = shift.getEndMinute();
+        assignmentsBySlot[slot].add(assignment);
+        intervals[slot].add(start, end, assignment);
+        load[slot]++;
+        if (start >= lastShiftEnd[slot]) {
+            consecutive[slot] = consecutiveBefore(consecutive[slot], lastShiftEnd[slot], start) + 1;
+            lastShiftEnd[slot] = end;
+        } else {
+            recountLatestRun(slot); // Landed between existing shifts
+        }
+        return assignment;
+    }
+
+    // Takes an active assignment back; its ID stays in the table, marked as no longer active
+    void unassign(int assignment) {
+        checkAssignment(assignment);
+        int index = assignment - base;
+        if (undone.get(index)) {
+            throw new IllegalArgumentException("Assignment " + assignment + " was already taken back");
+        }
+        int slot = assignees[index];
+        undone.set(index);
+        intervals[slot].remove(shifts[index].getStartMinute(), assignment);
+        assignmentsBySlot[slot].removeValue(assignment);
+        load[slot]--;
+        recountLatestRun(slot);
+    }
+
+    // Evicts, oldest ID first, the assignments of shifts that ended at least lookBack minutes before the watermark;
+    // stops at the first one still needed. Returns the number evicted.
+    int evict(long watermark, long lookBack) {
+        int evicted = 0;
+        while (firstRetained < assignmentCount) {
+            int index = firstRetained - base;
+            Shift shift = shifts[index];
+            long start = shift.getStartMinute();
+            long end = shift.getEndMinute();
+            if (end > watermark - lookBack) {
+                break;
+            }
+            if (!undone.get(index)) {
+                int slot = assignees[index];
+                intervals[slot].remove(start, firstRetained);
+                assignmentsBySlot[slot].removeFirst(); // IDs are evicted in order, so it is the slot's oldest
+                evictedShifts[slot]++;
+                evictedMinutes[slot] += end - start;
+                if (forced.get(index)) {
+                    evictedForced[slot]++;
+                }
+                evictedRun[slot] = consecutiveBefore(evictedRun[slot], evictedRunEnd[slot], start) + 1;
+                evictedRunEnd[slot] = end;
+            }
+            shifts[index] = null;
+            firstRetained++;
+            evicted++;
+        }
+
+        // Compact the table once most of it is evicted
+        int dropped = firstRetained - base;
+        if (dropped > 0 && dropped >= shifts.length / 2) {
+            int retained = assignmentCount - firstRetained;
+            System.arraycopy(shifts, dropped, shifts, 0, retained);
+            Arrays.fill(shifts, retained, dropped + retained, null);
+            System.arraycopy(assignees, dropped, assignees, 0, retained);
+            forced = forced.get(dropped, dropped + retained);
+            undone = undone.get(dropped, dropped + retained);
+            base = firstRetained;
+        }
+        return evicted;
+    }
+
+    // Length of the slot's run before a shift starting at start: 0 if the gap since the last shift breaks the run
+    static int consecutiveBefore(int consecutive, long lastShiftEnd, long start) {
+        return lastShiftEnd == NO_SHIFT || start - lastShiftEnd >= RUN_BREAK_MINUTES ? 0 : consecutive;
+    }
+
+    // Length of the run leading up to the given minute, continued into evicted history where it reaches that far
+    private int runBefore(int slot, long start) {
+        return runBefore(slot, intervals[slot], start);
+    }
+
+    // Same over another index of the slot's retained shifts, e.g. a copy with some of them left out
+    int runBefore(int slot, ShiftIntervalIndex index, long start) {
+        int run = index.runBefore(start, RUN_BREAK_MINUTES);
+        if (run == index.countBefore(start) && evictedRun[slot] > 0) {
+            long runStart = run == 0 ? start : index.firstStart();
+            if (runStart - evictedRunEnd[slot] < RUN_BREAK_MINUTES) {
+                run += evictedRun[slot];
+            }
+        }
+        return run;
+    }
+
+    private void recountLatestRun(int slot) {
+        ShiftIntervalIndex index = intervals[slot];
+        if (index.size() == 0) {
+            consecutive[slot] = evictedRun[slot];
+            lastShiftEnd[slot] = evictedRunEnd[slot];
+            return;
+        }
+        long latestEnd = index.lastEnd();
+        consecutive[slot] = runBefore(slot, latestEnd + 1); // The walk starts with the latest shift itself
+        lastShiftEnd[slot] = latestEnd;
+    }
+
+    private void checkAssignment(int assignment) {
+        if (assignment < firstRetained || assignment >= assignmentCount) {
+            throw new IndexOutOfBoundsException(assignment < firstRetained && assignment >= 0
+                    ? "Assignment " + assignment + " was evicted"
+                    : "Assignment " + assignment + " of " + assignmentCount);
+        }
+    }
+
+    private final class SlotShifts extends AbstractList<Shift> implements RandomAccess {
+        private final IntList ids;
+
+        SlotShifts(IntList ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public Shift get(int index) {
+            return shifts[ids.get(index) - base];
+        }
+
+        @Override
+        public int size() {
+            return ids.size();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package functionality;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import core.CSVUtils;
+import core.Roster;
+import core.Shift;
+import core.ShiftBlock;
+
+/*
+ * Audits a finished schedule against the built-in rules without going through the scheduler's indexes, so a
+ * published schedule can be checked independently of the code that made it: the output of a ShiftScheduler, any
+ * list of assignments, or a schedule read back from CSV (see CSVUtils.forEachAssignmentInCSV).
+ *
+ * The assignments are copied into primitive arrays and put in start order per employee (see StartOrder). Every
+ * employee's assignments are then swept once, in parallel across employees; the sweep keeps the latest end seen
+ * so far and the length of the current run, which is all the rules need:
+ * - OVERLAP: a shift starts before an earlier one ends,
+ * - REST_PERIOD: less than the rest period between the end of one shift and the start of the next, unless either
+ *   is forced,
+ * - MAX_CONSECUTIVE: a run (see ScheduleState.RUN_BREAK_MINUTES) longer than the employee's maximum,
+ * - DAY_OFF: a regular assignment on one of the employee's days off,
+ * - SKILLS: the employee lacks a skill the shift requires.
+ * That is O(n log n) overall with n assignments, and O(n) extra memory.
+ *
+ * Assignments evicted from a rolling-horizon schedule are not seen, so a run reaching back into evicted history is
+ * only counted from the oldest retained shift.
+ */
+public final class ScheduleValidator {
+
+    private final Roster roster;
+    private final long restMinutes;
+
+    public ScheduleValidator(Roster roster) {
+        this(roster, ShiftConstraints.DEFAULT_REST_PERIOD_HOURS);
+    }
+
+    public ScheduleValidator(Roster roster, int restPeriodHours) {
+        this.roster = roster;
+        this.restMinutes = ShiftConstraints.restPeriod(restPeriodHours).getMinutes();
+    }
+
+    public ValidationReport validate(ShiftScheduler scheduler) {
+        return validate(scheduler.getState());
+    }
+
+    // Checks the active retained assignments of the state, which must be of this validator's roster
+    public ValidationReport validate(ScheduleState state) {
+        if (state.roster() != roster) {
+            throw new IllegalArgumentException("Schedule is of another roster");
+        }
+        Entries entries = new Entries(state.assignmentCount() - state.firstRetainedAssignment());
+        for (int assignment = state.firstRetainedAssignment(); assignment < state.assignmentCount(); assignment++) {
+            if (state.isActive(assignment)) {
+                entries.add(state.assignee(assignment), state.shift(assignment), state.isForced(assignment));
+            }
+        }
+        return sweep(entries);
+    }
+
+    public ValidationReport validate(Collection<? extends Assignment> assignments) {
+        Entries entries = new Entries(assignments.size());
+        for (Assignment assignment : assignments) {
+            int slot = roster.slotOf(assignment.getEmployee());
+            if (slot < 0) {
+                throw new IllegalArgumentException("Employee " + assignment.getEmployee().getId() + " is not on the roster");
+            }
+            entries.add(slot, assignment.getShift(), assignment.isForced());
+        }
+        return sweep(entries);
+    }
+
+    // Checks a schedule read from CSV; employees are matched by ID, the first of the roster winning for duplicates
+    public ValidationReport validateCSV(Reader reader) throws IOException {
+        Map<String, Integer> slots = new HashMap<>(roster.size() * 2);
+        for (int slot = roster.size() - 1; slot >= 0; slot--) {
+            slots.put(roster.employee(slot).getId(), slot);
+        }
+        Entries entries = new Entries(1024);
+        ShiftBlock block = new ShiftBlock();
+        CSVUtils.forEachAssignmentInCSV(reader, (employeeId, shift, forced) -> {
+            Integer slot = slots.get(employeeId);
+            if (slot == null) {
+                throw new IOException("Assignment CSV names an employee not on the roster: '" + employeeId + "'");
+            }
+            // Copied into one block, so the record's standalone shift can go
+            int index = block.add(shift.getId(), shift.getStartMinute(), shift.getEndMinute());
+            block.setRequiredSkills(index, shift.getRequiredSkills());
+            entries.add(slot, block.get(index), forced);
+        });
+        return sweep(entries);
+    }
+
+    private ValidationReport sweep(Entries entries) {
+        int n = roster.size();
+        int[] offsets = new int[n + 1];
+        long[] keys = StartOrder.bySlot(entries.slots, entries.starts, entries.size, offsets);
+        int employees = 0;
+        for (int slot = 0; slot < n; slot++) {
+            if (offsets[slot + 1] > offsets[slot]) {
+                employees++;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<ValidationReport.Violation>[] found = (List<ValidationReport.Violation>[]) new List<?>[n];
+        IntStream.range(0, n).parallel()
+                .filter(slot -> offsets[slot + 1] > offsets[slot])
+                .forEach(slot -> found[slot] = sweep(slot, entries, keys, offsets[slot], offsets[slot + 1]));
+
+        List<ValidationReport.Violation> violations = new ArrayList<>();
+        for (List<ValidationReport.Violation> slotViolations : found) {
+            if (slotViolations != null) {
+                violations.addAll(slotViolations);
+            }
+        }
+        return new ValidationReport(violations, entries.size, employees);
+    }
+
+    // Checks the slot's assignments in start order; returns null if nothing is wrong
+    private List<ValidationReport.Violation> sweep(int slot, Entries entries, long[] keys, int from, int to) {
+        int maxRun = roster.maxConsecutiveShifts(slot);
+        List<ValidationReport.Violation> violations = null;
+        int latest = -1; // Entry with the latest end so far
+        int run = 0;
+        for (int k = from; k < to; k++) {
+            int entry = StartOrder.entry(keys[k]);
+            long start = entries.starts[entry];
+            long end = entries.ends[entry];
+            boolean forced = entries.forced.get(entry);
+            if (latest < 0) {
+                run = 1;
+            } else {
+                long latestEnd = entries.ends[latest];
+                long gap = start - latestEnd;
+                if (gap < 0) {
+                    violations = add(violations, slot, ValidationReport.Violation.Type.OVERLAP, entries, entry, latest,
+                            Math.min(end, latestEnd) - start);
+                } else if (gap < restMinutes && !forced && !entries.forced.get(latest)) {
+                    violations = add(violations, slot, ValidationReport.Violation.Type.REST_PERIOD, entries, entry,
+                            latest, gap);
+                }
+                run = gap < ScheduleState.RUN_BREAK_MINUTES ? run + 1 : 1;
+            }
+            if (run > maxRun) {
+                violations = add(violations, slot, ValidationReport.Violation.Type.MAX_CONSECUTIVE, entries, entry, -1,
+                        run);
+            }
+            if (!forced && roster.isDayOff(slot, ShiftBlock.dayOfWeek(start))) {
+                violations = add(violations, slot, ValidationReport.Violation.Type.DAY_OFF, entries, entry, -1, 0);
+            }
+            Set<String> skills = entries.shifts[entry].getRequiredSkills();
+            if (!skills.isEmpty() && !roster.hasSkills(slot, skills)) {
+                violations = add(violations, slot, ValidationReport.Violation.Type.SKILLS, entries, entry, -1, 0);
+            }
+            if (latest < 0 || end > entries.ends[latest]) {
+                latest = entry;
+            }
+        }
+        return violations;
+    }
+
+    private List<ValidationReport.Violation> add(List<ValidationReport.Violation> violations, int slot,
+                                                 ValidationReport.Violation.Type type, Entries entries, int entry,
+                                                 int other, long amount) {
+        if (violations == null) {
+            violations = new ArrayList<>();
+        }
+        violations.add(new ValidationReport.Violation(type, roster.employee(slot), entries.shifts[entry],
+                other < 0 ? null : entries.shifts[other], amount));
+        return violations;
+    }
+
+    // The schedule under validation, one entry per assignment
+    private static final class Entries {
+        int size;
+        int[] slots;
+        long[] starts;
+        long[] ends;
+        Shift[] shifts;
+        final BitSet forced = new BitSet();
+
+        Entries(int expected) {
+            int capacity = Math.max(expected, 16);
+            slots = new int[capacity];
+            starts = new long[capacity];
+            ends = new long[capacity];
+            shifts = new Shift[capacity];
+        }
+
+        void add(int slot, Shift shift, boolean isForced) {
+            if (size == slots.length) {
+                int capacity = size * 2;
+                slots = Arrays.copyOf(slots, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                shifts = Arrays.copyOf(shifts, capacity);
+            }
+            slots[size] = slot;
+            starts[size] = shift.getStartMinute();
+            ends[size] = shift.getEndMinute();
+            shifts[size] = shift;
+            if (isForced) {
+                forced.set(size);
+            }
+            size++;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package functionality;
+
+import core.Roster;
+
+/*
+ * Read-only view of a schedule in progress, indexed by the roster's slots. This is what constraints see when they
+ * decide whether an employee may take a shift. All times are epoch minutes.
+ */
+public interface ScheduleView {
+
+    Roster roster();
+
+    // Number of shifts assigned to the slot
+    int load(int slot);
+
+    // Length of the run ending with the slot's latest shift; see ScheduleState.RUN_BREAK_MINUTES
+    int consecutiveShifts(int slot);
+
+    // Length of the run a shift [start, end) would be part of if the slot took it, that shift included. Equal to
+    // consecutiveShifts + 1 or 1 for a shift after all others, but also correct for one between existing shifts.
+    int consecutiveShiftsAround(int slot, long start, long end);
+
+    // End of the most recently assigned shift, or ScheduleState.NO_SHIFT
+    long lastShiftEnd(int slot);
+
+    // True if [start, end) intersects a shift of the slot; two shifts starting at the same minute overlap
+    boolean overlaps(int slot, long start, long end);
+
+    // End of the slot's latest shift starting before the given minute, or Long.MIN_VALUE
+    long previousEnd(int slot, long start);
+
+    // Start of the slot's earliest shift starting at or after the given minute, or Long.MAX_VALUE
+    long nextStart(int slot, long end);
+}
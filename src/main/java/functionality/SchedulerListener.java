@@ -0,0 +1,27 @@
+package functionality;
+
+import core.Employee;
+import core.Shift;
+
+/*
+ * Callbacks from a ShiftScheduler while it staffs shifts, for metrics, tracing and audit logs instead of console
+ * output. Every method has an empty default, so a listener only implements what it needs. The scheduler calls
+ * them on the thread that runs it, and skips all the bookkeeping behind them (timing, counting) when no listener
+ * is set. See SchedulerMetrics and JfrSchedulerListener.
+ */
+public interface SchedulerListener {
+
+    // The listener of a scheduler nobody listens to
+    SchedulerListener NONE = new SchedulerListener() {
+    };
+
+    // One employee got the shift; forced means a day off or rest period was overridden. nanos is the time it took
+    // to record the assignment and update the employee's load and availability, the search excluded.
+    default void assigned(Employee employee, Shift shift, boolean forced, long nanos) {
+    }
+
+    // A shift was staffed, by assignShifts or by repair. required is the number of positions that were open,
+    // candidatesScanned the number of employees given the full eligibility check, nanos the time it took.
+    default void shiftStaffed(Shift shift, int required, int assigned, int forced, int candidatesScanned, long nanos) {
+    }
+}
@@ -0,0 +1,102 @@
+package functionality;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import core.Employee;
+import core.Shift;
+
+/*
+ * SchedulerListener that aggregates a run into counters and histograms instead of logging every event:
+ * positions assigned, forced and left unfilled, employees checked per shift, time per assignment and time per
+ * staffed shift.
+ * All of it is lock-free, so one instance can be shared by schedulers on different threads.
+ *
+ *   SchedulerMetrics metrics = new SchedulerMetrics();
+ *   scheduler.setListener(metrics);
+ *   scheduler.assignShifts(shifts);
+ *   System.out.println(metrics + "\nload " + SchedulerMetrics.loadDistribution(scheduler.getState()));
+ */
+public final class SchedulerMetrics implements SchedulerListener {
+
+    private final LongAdder shifts = new LongAdder();
+    private final LongAdder assigned = new LongAdder();
+    private final LongAdder forced = new LongAdder();
+    private final LongAdder unfilled = new LongAdder();
+    private final Histogram candidatesScanned = new Histogram();
+    private final Histogram assignmentNanos = new Histogram();
+    private final Histogram shiftNanos = new Histogram();
+
+    @Override
+    public void shiftStaffed(Shift shift, int required, int assigned, int forced, int candidatesScanned, long nanos) {
+        shifts.increment();
+        this.assigned.add(assigned);
+        this.forced.add(forced);
+        unfilled.add(required - assigned - forced);
+        this.candidatesScanned.record(candidatesScanned);
+        shiftNanos.record(nanos);
+    }
+
+    @Override
+    public void assigned(Employee employee, Shift shift, boolean forced, long nanos) {
+        assignmentNanos.record(nanos);
+    }
+
+    public long getShifts() {
+        return shifts.sum();
+    }
+
+    // Regular assignments
+    public long getAssigned() {
+        return assigned.sum();
+    }
+
+    public long getForced() {
+        return forced.sum();
+    }
+
+    // Positions no employee could be found for
+    public long getUnfilled() {
+        return unfilled.sum();
+    }
+
+    // Employees given the full eligibility check per staffed shift
+    public Histogram getCandidatesScanned() {
+        return candidatesScanned;
+    }
+
+    // Time to record one assignment, regular or forced, once its employee was found
+    public Histogram getAssignmentNanos() {
+        return assignmentNanos;
+    }
+
+    // Time to staff one shift: the search for its employees and all of its assignments
+    public Histogram getShiftNanos() {
+        return shiftNanos;
+    }
+
+    public void reset() {
+        shifts.reset();
+        assigned.reset();
+        forced.reset();
+        unfilled.reset();
+        candidatesScanned.reset();
+        assignmentNanos.reset();
+        shiftNanos.reset();
+    }
+
+    // Number of shifts per employee over the whole roster, e.g. to spot an uneven spread
+    public static Histogram loadDistribution(ScheduleView schedule) {
+        Histogram distribution = new Histogram();
+        for (int slot = 0; slot < schedule.roster().size(); slot++) {
+            distribution.record(schedule.load(slot));
+        }
+        return distribution;
+    }
+
+    @Override
+    public String toString() {
+        return getShifts() + " shifts: " + getAssigned() + " assigned, " + getForced() + " forced, " + getUnfilled()
+                + " unfilled; candidates scanned " + candidatesScanned + "; ns per assignment " + assignmentNanos
+                + "; ns per shift " + shiftNanos;
+    }
+}
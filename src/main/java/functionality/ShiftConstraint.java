@@ -0,0 +1,29 @@
+package functionality;
+
+import core.Shift;
+
+/*
+ * One eligibility rule for giving a shift to an employee. Schedulers compile their constraints into a
+ * ConstraintChain that evaluates them in order of cost and selectivity, so the estimates only need to be right
+ * relative to each other.
+ *
+ * Soft constraints are relaxed when nobody satisfies all of them: a forced assignment only has to pass the hard
+ * ones. Implementations must be stateless or thread-safe, since one constraint may serve several schedulers.
+ */
+public interface ShiftConstraint {
+
+    // True if the employee in the slot may take the shift, given what is already scheduled
+    boolean test(ScheduleView schedule, int slot, Shift shift);
+
+    // Short name used in statistics
+    String name();
+
+    // Estimated relative cost of one test; 1 is a couple of array reads, a binary search is about 3
+    double cost();
+
+    // Estimated share of candidates that pass, between 0 (rejects everybody) and 1 (rejects nobody)
+    double selectivity();
+
+    // Hard constraints also hold for forced assignments
+    boolean isHard();
+}
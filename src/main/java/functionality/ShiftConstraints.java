@@ -0,0 +1,170 @@
+package functionality;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import core.Shift;
+import core.ShiftBlock;
+
+/*
+ * The built-in scheduling rules and a factory for custom ones. The defaults() are the rules the schedulers apply
+ * unless given others:
+ * - DAY_OFF (soft): the shift does not start on one of the employee's days off,
+ * - REST_PERIOD (soft): 12 hours off after the most recently assigned shift and around neighbouring shifts,
+ * - MAX_CONSECUTIVE (hard): the consecutive shift count is below the employee's maximum,
+ * - SKILLS (hard): the employee has every skill the shift requires,
+ * - NO_OVERLAP (hard): the shift does not overlap one the employee already has.
+ * Schedulers recognise the built-in rules and back them with their bitset prefilters; custom rules are only
+ * evaluated through the chain.
+ */
+public final class ShiftConstraints {
+
+    public static final int DEFAULT_REST_PERIOD_HOURS = 12;
+
+    public static final ShiftConstraint DAY_OFF = of("day off", 1, 5.0 / 7, false,
+            (schedule, slot, shift) -> !schedule.roster().isDayOff(slot, ShiftBlock.dayOfWeek(shift.getStartMinute())));
+
+    public static final RestPeriod REST_PERIOD = new RestPeriod(DEFAULT_REST_PERIOD_HOURS);
+
+    // Shifts less than RUN_BREAK_MINUTES apart form a run; the run the shift would join must stay within the limit
+    public static final ShiftConstraint MAX_CONSECUTIVE = of("max consecutive", 1, 0.9, true,
+            (schedule, slot, shift) -> schedule.consecutiveShiftsAround(slot, shift.getStartMinute(),
+                    shift.getEndMinute()) <= schedule.roster().maxConsecutiveShifts(slot));
+
+    // Most shifts need no skills, which is a single isEmpty() check
+    public static final ShiftConstraint SKILLS = of("skills", 1, 0.9, true,
+            (schedule, slot, shift) -> {
+                Set<String> required = shift.getRequiredSkills();
+                return required.isEmpty() || schedule.roster().hasSkills(slot, required);
+            });
+
+    public static final ShiftConstraint NO_OVERLAP = of("no overlap", 3, 0.95, true,
+            (schedule, slot, shift) -> !schedule.overlaps(slot, shift.getStartMinute(), shift.getEndMinute()));
+
+    private ShiftConstraints() {
+    }
+
+    public static List<ShiftConstraint> defaults() {
+        return Collections.unmodifiableList(Arrays.asList(DAY_OFF, REST_PERIOD, MAX_CONSECUTIVE, SKILLS, NO_OVERLAP));
+    }
+
+    public static RestPeriod restPeriod(int hours) {
+        return hours == DEFAULT_REST_PERIOD_HOURS ? REST_PERIOD : new RestPeriod(hours);
+    }
+
+    // Wraps a test with its estimates, e.g. for qualification or preference rules
+    public static ShiftConstraint of(String name, double cost, double selectivity, boolean hard, Test test) {
+        if (cost <= 0 || selectivity < 0 || selectivity > 1) {
+            throw new IllegalArgumentException("Invalid cost " + cost + " or selectivity " + selectivity + " for " + name);
+        }
+        return new Rule(name, cost, selectivity, hard, test);
+    }
+
+    @FunctionalInterface
+    public interface Test {
+        boolean test(ScheduleView schedule, int slot, Shift shift);
+    }
+
+    // Minimum gap between two shifts of the same employee
+    public static final class RestPeriod implements ShiftConstraint {
+
+        private final long minutes;
+
+        private RestPeriod(int hours) {
+            if (hours < 0) {
+                throw new IllegalArgumentException("Rest period must not be negative: " + hours);
+            }
+            this.minutes = (long) hours * ShiftBlock.MINUTES_PER_HOUR;
+        }
+
+        public long getMinutes() {
+            return minutes;
+        }
+
+        @Override
+        public boolean test(ScheduleView schedule, int slot, Shift shift) {
+            long start = shift.getStartMinute();
+            long end = shift.getEndMinute();
+            long lastEnd = schedule.lastShiftEnd(slot);
+            if (lastEnd != ScheduleState.NO_SHIFT && start < lastEnd + minutes) {
+                return false;
+            }
+            // Neighbouring shifts, whatever order the shifts were assigned in
+            long previousEnd = schedule.previousEnd(slot, start);
+            if (previousEnd != ShiftIntervalIndex.NONE_BEFORE && start < previousEnd + minutes) {
+                return false;
+            }
+            long nextStart = schedule.nextStart(slot, end);
+            return nextStart == ShiftIntervalIndex.NONE_AFTER || nextStart >= end + minutes;
+        }
+
+        @Override
+        public String name() {
+            return "rest period";
+        }
+
+        @Override
+        public double cost() {
+            return 3;
+        }
+
+        @Override
+        public double selectivity() {
+            return 0.6;
+        }
+
+        @Override
+        public boolean isHard() {
+            return false;
+        }
+    }
+
+    private static final class Rule implements ShiftConstraint {
+
+        private final String name;
+        private final double cost;
+        private final double selectivity;
+        private final boolean hard;
+        private final Test test;
+
+        Rule(String name, double cost, double selectivity, boolean hard, Test test) {
+            this.name = name;
+            this.cost = cost;
+            this.selectivity = selectivity;
+            this.hard = hard;
+            this.test = test;
+        }
+
+        @Override
+        public boolean test(ScheduleView schedule, int slot, Shift shift) {
+            return test.test(schedule, slot, shift);
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public double cost() {
+            return cost;
+        }
+
+        @Override
+        public double selectivity() {
+            return selectivity;
+        }
+
+        @Override
+        public boolean isHard() {
+            return hard;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
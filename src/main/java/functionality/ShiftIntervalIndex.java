@@ -0,0 +1,174 @@
+package functionality;
+
+import java.util.Arrays;
+
+/*
+ * Sorted index of the shifts assigned to one employee, kept as parallel primitive arrays of start and end
+ * epoch minutes ordered by start, each with the ID of the assignment it belongs to.
+ *
+ * The scheduler never lets an employee's shifts overlap, so ordering by start also orders by end. That makes
+ * every query a single binary search (O(log k)): the only shift that can overlap a new one is the latest
+ * shift starting before the new one ends, and the rest gap only depends on the neighbouring shifts.
+ * Shifts usually arrive in time order, so inserting is normally an append.
+ * Two shifts starting at the same minute are treated as overlapping, even when one of them is empty.
+ */
+final class ShiftIntervalIndex {
+
+    static final long NONE_BEFORE = Long.MIN_VALUE;
+    static final long NONE_AFTER = Long.MAX_VALUE;
+
+    private long[] starts;
+    private long[] ends;
+    private int[] ids;
+    private int size;
+
+    ShiftIntervalIndex() {
+        this(4);
+    }
+
+    ShiftIntervalIndex(int capacity) {
+        starts = new long[Math.max(capacity, 1)];
+        ends = new long[starts.length];
+        ids = new int[starts.length];
+    }
+
+    void add(long start, long end, int id) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        int position = size > 0 && starts[size - 1] < start ? size : lowerBound(start);
+        int moved = size - position;
+        if (moved > 0) {
+            System.arraycopy(starts, position, starts, position + 1, moved);
+            System.arraycopy(ends, position, ends, position + 1, moved);
+            System.arraycopy(ids, position, ids, position + 1, moved);
+        }
+        starts[position] = start;
+        ends[position] = end;
+        ids[position] = id;
+        size++;
+    }
+
+    boolean remove(long start, int id) {
+        for (int i = lowerBound(start); i < size && starts[i] == start; i++) {
+            if (ids[i] == id) {
+                int moved = size - i - 1;
+                System.arraycopy(starts, i + 1, starts, i, moved);
+                System.arraycopy(ends, i + 1, ends, i, moved);
+                System.arraycopy(ids, i + 1, ids, i, moved);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Independent copy with room for one more shift
+    ShiftIntervalIndex copy() {
+        ShiftIntervalIndex copy = new ShiftIntervalIndex();
+        int capacity = size + 1;
+        copy.starts = Arrays.copyOf(starts, capacity);
+        copy.ends = Arrays.copyOf(ends, capacity);
+        copy.ids = Arrays.copyOf(ids, capacity);
+        copy.size = size;
+        return copy;
+    }
+
+    // True if [start, end) intersects an indexed shift; times in epoch minutes
+    boolean overlaps(long start, long end) {
+        int atOrAfterStart = lowerBound(start);
+        if (atOrAfterStart < size && starts[atOrAfterStart] == start) {
+            return true;
+        }
+        int candidate = lowerBound(end) - 1; // Latest shift starting before end
+        return candidate >= 0 && ends[candidate] > start;
+    }
+
+    // End of the latest shift starting before the given minute, or NONE_BEFORE
+    long previousEnd(long start) {
+        int previous = lowerBound(start) - 1;
+        return previous >= 0 ? ends[previous] : NONE_BEFORE;
+    }
+
+    // Start of the earliest shift starting at or after the given minute, or NONE_AFTER
+    long nextStart(long end) {
+        int next = lowerBound(end);
+        return next < size ? starts[next] : NONE_AFTER;
+    }
+
+    // ID of the shift starting at the given minute, or -1; at most one can, as such shifts overlap
+    int idAt(long start) {
+        int index = lowerBound(start);
+        return index < size && starts[index] == start ? ids[index] : -1;
+    }
+
+    // Number of shifts starting before the given minute
+    int countBefore(long start) {
+        return lowerBound(start);
+    }
+
+    long firstStart() {
+        return size > 0 ? starts[0] : NONE_AFTER;
+    }
+
+    long lastEnd() {
+        return size > 0 ? ends[size - 1] : NONE_BEFORE;
+    }
+
+    // Length of the run of shifts leading up to the given minute: walking back from the latest shift starting
+    // before it for as long as every gap is shorter than breakMinutes
+    int runBefore(long start, long breakMinutes) {
+        int run = 0;
+        long next = start;
+        for (int i = lowerBound(start) - 1; i >= 0 && next - ends[i] < breakMinutes; i--) {
+            run++;
+            next = starts[i];
+        }
+        return run;
+    }
+
+    // Same walking forward from the earliest shift starting at or after the given minute
+    int runAfter(long end, long breakMinutes) {
+        int run = 0;
+        long previous = end;
+        for (int i = lowerBound(end); i < size && starts[i] - previous < breakMinutes; i++) {
+            run++;
+            previous = ends[i];
+        }
+        return run;
+    }
+
+    // Length of the run ending with the latest shift, 0 if there is none
+    int lastRun(long breakMinutes) {
+        if (size == 0) {
+            return 0;
+        }
+        int run = 1;
+        for (int i = size - 1; i > 0 && starts[i] - ends[i - 1] < breakMinutes; i--) {
+            run++;
+        }
+        return run;
+    }
+
+    // Index of the first shift starting at or after the given minute
+    private int lowerBound(long start) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < start) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
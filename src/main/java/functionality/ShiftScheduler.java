@@ -12,12 +12,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import core.CSVUtils;
 import core.Employee;
+import core.Roster;
 
 import core.Shift;
+import core.ShiftBlock;
 
 import java.util.*;
 
@@ -28,187 +32,707 @@ import java.util.*;
  * 
  * The ShiftScheduler class is responsible for assigning employees to shifts based on their availability and ensuring a fair workload distribution. Let's walk through the class's workflow and method interactions in chronological order:
 
-Constructor - ShiftScheduler(List<Employee> employees):
+Constructor - ShiftScheduler(List<Employee> employees) / ShiftScheduler(Roster roster):
 
-When a ShiftScheduler object is instantiated, it receives a list of Employee objects as an argument.
-It initializes shiftPriorityQueue, a PriorityQueue that orders employees based on the number of shifts already assigned to them (the fewer the shifts, the higher the priority for new assignments). This helps in ensuring a balanced distribution of work.
-The constructor adds all passed employees to this queue, preparing the scheduler for the assignment process.
+When a ShiftScheduler object is instantiated, it receives a list of Employee objects, or a Roster built from one. A Roster is an immutable snapshot that gives every employee a dense slot number, so one Roster can be shared by many schedulers.
+Everything that changes during a run (assigned shifts, last shift end, consecutive shift count) lives in a ScheduleState indexed by slot; Employee objects are never modified.
+Every slot is added to fairnessHeap, an indexed min-heap that orders employees based on the number of shifts already assigned to them (the fewer the shifts, the higher the priority for new assignments). This helps in ensuring a balanced distribution of work.
 Shift Assignment - assignShifts(List<Shift> shifts):
 
-This method is called with a list of Shift objects that need to be assigned to employees.
-It iterates over each Shift and calls findEligibleEmployeeForShift(Shift shift) to find an employee who can work on this shift.
-Once an eligible employee is found, assignShiftToEmployee(Employee employee, Shift shift) is called to officially assign the shift to that employee.
-Finding an Eligible Employee - findEligibleEmployeeForShift(Shift shift):
-
-This method is invoked by assignShifts to find an employee who is both available and has not exceeded their maximum allowed consecutive shifts.
-It checks each employee in the shiftPriorityQueue for availability during the shift's time. The priority queue ensures that it starts with employees who have the least number of assigned shifts.
-Availability is determined by calling employee.isAvailable(LocalDateTime shiftTime) and canWorkShift(Shift shift, Employee employee) for each employee. If both return true, the employee is considered eligible.
-Checking Work Shift Eligibility - canWorkShift(Shift shift, Employee employee):
-
-This method is used to implement any additional business rules for shift assignment beyond basic availability. For instance, it may check for overlapping shifts or ensure compliance with labor regulations regarding shift spacing.
-It's used within findEligibleEmployeeForShift to provide a secondary check after basic availability is confirmed.
-Assigning Shift to Employee - assignShiftToEmployee(Employee employee, Shift shift):
-
-This method takes a specific Employee object and a Shift object and assigns the shift to the employee.
-It updates the employee's record with the end time of the new shift and increments their consecutive shift count.
-The shift is added to the employee's list of assigned shifts in the employeeShifts map, which tracks which shifts are assigned to which employees.
-After the shift is assigned, refreshPriorityQueue() is called to reflect the change in the number of shifts assigned to employees, ensuring that the queue remains accurate for subsequent assignments.
+This method is called with a list of Shift objects that need to be assigned to employees. Each shift needs Shift.getHeadcount() employees.
+The shifts can also come as a Stream, e.g. from a ShiftPattern, in which case each shift is staffed as soon as it is generated.
+It iterates over each Shift and calls findEligibleEmployeesForShift(Shift shift, int needed) to find up to that many employees who can work on this shift.
+The employees found are then passed to assignShiftToEmployee(int slot, Shift shift, boolean isForced) one by one to officially assign the shift to them.
+Shifts that could not get their full headcount are listed in the returned CoverageReport.
+Finding Eligible Employees - findEligibleEmployeesForShift(Shift shift, int needed):
+
+This method is invoked by assignShifts to find employees who are both available and have not exceeded their maximum allowed consecutive shifts.
+It walks the fairnessHeap with a cursor, which visits employees in fairness order without removing them from the heap, and keeps the first eligible ones. This ensures that it starts with employees who have the least number of assigned shifts, and the whole batch is picked in one pass before the heap is updated.
+Availability is determined by calling canWorkShift(Shift shift, int slot) for each employee. If it returns true, the employee is considered eligible.
+Checking Work Shift Eligibility - canWorkShift(Shift shift, int slot):
+
+The business rules are ShiftConstraint objects passed to the constructor (ShiftConstraints.defaults() if none are given: day off, 12-hour rest period, maximum consecutive shifts and no overlap). They are compiled into a ConstraintChain that runs the cheapest and most selective rules first and counts the rejections of every rule.
+When not enough employees pass all of them, findEligibleEmployeesForced looks for the rest with only the hard constraints (canWorkShiftIgnoringDaysOff).
+Assigning Shift to Employee - assignShiftToEmployee(int slot, Shift shift, boolean isForced):
+
+This method takes an employee slot and a Shift object and assigns the shift to the employee.
+It records the assignment in the ScheduleState, which updates the slot's last shift end time and consecutive shift count and adds the assignment to the slot's list of assigned shifts.
+If a SchedulerListener is set it is told about the assignment (forced ones included) and, once the shift is staffed, about the positions filled, the employees checked and the time it took; see SchedulerMetrics and JfrSchedulerListener. Nothing is printed.
+After the shift is assigned, the employee's key in the fairnessHeap is incremented, which moves only that employee down the heap (O(log n)) and keeps the order accurate for subsequent assignments.
+Rolling Horizon - enableRollingHorizon() / advanceWatermark(long epochMinute):
+
+For a scheduler that keeps running, the state can be limited to a window: assignments that ended more than the look-back before the latest shift are evicted into per-employee summary counters, so memory and per-assignment cost stay flat however long it runs.
+Repairs - unassign(Employee, Shift) / addShift(Shift) / removeEmployee(Employee) / updateRoster(employees, from) / repair():
+
+Call-outs, late demand and leavers do not need a new run: they open positions, and repair() staffs only those, returning the assignments removed and added as a ScheduleDiff.
+An edited roster file is applied the same way: updateRoster matches the employees by ID and only touches the added, removed and changed ones (see RosterWatcher).
 Getting Assigned Shifts - getAssignedShifts(Employee employee):
 
 This method is not directly involved in the shift assignment process but is used to retrieve the list of shifts assigned to a specific employee. It's useful for outputting the schedule after all assignments have been made or for any other operation that requires inspection of an employee's workload.
-Refreshing the Priority Queue - refreshPriorityQueue():
-
-This method is invoked after a shift is assigned to an employee to update the shiftPriorityQueue.
-It's necessary because the priority of each employee might have changed due to the new shift assignment. The method rebuilds the queue so that it reflects the current state of shift assignments.
-This is a simple but potentially inefficient way to maintain the priority queue, as the entire structure is cleared and rebuilt. For a large number of employees or frequent updates, a different approach might be required to optimize performance.
 The class methods operate in a coordinated manner to ensure that shifts are distributed as evenly as possible according to the predefined rules of availability and fairness. The actual process of determining if an employee can work a shift (canWorkShift method) should be fleshed out with all the necessary logic specific to the application's requirements. The ShiftScheduler is a framework that can be adapted to different scheduling needs with additional logic as required.
 */
 
 
 public class ShiftScheduler {
- private Map<Employee, List<Shift>> employeeShifts = new HashMap<>();
- private PriorityQueue<Employee> shiftPriorityQueue; // Define comparator based on the least number of shifts
+ private Roster roster; // Immutable slot -> employee mapping, shareable between runs; replaced by updateRoster
+ private final ScheduleState state; // Per-run counters and assignments, indexed by slot
+ private final FairnessHeap fairnessHeap; // Ordered by the number of assigned shifts, then by slot
+ private final FairnessHeap.Cursor candidates; // Reused for every candidate search
+ private final AvailabilityIndex availability = new AvailabilityIndex(); // Prefilters candidates with bitsets
+ private final BitSet candidateSlots = new BitSet(); // Reused output of the availability index
+ private final ConstraintChain regularRules; // Every constraint, cheapest and most selective first
+ private final ConstraintChain forcedRules; // Only the hard constraints
+ private final long restPeriodMinutes; // Rest period backing the availability index, or NO_REST_PERIOD
+ private final boolean consecutiveLimit; // Whether MAX_CONSECUTIVE is enforced and saturated slots can be skipped
+ private final boolean skillsRequired; // Whether SKILLS is enforced and candidates can come from the skill index
+ private final boolean daysOffRequired; // Whether DAY_OFF is enforced and the availability index filters days off
+ private final BitSet qualifiedSlots = new BitSet(); // Reused intersection of the required skills' slots
+ private final IntList picked = new IntList(); // Slots picked for the shift being staffed, in fairness order
+ private final BitSet pickedSlots = new BitSet(); // Same slots as a set
+ private final Map<Shift, OpenShift> openShifts = new LinkedHashMap<>(); // Positions waiting for repair()
+ private final List<Assignment> removedSinceRepair = new ArrayList<>(); // Taken back since the last repair()
+ private final BitSet removedSlots = new BitSet(); // Employees taken off the schedule by removeEmployee
+ private SchedulerListener listener = SchedulerListener.NONE;
+ private boolean listening; // Whether a listener is set; nothing is timed or reported otherwise
+ private int scanned; // Eligibility checks for the shift being staffed
+ private long lookBackMinutes = NO_ROLLING_HORIZON; // History kept behind the watermark, or NO_ROLLING_HORIZON
+ private long watermark = Long.MIN_VALUE; // Start of the latest shift staffed in rolling-horizon mode
+ private static final long NO_REST_PERIOD = -1;
+ private static final long NO_ROLLING_HORIZON = -1;
+ private static final int CANDIDATE_PROBES = 64; // Heap entries probed before falling back to the full bitset
+ public static final long DEFAULT_LOOK_BACK_MINUTES = ShiftBlock.MINUTES_PER_DAY; // Covers every built-in rule
 
  public ShiftScheduler(List<Employee> employees) {
-     // Initialize priority queue with a comparator based on the number of assigned shifts
-     shiftPriorityQueue = new PriorityQueue<>(Comparator.comparingInt(e -> getAssignedShifts(e).size()));
-     shiftPriorityQueue.addAll(employees);
+     this(new Roster(employees));
+ }
+
+ public ShiftScheduler(Roster roster) {
+     this(roster, ShiftConstraints.defaults());
+ }
+
+ public ShiftScheduler(Roster roster, Collection<? extends ShiftConstraint> constraints) {
+     this(new ScheduleState(roster), constraints);
+ }
+
+ // Continues from an existing state, e.g. one restored by ScheduleSnapshot
+ ShiftScheduler(ScheduleState state, Collection<? extends ShiftConstraint> constraints) {
+     this.roster = state.roster();
+     this.state = state;
+     this.regularRules = ConstraintChain.compile(constraints);
+     this.forcedRules = ConstraintChain.compileHard(constraints);
+
+     // The availability index only prefilters for the built-in rules that are actually in use
+     this.daysOffRequired = regularRules.contains(ShiftConstraints.DAY_OFF);
+     long restMinutes = NO_REST_PERIOD;
+     for (ShiftConstraint constraint : regularRules.rules()) {
+         if (constraint instanceof ShiftConstraints.RestPeriod) {
+             restMinutes = Math.max(restMinutes, ((ShiftConstraints.RestPeriod) constraint).getMinutes());
+         }
+     }
+     this.restPeriodMinutes = restMinutes;
+     this.consecutiveLimit = forcedRules.contains(ShiftConstraints.MAX_CONSECUTIVE);
+     this.skillsRequired = forcedRules.contains(ShiftConstraints.SKILLS);
+
+     // Initialize the fairness heap; every employee starts with the shifts already in the state, usually none
+     fairnessHeap = new FairnessHeap(roster.size());
+     for (int slot = 0; slot < roster.size(); slot++) {
+         availability.add(slot, daysOffRequired ? roster.daysOffMask(slot) : 0);
+         fairnessHeap.add(slot, state.load(slot));
+         if (state.lastShiftEnd(slot) != ScheduleState.NO_SHIFT) {
+             refreshAvailability(slot);
+         }
+     }
+     candidates = fairnessHeap.cursor();
  }
  
- public void assignShifts(List<Shift> shifts) {
+ // Staffs every shift with as many employees as its headcount, regular assignments first; shifts that could not
+ // be fully staffed are listed in the returned report
+ public CoverageReport assignShifts(List<Shift> shifts) {
+	    CoverageReport report = new CoverageReport();
 	    for (Shift shift : shifts) {
-	        Optional<Employee> eligibleEmployee = findEligibleEmployeeForShift(shift);
-	        if (eligibleEmployee.isPresent()) {
-	            // Regular assignment
-	            assignShiftToEmployee(eligibleEmployee.get(), shift, false);
-	        } else {
-	            // Forced assignment as no eligible employee was found
-	            Optional<Employee> forcedEmployee = findEligibleEmployeeForced(shift);
-	            forcedEmployee.ifPresent(employee -> assignShiftToEmployee(employee, shift, true));
-	        }
+	        assignShift(shift, report);
 	    }
+	    return report;
 	}
- private Optional<Employee> findEligibleEmployeeForShift(Shift shift) {
-	    List<Employee> tempChecked = new ArrayList<>(); // Temporary storage for checked employees
-	    while (!shiftPriorityQueue.isEmpty()) {
-	        Employee employee = shiftPriorityQueue.poll(); // Retrieve and remove the head of the queue
-	        tempChecked.add(employee); // Add to temp storage
-
-	        if (employee.isAvailable(shift.getStartTime()) && canWorkShift(shift, employee)) {
-	            // Assign the shift and exit
-	            return Optional.of(employee);
-	        }
+ // Same for shifts produced lazily, e.g. by ShiftPattern.stream: every shift is staffed as soon as it is generated,
+ // so the stream is never collected. Shifts should arrive in start order.
+ public CoverageReport assignShifts(Stream<Shift> shifts) {
+	    CoverageReport report = new CoverageReport();
+	    shifts.forEachOrdered(shift -> assignShift(shift, report));
+	    return report;
+	}
+ private void assignShift(Shift shift, CoverageReport report) {
+	    if (lookBackMinutes != NO_ROLLING_HORIZON) {
+	        advanceWatermark(shift.getStartMinute());
+	    }
+	    long started = listening ? System.nanoTime() : 0;
+	    scanned = 0;
+	    int needed = shift.getHeadcount();
+	    // Regular assignments for as many of the positions as possible, picked in one pass
+	    int assigned = findEligibleEmployeesForShift(shift, needed);
+	    assignShiftToEmployees(shift, false);
+	    int forced = 0;
+	    if (assigned < needed) {
+	        // Forced assignments for the rest as no more eligible employees were found
+	        forced = findEligibleEmployeesForced(shift, needed - assigned);
+	        assignShiftToEmployees(shift, true);
+	    }
+	    report.add(shift, needed, assigned, forced);
+	    if (listening) {
+	        listener.shiftStaffed(shift, needed, assigned, forced, scanned, System.nanoTime() - started);
 	    }
+	}
+ // Collects up to needed slots in picked, in fairness order, and returns how many were found
+ private int findEligibleEmployeesForShift(Shift shift, int needed) {
+	    // Only employees working that day, rested and below their consecutive limit are worth a full check
+	    availability.advanceTo(shift.getStartMinute());
+	    picked.clear();
+	    BitSet qualified = qualifiedSlots(shift);
+	    if (qualified != null && qualified.isEmpty()) {
+	        return 0;
+	    }
+	    return pickCandidates(ShiftBlock.dayOfWeek(shift.getStartMinute()), qualified, s -> canWorkShift(shift, s), needed);
+	}
+ // Assigns the shift to every picked slot; the heap is only touched once the whole batch has been picked
+ private void assignShiftToEmployees(Shift shift, boolean isForced) {
+	    for (int i = 0; i < picked.size(); i++) {
+	        assignShiftToEmployee(picked.get(i), shift, isForced);
+	    }
+	}
+ private void assignShiftToEmployee(int slot, Shift shift, boolean isForced) {
+	    long started = listening ? System.nanoTime() : 0;
+	    // Records the shift and updates the last shift end time and the consecutive shift count
+	    state.assign(slot, shift, isForced);
+
+	    // Only this employee's load changed, so only its heap position has to be restored
+	    fairnessHeap.increment(slot);
+	    refreshAvailability(slot);
+
+	    // Forced assignments (a day off or rest period overridden due to under-staffing) are reported like any other
+	    if (listening) {
+	        listener.assigned(roster.employee(slot), shift, isForced, System.nanoTime() - started);
+	    }
+	}
+
+ // Brings the availability index in line with the slot's latest shift and run after it changed
+ private void refreshAvailability(int slot) {
+     long lastShiftEnd = state.lastShiftEnd(slot);
+     if (restPeriodMinutes != NO_REST_PERIOD) {
+         availability.markResting(slot, lastShiftEnd + restPeriodMinutes);
+     }
+     if (consecutiveLimit) {
+         // A saturated slot is out until the gap since its latest shift breaks its run
+         if (state.consecutiveShifts(slot) >= roster.maxConsecutiveShifts(slot)) {
+             availability.markSaturated(slot, lastShiftEnd + ScheduleState.RUN_BREAK_MINUTES);
+         } else {
+             availability.clearSaturated(slot);
+         }
+     }
+ }
 
-	    // Re-add all checked employees back to the queue if they weren't assigned
-	    shiftPriorityQueue.addAll(tempChecked);
+ // Slots having every skill the shift requires, or null if it requires none (or skills are not enforced)
+ private BitSet qualifiedSlots(Shift shift) {
+     Set<String> required = shift.getRequiredSkills();
+     if (!skillsRequired || required.isEmpty()) {
+         return null;
+     }
+     roster.qualifiedSlots(required, qualifiedSlots);
+     return qualifiedSlots;
+ }
 
-	    System.out.println("No eligible employee found for shift starting at " + shift.getStartTime());
-	    return Optional.empty();
-	}
- private void assignShiftToEmployee(Employee employee, Shift shift, boolean isForced) {
-	    List<Shift> assignedShifts = employeeShifts.computeIfAbsent(employee, k -> new ArrayList<>());
-	    assignedShifts.add(shift);
-
-	    // Update the employee's last shift end time and reset consecutive shift count if needed
-	    employee.setLastShiftEndTime(shift.getEndTime()); // Correctly updates last shift end time
-	    if(employee.getCurrentConsecutiveShiftCount() >= employee.getMaxConsecutiveShifts()) {
-	        employee.setCurrentConsecutiveShiftCount(0); // Resets the shift count
-	    } else {
-	        employee.setCurrentConsecutiveShiftCount(employee.getCurrentConsecutiveShiftCount() + 1);
+ // Adds to picked the first slots in fairness order (up to needed of them) that pass the availability index (for
+ // the given day, or for a forced assignment when day is null), hold the required skills (all slots when qualified
+ // is null) and pass the eligibility test; returns how many were added
+ private int pickCandidates(DayOfWeek day, BitSet qualified, IntPredicate eligible, int needed) {
+	    pickedSlots.clear();
+	    // Usually the least loaded employees fit, so probe the heap order first with O(1) bit tests.
+	    // Shifts needing skills skip this: only the qualified slots are worth looking at.
+	    candidates.reset();
+	    int probes = qualified == null ? CANDIDATE_PROBES + needed : 0;
+	    for (int probe = 0; probe < probes; probe++) {
+	        if (!candidates.hasNext()) {
+	            return picked.size();
+	        }
+	        int s = candidates.next();
+	        if (isCandidate(s, day) && eligible.test(s) && pick(s, needed)) {
+	            return picked.size();
+	        }
 	    }
 
-	    // Add a note to the shift if it's forced due to under-staffing.
-	    if (isForced) {
-	        System.out.println("Note: " + employee.getName() + " was forced to work on " + shift.getStartTime().getDayOfWeek() + " or during rest period for shift: " + shift);
+	    // Candidates are scarce: compute all of them with word-wise operations on the availability bitsets
+	    BitSet candidateSet = day == null
+	            ? availability.forcedCandidates(candidateSlots)
+	            : availability.regularCandidates(day, candidateSlots);
+	    if (qualified != null) {
+	        candidateSet.and(qualified);
+	    }
+	    candidateSet.andNot(pickedSlots);
+	    int count = candidateSet.cardinality();
+	    if (count == 0) {
+	        return picked.size();
 	    }
+	    if ((long) count * count < fairnessHeap.size()) {
+	        // Few candidates: sort just those by (assigned shifts, slot) and test them in that order
+	        long[] ordered = new long[count];
+	        int n = 0;
+	        for (int s = candidateSet.nextSetBit(0); s >= 0; s = candidateSet.nextSetBit(s + 1)) {
+	            ordered[n++] = (long) fairnessHeap.key(s) << 32 | s;
+	        }
+	        Arrays.sort(ordered);
+	        for (long entry : ordered) {
+	            int s = (int) entry;
+	            if (eligible.test(s) && pick(s, needed)) {
+	                break;
+	            }
+	        }
+	        return picked.size();
+	    }
+	    // Still many candidates: keep walking the heap in order, skipping slots outside the set
+	    while (candidates.hasNext()) {
+	        int s = candidates.next();
+	        if (candidateSet.get(s) && eligible.test(s) && pick(s, needed)) {
+	            break;
+	        }
+	    }
+	    return picked.size();
+	}
+
+ // Adds the slot to the batch; true once the batch is full
+ private boolean pick(int slot, int needed) {
+	    picked.add(slot);
+	    pickedSlots.set(slot);
+	    return picked.size() >= needed;
+	}
 
-	    refreshPriorityQueue();
+ private boolean isCandidate(int slot, DayOfWeek day) {
+	    return day == null ? availability.isForcedCandidate(slot) : availability.isRegularCandidate(slot, day);
 	}
 
- private List<Shift> getAssignedShifts(Employee employee) {
-     return employeeShifts.getOrDefault(employee, Collections.emptyList());
+ // Assigns the shift to an employee chosen by another solver, e.g. FlowScheduler, if the rules still allow it: all of
+ // them, or the hard ones when isForced. Returns false, leaving the schedule unchanged, if they do not.
+ boolean place(int slot, Shift shift, boolean isForced) {
+     if (removedSlots.get(slot)) {
+         return false;
+     }
+     if (canWorkShift(shift, slot)) {
+         assignShiftToEmployee(slot, shift, false);
+     } else if (isForced && canWorkShiftIgnoringDaysOff(shift, slot)) {
+         assignShiftToEmployee(slot, shift, true);
+     } else {
+         return false;
+     }
+     return true;
  }
 
- private void refreshPriorityQueue() {
-	    // This list will hold the employees temporarily while the priority queue is being refreshed.
-	    List<Employee> employees = new ArrayList<>(shiftPriorityQueue);
+ // Moves an assignment to another employee without opening a position, for optimizers that checked the rules
+ // themselves (e.g. LocalSearchOptimizer); returns the ID of the new assignment
+ int reassign(int assignment, int slot, boolean isForced) {
+     Shift shift = state.shift(assignment);
+     release(assignment);
+     assignShiftToEmployee(slot, shift, isForced);
+     return state.assignmentCount() - 1;
+ }
 
-	    // Clear the existing priority queue
-	    shiftPriorityQueue.clear();
+ // Takes an assignment back without opening a position, because someone outside this scheduler works the shift
+ // instead (e.g. a floater placed by MultiLocationScheduler)
+ void release(int assignment) {
+     int from = state.assignee(assignment);
+     state.unassign(assignment);
+     if (!removedSlots.get(from)) {
+         fairnessHeap.decrement(from);
+         refreshAvailability(from);
+     }
+ }
 
-	    // Re-add all employees to the priority queue which will reorder them based on the comparator defined in the priority queue's constructor.
-	    shiftPriorityQueue.addAll(employees);
-	}
+ // Leaves positions of the shift to the next repair()
+ void openPositions(Shift shift, int positions) {
+     openPosition(shift, positions);
+ }
 
- private boolean canWorkShift(Shift shift, Employee employee) {
-	    // Check if the employee has reached the maximum number of consecutive shifts
-	    if (employee.getCurrentConsecutiveShiftCount() >= employee.getMaxConsecutiveShifts()) {
-	        return false;
-	    }
+ // Employees taken off by removeEmployee, as roster slots
+ BitSet removedSlots() {
+     return removedSlots;
+ }
 
-	    // Check if the shift overlaps with any shifts the employee is already assigned to
-	    for (Shift assignedShift : getAssignedShifts(employee)) {
-	        if (shift.getStartTime().isBefore(assignedShift.getEndTime()) && shift.getEndTime().isAfter(assignedShift.getStartTime())) {
-	            return false; // Shift overlaps, so the employee cannot work this shift
-	        }
-	    }
+ boolean hasOpenPositions() {
+     return !openShifts.isEmpty();
+ }
 
-	    // Add any other conditions you need to check before confirming an employee can work a shift
-	    // For example, qualifications, preferences, etc.
+ // History kept behind the watermark in rolling-horizon mode, or -1
+ long lookBackMinutes() {
+     return lookBackMinutes;
+ }
 
-	    return true; // If none of the conditions fail, the employee can work the shift
-	}
- 
- public static List<Shift> generateShiftTemplates(LocalDateTime scheduleStart, LocalDateTime scheduleEnd, int shiftDurationHours) {
-     List<Shift> shifts = new ArrayList<>();
+ // Restores what removeEmployee and the rolling horizon left behind, for a scheduler built on a restored state
+ void restore(BitSet removed, long lookBackMinutes, long watermark) {
+     for (int slot = removed.nextSetBit(0); slot >= 0; slot = removed.nextSetBit(slot + 1)) {
+         removedSlots.set(slot);
+         fairnessHeap.remove(slot);
+         availability.remove(slot);
+     }
+     this.lookBackMinutes = lookBackMinutes;
+     this.watermark = watermark;
+ }
+
+ // Takes the shift away from the employee, e.g. after a call-out, and opens the position for the next repair();
+ // the employee will not be picked for it again. Returns false if the employee does not hold the shift.
+ public boolean unassign(Employee employee, Shift shift) {
+     int slot = slotOf(employee);
+     int assignment = state.assignmentOf(slot, shift);
+     if (assignment < 0) {
+         return false;
+     }
+     takeBack(slot, assignment);
+     return true;
+ }
 
-     // Ensure that the schedule start time is before the end time and shift duration is positive.
-     if (scheduleStart.isAfter(scheduleEnd) || shiftDurationHours <= 0) {
-         throw new IllegalArgumentException("Invalid schedule start/end time or shift duration.");
+ // Demand that came in after the schedule was made; it is staffed by the next repair()
+ public void addShift(Shift shift) {
+     if (lookBackMinutes != NO_ROLLING_HORIZON && watermark != Long.MIN_VALUE
+             && shift.getStartMinute() < watermark - lookBackMinutes) {
+         throw new IllegalArgumentException("Shift " + shift + " starts before the retained history");
      }
+     openPosition(shift, shift.getHeadcount());
+ }
 
-     LocalDateTime shiftStart = scheduleStart;
-     // Generate shifts until the entire schedule period is covered.
-     while (shiftStart.isBefore(scheduleEnd)) {
-         // Calculate the end time for this shift. It's the start time plus the shift duration.
-         LocalDateTime shiftEnd = shiftStart.plusHours(shiftDurationHours);
+ // Takes the employee off the schedule: every shift they hold starting at or after from is opened for the next
+ // repair(), and they are never picked again
+ public void removeEmployee(Employee employee, LocalDateTime from) {
+     removeEmployee(slotOf(employee), ShiftBlock.toEpochMinute(from));
+ }
+
+ public void removeEmployee(Employee employee) {
+     removeEmployee(slotOf(employee), Long.MIN_VALUE);
+ }
 
-         // If the calculated end time is after the schedule end time, adjust it to the schedule end time.
-         if (shiftEnd.isAfter(scheduleEnd)) {
-             shiftEnd = scheduleEnd;
+ private void removeEmployee(int slot, long fromMinute) {
+     List<Shift> held = new ArrayList<>(state.assignedShifts(slot));
+     for (Shift shift : held) {
+         if (shift.getStartMinute() >= fromMinute) {
+             takeBack(slot, state.assignmentOf(slot, shift));
          }
+     }
+     removedSlots.set(slot);
+     fairnessHeap.remove(slot);
+     availability.remove(slot);
+ }
 
-         // Create a new shift with the calculated start and end time.
-         Shift shift = new Shift(null, shiftStart.toString(), shiftEnd.toString()); // Shift ID is null for a template.
-         shifts.add(shift); // Add to the shifts list
+ // Applies an edited roster, e.g. the roster file read again (see RosterWatcher), to the schedule. Employees are
+ // matched by ID: new IDs get new slots, missing IDs are removed like removeEmployee(employee, from), and employees
+ // whose name, days off, maximum run or skills changed get their slot updated in place. Of a changed employee's
+ // shifts starting at or after from, those the new record no longer allows (a regular shift on a new day off, a
+ // shift needing a lost skill, a run now too long) are opened for the next repair(); everything else stays.
+ // Unchanged employees are not touched, so apart from matching the IDs and copying the roster's slot arrays (see
+ // Roster.withChanges) the cost depends on the size of the edit, not of the roster or schedule.
+ public RosterUpdate updateRoster(Collection<? extends Employee> employees, LocalDateTime from) {
+     long fromMinute = ShiftBlock.toEpochMinute(from);
+     Map<String, Integer> current = new HashMap<>(roster.size() * 2);
+     for (int slot = 0; slot < roster.size(); slot++) {
+         if (!removedSlots.get(slot) && current.put(roster.employee(slot).getId(), slot) != null) {
+             throw new IllegalStateException("Employee ID " + roster.employee(slot).getId() + " is on the roster twice");
+         }
+     }
+     // Diff everything before changing anything
+     Map<Integer, Employee> changed = new LinkedHashMap<>();
+     List<Employee> added = new ArrayList<>();
+     Set<String> listed = new HashSet<>(employees.size() * 2);
+     for (Employee employee : employees) {
+         if (!listed.add(employee.getId())) {
+             throw new IllegalArgumentException("Employee ID " + employee.getId() + " is listed twice");
+         }
+         Integer slot = current.remove(employee.getId());
+         if (slot == null) {
+             added.add(employee);
+         } else if (!sameRecord(roster.employee(slot), employee)) {
+             changed.put(slot, employee);
+         }
+     }
+     int[] gone = current.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+
+     RosterUpdate update = new RosterUpdate();
+     int opened = removedSinceRepair.size();
+     if (!changed.isEmpty() || !added.isEmpty()) {
+         int previous = roster.size();
+         roster = roster.withChanges(changed, added);
+         state.updateRoster(roster);
+         for (int slot = previous; slot < roster.size(); slot++) {
+             availability.add(slot, daysOffRequired ? roster.daysOffMask(slot) : 0);
+             fairnessHeap.add(slot, 0);
+             update.added(roster.employee(slot));
+         }
+         for (int slot : changed.keySet()) {
+             availability.add(slot, daysOffRequired ? roster.daysOffMask(slot) : 0);
+             takeBackDisallowed(slot, fromMinute);
+             if (state.lastShiftEnd(slot) != ScheduleState.NO_SHIFT) {
+                 refreshAvailability(slot); // The maximum run may have changed
+             }
+             update.changed(roster.employee(slot));
+         }
+     }
+     for (int slot : gone) {
+         update.removed(roster.employee(slot));
+         removeEmployee(slot, fromMinute);
+     }
+     update.positionsOpened(removedSinceRepair.size() - opened);
+     return update;
+ }
+
+ private static boolean sameRecord(Employee a, Employee b) {
+     return Objects.equals(a.getName(), b.getName())
+             && Roster.daysOffMask(a.getDaysOff()) == Roster.daysOffMask(b.getDaysOff())
+             && a.getMaxConsecutiveShifts() == b.getMaxConsecutiveShifts()
+             && a.getSkills().equals(b.getSkills());
+ }
 
-         // Prepare for the next shift, ensuring it starts immediately after the current shift ends.
-         shiftStart = shiftEnd;
+ // Takes back the slot's shifts starting at or after fromMinute that its roster record no longer allows, in start
+ // order, so a run that became too long loses its latest shifts
+ private void takeBackDisallowed(int slot, long fromMinute) {
+     IntList ids = state.assignmentIds(slot);
+     int[] held = new int[ids.size()]; // Copied, taking back changes the list
+     long[] starts = new long[held.length];
+     for (int i = 0; i < held.length; i++) {
+         held[i] = ids.get(i);
+         starts[i] = state.shift(held[i]).getStartMinute();
      }
+     int maxRun = roster.maxConsecutiveShifts(slot);
+     long runEnd = state.evictedRunEnd(slot); // Latest end of the run so far, or NO_SHIFT
+     int run = state.evictedRun(slot);
+     for (long key : StartOrder.byStart(starts, held.length)) {
+         int assignment = held[StartOrder.entry(key)];
+         Shift shift = state.shift(assignment);
+         long start = shift.getStartMinute();
+         int length = runEnd != ScheduleState.NO_SHIFT && start - runEnd < ScheduleState.RUN_BREAK_MINUTES ? run + 1 : 1;
+         boolean allowed = (!skillsRequired || roster.hasSkills(slot, shift.getRequiredSkills()))
+                 && (!consecutiveLimit || length <= maxRun)
+                 && (!daysOffRequired || state.isForced(assignment) || !roster.isDayOff(slot, ShiftBlock.dayOfWeek(start)));
+         if (start >= fromMinute && !allowed) {
+             takeBack(slot, assignment);
+         } else {
+             run = length;
+             runEnd = Math.max(runEnd, shift.getEndMinute());
+         }
+     }
+ }
 
-     return shifts; // Return the generated list of shifts
+ // Staffs the positions opened since the last repair (call-outs, removed employees, added shifts) in start order,
+ // leaving every other assignment as it is. Only the open shifts are searched, and the constraints check them
+ // against the neighbouring shifts of each candidate, so the cost does not depend on the schedule's length.
+ // Positions that still cannot be staffed are reported in the diff's coverage and dropped.
+ public ScheduleDiff repair() {
+     ScheduleDiff diff = new ScheduleDiff(new ArrayList<>(removedSinceRepair));
+     removedSinceRepair.clear();
+     List<OpenShift> open = new ArrayList<>(openShifts.values());
+     openShifts.clear();
+     open.sort(Comparator.comparingLong(o -> o.shift.getStartMinute()));
+
+     for (OpenShift position : open) {
+         long started = listening ? System.nanoTime() : 0;
+         scanned = 0;
+         Shift shift = position.shift;
+         BitSet qualified = qualifiedSlots(shift);
+         int assigned = 0;
+         int forced = 0;
+         if (qualified == null || !qualified.isEmpty()) {
+             assigned = pickAnywhere(ShiftBlock.dayOfWeek(shift.getStartMinute()), qualified, position.excluded, s -> canWorkShift(shift, s), position.missing);
+             repairWith(shift, false, diff);
+             if (assigned < position.missing) {
+                 forced = pickAnywhere(null, qualified, position.excluded, s -> canWorkShiftIgnoringDaysOff(shift, s),
+                         position.missing - assigned);
+                 repairWith(shift, true, diff);
+             }
+         }
+         diff.getCoverage().add(shift, position.missing, assigned, forced);
+         if (listening) {
+             listener.shiftStaffed(shift, position.missing, assigned, forced, scanned, System.nanoTime() - started);
+         }
+     }
+     return diff;
+ }
+
+ private void repairWith(Shift shift, boolean isForced, ScheduleDiff diff) {
+     for (int i = 0; i < picked.size(); i++) {
+         int slot = picked.get(i);
+         assignShiftToEmployee(slot, shift, isForced);
+         diff.add(new Assignment(roster.employee(slot), shift, isForced));
+     }
  }
+
+ // Candidate search for repairs, in fairness order like pickCandidates. The rest and run bitsets of the availability
+ // index only describe the latest shift of every employee, which says nothing about a shift between existing ones,
+ // so only the days off prefilter the candidates (day is null for forced assignments) and the rest is left to the
+ // full checks.
+ private int pickAnywhere(DayOfWeek day, BitSet qualified, BitSet excluded, IntPredicate eligible, int needed) {
+     picked.clear();
+     pickedSlots.clear();
+     candidates.reset();
+     for (int probe = 0; probe < CANDIDATE_PROBES + needed && candidates.hasNext(); probe++) {
+         int s = candidates.next();
+         if ((qualified == null || qualified.get(s)) && !excluded.get(s) && eligible.test(s) && pick(s, needed)) {
+             return picked.size();
+         }
+     }
+
+     BitSet candidateSet = availability.present(day, candidateSlots);
+     if (qualified != null) {
+         candidateSet.and(qualified);
+     }
+     candidateSet.andNot(excluded);
+     candidateSet.andNot(pickedSlots);
+     long[] ordered = new long[candidateSet.cardinality()];
+     int n = 0;
+     for (int s = candidateSet.nextSetBit(0); s >= 0; s = candidateSet.nextSetBit(s + 1)) {
+         ordered[n++] = (long) fairnessHeap.key(s) << 32 | s;
+     }
+     Arrays.sort(ordered);
+     for (long entry : ordered) {
+         int s = (int) entry;
+         if (eligible.test(s) && pick(s, needed)) {
+             break;
+         }
+     }
+     return picked.size();
+ }
+
+ private void takeBack(int slot, int assignment) {
+     Shift shift = state.shift(assignment);
+     removedSinceRepair.add(new Assignment(roster.employee(slot), shift, state.isForced(assignment)));
+     state.unassign(assignment);
+     if (!removedSlots.get(slot)) {
+         fairnessHeap.decrement(slot);
+         refreshAvailability(slot);
+     }
+     openPosition(shift, 1).excluded.set(slot);
+ }
+
+ private OpenShift openPosition(Shift shift, int positions) {
+     OpenShift position = openShifts.computeIfAbsent(shift, OpenShift::new);
+     position.missing += positions;
+     return position;
+ }
+
+ private int slotOf(Employee employee) {
+     int slot = roster.slotOf(employee);
+     if (slot < 0) {
+         throw new IllegalArgumentException("Employee " + employee.getId() + " is not on the roster");
+     }
+     return slot;
+ }
+
+ // A shift with positions to staff in the next repair, and the employees that must not get it
+ private static final class OpenShift {
+     final Shift shift;
+     final BitSet excluded = new BitSet();
+     int missing;
+
+     OpenShift(Shift shift) {
+         this.shift = shift;
+     }
+ }
+
+ // Rolling-horizon mode for a scheduler that runs indefinitely: every shift staffed from now on moves the watermark
+ // to its start, and assignments that ended more than the look-back before the watermark are evicted from the state
+ // into per-employee summary counters (ScheduleState.evictedShifts etc.). Memory and assignment latency then depend
+ // on the look-back window rather than on the whole history. Shifts must arrive in start order; a shift starting
+ // before the watermark is rejected. The default look-back covers the built-in rules; constraints that look
+ // further into the past need a longer one.
+ public void enableRollingHorizon() {
+     enableRollingHorizon(DEFAULT_LOOK_BACK_MINUTES);
+ }
+
+ public void enableRollingHorizon(long lookBackMinutes) {
+     if (lookBackMinutes < 0) {
+         throw new IllegalArgumentException("Look-back must not be negative: " + lookBackMinutes);
+     }
+     // Never shorter than the rest period, or the rest rule would miss shifts it has to see
+     this.lookBackMinutes = Math.max(lookBackMinutes, Math.max(restPeriodMinutes, 0));
+ }
+
+ public boolean isRollingHorizon() {
+     return lookBackMinutes != NO_ROLLING_HORIZON;
+ }
+
+ // Moves the watermark forward and evicts what fell out of the window; returns the number of evicted assignments.
+ // Only needed to evict during idle periods: in rolling-horizon mode assignShifts moves the watermark itself.
+ public int advanceWatermark(long epochMinute) {
+     if (lookBackMinutes == NO_ROLLING_HORIZON) {
+         throw new IllegalStateException("Rolling horizon is not enabled");
+     }
+     if (epochMinute < watermark) {
+         throw new IllegalArgumentException("Cannot move the watermark back from "
+                 + ShiftBlock.toLocalDateTime(watermark) + " to " + ShiftBlock.toLocalDateTime(epochMinute));
+     }
+     watermark = epochMinute;
+     return state.evict(watermark, lookBackMinutes);
+ }
+
+ // Epoch minute up to which history may have been evicted, or Long.MIN_VALUE
+ public long getWatermark() {
+     return watermark;
+ }
+
+ // In rolling-horizon mode only the shifts not evicted yet
+ public List<Shift> getAssignedShifts(Employee employee) {
+     return state.assignedShifts(employee);
+ }
+
+ // Receives an event for every assignment and staffed shift, e.g. SchedulerMetrics or JfrSchedulerListener;
+ // null removes the listener. Without one the scheduler does no timing or reporting at all.
+ public void setListener(SchedulerListener listener) {
+     this.listener = listener == null ? SchedulerListener.NONE : listener;
+     this.listening = listener != null && listener != SchedulerListener.NONE;
+ }
+
+ public SchedulerListener getListener() {
+     return listener;
+ }
+
+ // Counters and assignments of this run, indexed by the roster's slots
+ public ScheduleState getState() {
+     return state;
+ }
+
+ // Constraint chains used for regular and forced assignments, with their per-rule rejection counters
+ public ConstraintChain getRegularConstraints() {
+     return regularRules;
+ }
+
+ public ConstraintChain getForcedConstraints() {
+     return forcedRules;
+ }
+
+ private boolean canWorkShift(Shift shift, int slot) {
+	    // Day off, rest period, consecutive shifts, overlap and any custom constraints, cheapest and most selective first
+	    scanned++;
+	    return regularRules.test(state, slot, shift);
+	}
+ 
+ public static List<Shift> generateShiftTemplates(LocalDateTime scheduleStart, LocalDateTime scheduleEnd, int shiftDurationHours) {
+     // Shifts are generated as epoch minutes into a ShiftBlock; the returned list holds flyweight views over it and
+     // is an ArrayList the caller may add to, remove from or sort (use ShiftBlock.generate directly to skip the copy).
+     // Shift IDs are null for templates. Invalid arguments are rejected with an IllegalArgumentException.
+     return new ArrayList<>(ShiftBlock.generate(scheduleStart, scheduleEnd, shiftDurationHours).asList());
+ }
+ 
  
  
 
  
  
- private Optional<Employee> findEligibleEmployeeForced(Shift shift) {
-	    // This will stream over the employees to find one that can be forced to take the shift due to understaffing.
+ private int findEligibleEmployeesForced(Shift shift, int needed) {
+	    // This will look for the least loaded employees that can be forced to take the shift due to understaffing.
 	    // It ignores the day-off restriction but still prevents shift overlap.
-	    return shiftPriorityQueue.stream()
-	            .filter(e -> canWorkShiftIgnoringDaysOff(shift, e))
-	            .findFirst();
+	    picked.clear();
+	    BitSet qualified = qualifiedSlots(shift);
+	    if (qualified != null && qualified.isEmpty()) {
+	        return 0; // Nobody has the skills; skills are never overridden
+	    }
+	    return pickCandidates(null, qualified, s -> canWorkShiftIgnoringDaysOff(shift, s), needed);
 	}
  
- private boolean canWorkShiftIgnoringDaysOff(Shift shift, Employee employee) {
-	    // This method ignores the day off but still checks for shift overlap and maximum consecutive shifts.
-	    boolean exceedsConsecutiveShifts = employee.getCurrentConsecutiveShiftCount() >= employee.getMaxConsecutiveShifts();
-	    boolean hasShiftOverlap = employeeShifts.getOrDefault(employee, Collections.emptyList()).stream()
-	            .anyMatch(existingShift -> shift.getStartTime().isBefore(existingShift.getEndTime()) && shift.getEndTime().isAfter(existingShift.getStartTime()));
-	    
-	    return !exceedsConsecutiveShifts && !hasShiftOverlap;
+ private boolean canWorkShiftIgnoringDaysOff(Shift shift, int slot) {
+	    // Only the hard constraints: the day off and the rest period are ignored, overlap and maximum consecutive shifts are not.
+	    scanned++;
+	    return forcedRules.test(state, slot, shift);
 	}
 
 public static void main(String[] args) {
@@ -238,20 +762,13 @@ public static void main(String[] args) {
 
         // Create a shift scheduler and assign shifts
         ShiftScheduler scheduler = new ShiftScheduler(employees);
-        scheduler.assignShifts(shifts);
-        for (Shift shift : shifts) {
-            System.out.println(shift);
-        }
-        // Output the schedule
-        for (Employee employee : employees) {
-        	System.out.println(employee.getDaysOff());
-            List<Shift> assignedShifts = scheduler.getAssignedShifts(employee);
-            System.out.println(employee.getName() + " is assigned to the following shifts:");
-            for (Shift assignedShift : assignedShifts) {
-                System.out.println(assignedShift);
-            }
-            System.out.println(); // Print a newline for better readability
+        CoverageReport coverage = scheduler.assignShifts(shifts);
+        System.out.println(coverage);
+        for (CoverageReport.ShiftCoverage shortShift : coverage.getUnderCovered()) {
+            System.out.println("Under-covered: " + shortShift);
         }
+        // Output the schedule, one CSV record per assignment, by employee
+        new ScheduleExporter(scheduler).export(System.out, ScheduleExporter.Format.CSV, ScheduleExporter.Order.EMPLOYEE);
     } catch (IOException e) {
         e.printStackTrace();
     }
@@ -0,0 +1,67 @@
+package functionality;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/*
+ * Orders entries (e.g. assignments) by start time, overall or per slot, without building a list per slot. Every
+ * entry becomes a long key packing its start, relative to the earliest one, above its index, so sorting the keys
+ * sorts by start and then by index, and the index is read back with entry(key). Grouping by slot is a counting
+ * sort of the keys into one array, after which every slot's range is sorted on its own, in parallel.
+ */
+final class StartOrder {
+
+    private StartOrder() {
+    }
+
+    // Keys of the entries 0..size-1 in start order
+    static long[] byStart(long[] starts, int size) {
+        long[] keys = keys(starts, size);
+        Arrays.parallelSort(keys);
+        return keys;
+    }
+
+    // Keys of the entries 0..size-1 by slot and then by start; slot s gets keys[offsets[s]..offsets[s + 1]), with
+    // offsets of length slotCount + 1
+    static long[] bySlot(int[] slots, long[] starts, int size, int[] offsets) {
+        int slotCount = offsets.length - 1;
+        Arrays.fill(offsets, 0);
+        for (int i = 0; i < size; i++) {
+            offsets[slots[i] + 1]++;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            offsets[slot + 1] += offsets[slot];
+        }
+        long[] unsorted = keys(starts, size);
+        long[] keys = new long[size];
+        int[] fill = Arrays.copyOf(offsets, slotCount);
+        for (int i = 0; i < size; i++) {
+            keys[fill[slots[i]]++] = unsorted[i];
+        }
+        IntStream.range(0, slotCount).parallel()
+                .filter(slot -> offsets[slot + 1] - offsets[slot] > 1)
+                .forEach(slot -> Arrays.sort(keys, offsets[slot], offsets[slot + 1]));
+        return keys;
+    }
+
+    static int entry(long key) {
+        return (int) key;
+    }
+
+    private static long[] keys(long[] starts, int size) {
+        long minStart = Long.MAX_VALUE;
+        long maxStart = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minStart = Math.min(minStart, starts[i]);
+            maxStart = Math.max(maxStart, starts[i]);
+        }
+        if (size > 0 && maxStart - minStart >= 1L << 31) {
+            throw new IllegalArgumentException("Schedule spans 2^31 minutes or more");
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (starts[i] - minStart) << 32 | i;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,52 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import core.Employee;
+import core.Shift;
+
+/*
+ * One location of a MultiLocationScheduler: its own employees and the shifts it needs staffed, each with its
+ * headcount. A store is only input; it is solved on its own (see LocationCoordinator), so its shifts and employees
+ * must not be shared with other stores.
+ */
+public final class Store {
+
+    private final String id;
+    private final List<Employee> employees;
+    private final List<Shift> shifts;
+
+    public Store(String id, List<? extends Employee> employees, List<Shift> shifts) {
+        this.id = id;
+        this.employees = Collections.unmodifiableList(new ArrayList<>(employees));
+        this.shifts = Collections.unmodifiableList(new ArrayList<>(shifts));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public List<Shift> getShifts() {
+        return shifts;
+    }
+
+    // Sum of the headcounts, a rough measure of how long the store takes to solve
+    long positions() {
+        long positions = 0;
+        for (Shift shift : shifts) {
+            positions += shift.getHeadcount();
+        }
+        return positions;
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + employees.size() + " employees, " + shifts.size() + " shifts)";
+    }
+}
@@ -0,0 +1,65 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Schedule of one store of a MultiLocationScheduler: the scheduler that staffed it with its own employees, and
+ * what the reconciliation phase changed, i.e. the floaters placed on its shifts and the forced assignments of its
+ * own employees that a floater took over. The coverage counts both, so it describes the store as published.
+ */
+public final class StoreSchedule {
+
+    private final Store store;
+    private final ShiftScheduler scheduler;
+    private CoverageReport coverage;
+    private final List<Assignment> floaterAssignments = new ArrayList<>();
+    private final List<Assignment> released = new ArrayList<>();
+
+    StoreSchedule(Store store, ShiftScheduler scheduler, CoverageReport coverage) {
+        this.store = store;
+        this.scheduler = scheduler;
+        this.coverage = coverage;
+    }
+
+    public Store getStore() {
+        return store;
+    }
+
+    // Assignments of the store's own employees
+    public ShiftScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public CoverageReport getCoverage() {
+        return coverage;
+    }
+
+    // Floaters working the store's shifts, in the order they were placed
+    public List<Assignment> getFloaterAssignments() {
+        return Collections.unmodifiableList(floaterAssignments);
+    }
+
+    // Forced assignments of the store's employees handed to floaters; no longer in the scheduler
+    public List<Assignment> getReleased() {
+        return Collections.unmodifiableList(released);
+    }
+
+    void setCoverage(CoverageReport coverage) {
+        this.coverage = coverage;
+    }
+
+    void addFloaterAssignment(Assignment assignment) {
+        floaterAssignments.add(assignment);
+    }
+
+    void addReleased(Assignment assignment) {
+        released.add(assignment);
+    }
+
+    @Override
+    public String toString() {
+        return store.getId() + ": " + coverage + ", " + floaterAssignments.size() + " floater assignments";
+    }
+}
@@ -0,0 +1,117 @@
+package functionality;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import core.Employee;
+import core.Shift;
+
+/*
+ * Outcome of ScheduleValidator: every rule a published schedule breaks, ordered by employee (roster order) and then
+ * by shift start. Forced assignments may use a day off or cut a rest period short; that is what forcing means, so
+ * they are not violations. Overlaps, runs above an employee's maximum and missing skills always are.
+ */
+public final class ValidationReport {
+
+    private final List<Violation> violations;
+    private final Map<Violation.Type, Integer> counts = new EnumMap<>(Violation.Type.class);
+    private final long assignments;
+    private final int employees;
+
+    ValidationReport(List<Violation> violations, long assignments, int employees) {
+        this.violations = violations;
+        this.assignments = assignments;
+        this.employees = employees;
+        for (Violation violation : violations) {
+            counts.merge(violation.getType(), 1, Integer::sum);
+        }
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    public List<Violation> getViolations() {
+        return Collections.unmodifiableList(violations);
+    }
+
+    public int count(Violation.Type type) {
+        return counts.getOrDefault(type, 0);
+    }
+
+    // Assignments checked
+    public long getAssignments() {
+        return assignments;
+    }
+
+    // Employees with at least one assignment
+    public int getEmployees() {
+        return employees;
+    }
+
+    @Override
+    public String toString() {
+        return assignments + " assignments of " + employees + " employees checked, " + violations.size()
+                + " violations" + (counts.isEmpty() ? "" : " " + counts);
+    }
+
+    public static final class Violation {
+
+        public enum Type {
+            OVERLAP, REST_PERIOD, MAX_CONSECUTIVE, DAY_OFF, SKILLS
+        }
+
+        private final Type type;
+        private final Employee employee;
+        private final Shift shift;
+        private final Shift other;
+        private final long amount;
+
+        Violation(Type type, Employee employee, Shift shift, Shift other, long amount) {
+            this.type = type;
+            this.employee = employee;
+            this.shift = shift;
+            this.other = other;
+            this.amount = amount;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public Employee getEmployee() {
+            return employee;
+        }
+
+        // The offending shift: the later one of an overlap or short rest, the one that makes a run too long
+        public Shift getShift() {
+            return shift;
+        }
+
+        // The earlier shift of an overlap or short rest, null for the other types
+        public Shift getOther() {
+            return other;
+        }
+
+        // Minutes of rest for REST_PERIOD, minutes overlapping for OVERLAP, the run length for MAX_CONSECUTIVE, 0
+        // otherwise
+        public long getAmount() {
+            return amount;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder().append(employee.getId()).append(": ").append(type);
+            text.append(" at ").append(shift);
+            if (other != null) {
+                text.append(" after ").append(other);
+            }
+            if (amount != 0) {
+                text.append(" (").append(amount).append(')');
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.pacifictrout.lemurshift;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import core.CSVUtils;
+import core.Employee;
+import core.Shift;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the synthetic roster and demand generator.
+ */
+public class GenerateTest extends TestCase
+{
+    public void testSameSeedGivesSameFiles() throws IOException
+    {
+        assertEquals( roster( 500, 7 ), roster( 500, 7 ) );
+        assertFalse( roster( 500, 7 ).equals( roster( 500, 8 ) ) );
+    }
+
+    public void testRosterAndDemandParseBack() throws IOException
+    {
+        List<Employee> employees = new ArrayList<>();
+        CSVUtils.forEachEmployeeInCSV( new StringReader( roster( 1000, 1 ) ), "Employee ID", "First Name", "Last Name", employees::add );
+        assertEquals( 1000, employees.size() );
+        for ( Employee employee : employees )
+        {
+            int daysOff = employee.getDaysOff().size();
+            assertTrue( daysOff >= 1 && daysOff <= 4 );
+            assertTrue( employee.getMaxConsecutiveShifts() >= 3 && employee.getMaxConsecutiveShifts() <= 6 );
+        }
+
+        StringWriter demand = new StringWriter();
+        Generate.writeDemand( demand, 100, LocalDate.of( 2024, 1, 1 ), 7, 1 );
+        List<Shift> shifts = new ArrayList<>();
+        CSVUtils.forEachShiftInCSV( new StringReader( demand.toString() ), shifts::add );
+        // Roughly 100 * 5/7 * 0.85 people a weekday, less at the weekend
+        assertTrue( shifts.size() > 300 && shifts.size() < 500 );
+        assertEquals( "2024-01-01-1-1", shifts.get( 0 ).getId() );
+        assertEquals( 8, java.time.Duration.between( shifts.get( 0 ).getStartTime(), shifts.get( 0 ).getEndTime() ).toHours() );
+    }
+
+    private static String roster( int employees, long seed ) throws IOException
+    {
+        StringWriter writer = new StringWriter();
+        Generate.writeRoster( writer, employees, seed );
+        return writer.toString();
+    }
+}
@@ -0,0 +1,190 @@
+package core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the CSV record reader and the roster parsers built on it.
+ */
+public class CSVUtilsTest extends TestCase
+{
+    public void testQuotedFieldsEscapedQuotesAndLineBreaks() throws IOException
+    {
+        String csv = "a,\"b,c\",\"say \"\"hi\"\"\"\r\n"
+                + "\"multi\nline\",,last\r"
+                + "x\n"
+                + "\"trailing\"";
+        CsvRecordReader records = new CsvRecordReader( new StringReader( csv ), 4 ); // Tiny buffer to cross refills
+
+        assertTrue( records.next() );
+        assertEquals( 3, records.fieldCount() );
+        assertEquals( "a", records.field( 0 ) );
+        assertEquals( "b,c", records.field( 1 ) );
+        assertEquals( "say \"hi\"", records.field( 2 ) );
+
+        assertTrue( records.next() );
+        assertEquals( "multi\nline", records.field( 0 ) );
+        assertEquals( "", records.field( 1 ) );
+        assertEquals( "last", records.field( 2 ) );
+
+        assertTrue( records.next() );
+        assertEquals( 1, records.fieldCount() );
+        assertEquals( "x", records.field( 0 ) );
+
+        assertTrue( records.next() );
+        assertEquals( "trailing", records.field( 0 ) );
+        assertFalse( records.next() );
+        assertEquals( 4, records.recordNumber() );
+    }
+
+    public void testStreamingRosterParser() throws IOException
+    {
+        String csv = "Employee ID,First Name,Last Name,Days Off\n"
+                + "1,John,Doe,\"Monday, tuesday\"\n"
+                + "\n"
+                + "2,\"Jane \"\"JJ\"\"\",Doe,Sunday\n"
+                + "3,Bob,Smith,\n";
+
+        List<Employee> employees;
+        try ( Stream<Employee> stream = CSVUtils.streamEmployeeDataFromCSV( new StringReader( csv ), "Employee ID", "First Name", "Last Name" ) )
+        {
+            employees = stream.collect( Collectors.toList() );
+        }
+
+        assertEquals( 3, employees.size() );
+        assertEquals( "1", employees.get( 0 ).getId() );
+        assertEquals( "John Doe", employees.get( 0 ).getName() );
+        assertEquals( EnumSet.of( DayOfWeek.MONDAY, DayOfWeek.TUESDAY ), employees.get( 0 ).getDaysOff() );
+        assertEquals( "Jane \"JJ\" Doe", employees.get( 1 ).getName() );
+        assertEquals( EnumSet.of( DayOfWeek.SUNDAY ), employees.get( 1 ).getDaysOff() );
+        assertTrue( employees.get( 2 ).getDaysOff().isEmpty() );
+
+        List<String> ids = new ArrayList<>();
+        CSVUtils.forEachEmployeeInCSV( new StringReader( csv ), "Employee ID", null, null, e -> ids.add( e.getId() ) );
+        assertEquals( "[1, 2, 3]", ids.toString() );
+    }
+
+    public void testMappedLoaderMatchesStreamingParserAcrossChunkBoundaries() throws IOException
+    {
+        StringBuilder csv = new StringBuilder( "\uFEFFEmployee ID,First Name,Last Name,Days Off\r\n" );
+        for ( int i = 0; i < 300; i++ )
+        {
+            // Quoted line breaks, escaped quotes and non-ASCII names make naive cuts land inside records
+            csv.append( i ).append( ",\"Ana\nMar\u00ed \"\"" ).append( i ).append( "\"\"\",N\u00fa\u00f1ez," );
+            csv.append( i % 2 == 0 ? "\"Monday,\nFriday\"" : "sunday" ).append( i % 3 == 0 ? "\r\n" : "\n" );
+        }
+        java.nio.file.Path file = java.nio.file.Files.createTempFile( "roster", ".csv" );
+        try
+        {
+            java.nio.file.Files.write( file, csv.toString().getBytes( java.nio.charset.StandardCharsets.UTF_8 ) );
+
+            List<Employee> expected = CSVUtils.streamEmployeeDataFromCSV( new StringReader( csv.substring( 1 ) ), "Employee ID", "First Name", "Last Name" )
+                    .collect( Collectors.toList() );
+            for ( long chunk : new long[] { 7, 64, 1000, 1 << 20 } )
+            {
+                List<Employee> actual = MappedRosterLoader.load( file, "Employee ID", "First Name", "Last Name",
+                        java.util.concurrent.ForkJoinPool.commonPool(), chunk );
+                assertEquals( expected.size(), actual.size() );
+                for ( int i = 0; i < expected.size(); i++ )
+                {
+                    assertEquals( expected.get( i ).getId(), actual.get( i ).getId() );
+                    assertEquals( expected.get( i ).getName(), actual.get( i ).getName() );
+                    assertEquals( expected.get( i ).getDaysOff(), actual.get( i ).getDaysOff() );
+                }
+            }
+        }
+        finally
+        {
+            java.nio.file.Files.delete( file );
+        }
+    }
+
+    public void testOptionalSkillColumns() throws IOException
+    {
+        String roster = "Employee ID,First Name,Last Name,Days Off,Skills\n"
+                + "1,John,Doe,Monday,\"forklift, first aid\"\n"
+                + "2,Jane,Doe,Sunday,\n";
+        List<Employee> employees = new ArrayList<>();
+        CSVUtils.forEachEmployeeInCSV( new StringReader( roster ), "Employee ID", "First Name", "Last Name", employees::add );
+        assertEquals( new HashSet<>( Arrays.asList( "forklift", "first aid" ) ), employees.get( 0 ).getSkills() );
+        assertTrue( employees.get( 1 ).getSkills().isEmpty() );
+
+        String demand = "Shift ID,Start,End,Required Skills,Headcount\n"
+                + "a,2024-01-01T06:00,2024-01-01T14:00,pharmacist,\n"
+                + "b,2024-01-01T14:00,2024-01-01T22:00,,15\n";
+        List<Shift> shifts = new ArrayList<>();
+        CSVUtils.forEachShiftInCSV( new StringReader( demand ), shifts::add );
+        assertEquals( Collections.singleton( "pharmacist" ), shifts.get( 0 ).getRequiredSkills() );
+        assertTrue( shifts.get( 1 ).getRequiredSkills().isEmpty() );
+        assertEquals( 1, shifts.get( 0 ).getHeadcount() );
+        assertEquals( 15, shifts.get( 1 ).getHeadcount() );
+    }
+
+    public void testMissingDaysOffColumnIsRejected()
+    {
+        try
+        {
+            CSVUtils.forEachEmployeeInCSV( new StringReader( "Employee ID,First Name\n1,John\n" ), "Employee ID", "First Name", null, e -> { } );
+            fail( "Expected an IOException" );
+        }
+        catch ( IOException expected )
+        {
+            assertTrue( expected.getMessage().contains( "Days Off" ) );
+        }
+
+        // The stream is never built, so the parser closes the reader itself
+        boolean[] closed = new boolean[1];
+        StringReader reader = new StringReader( "Employee ID,First Name\n1,John\n" )
+        {
+            @Override
+            public void close()
+            {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        try
+        {
+            CSVUtils.streamEmployeeDataFromCSV( reader, "Employee ID", "First Name", null );
+            fail( "Expected an IOException" );
+        }
+        catch ( IOException expected )
+        {
+            assertTrue( closed[0] );
+        }
+    }
+
+    public void testAssignmentCSV() throws IOException
+    {
+        String schedule = "Employee ID,Shift ID,Start,End,Required Skills,Forced\n"
+                + "7,a,2024-01-01T06:00,2024-01-01T14:00,forklift,\n"
+                + "\n"
+                + "8,b,2024-01-01T14:00,2024-01-01T22:00,,TRUE\n";
+        List<String> records = new ArrayList<>();
+        CSVUtils.forEachAssignmentInCSV( new StringReader( schedule ), ( employeeId, shift, forced ) ->
+                records.add( employeeId + " " + shift.getId() + " " + shift.getRequiredSkills() + " " + forced ) );
+        assertEquals( Arrays.asList( "7 a [forklift] false", "8 b [] true" ), records );
+
+        try
+        {
+            CSVUtils.forEachAssignmentInCSV( new StringReader( "Shift ID,Start,End\na,2024-01-01T06:00,2024-01-01T14:00\n" ),
+                    ( employeeId, shift, forced ) -> { } );
+            fail( "Expected an IOException" );
+        }
+        catch ( IOException expected )
+        {
+            assertTrue( expected.getMessage().contains( "Employee ID" ) );
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package core;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the columnar shift storage and its flyweight views.
+ */
+public class ShiftBlockTest extends TestCase
+{
+    public void testGeneratedViewsMatchTheRequestedHorizon()
+    {
+        LocalDateTime start = LocalDateTime.of( 2023, 11, 1, 8, 0 );
+        List<Shift> shifts = ShiftBlock.generate( start, start.plusHours( 5 ), 2 ).asList();
+
+        assertEquals( 3, shifts.size() );
+        assertEquals( start, shifts.get( 0 ).getStartTime() );
+        assertEquals( start.plusHours( 2 ), shifts.get( 0 ).getEndTime() );
+        assertEquals( start.plusHours( 5 ), shifts.get( 2 ).getEndTime() ); // Last shift is cut at the horizon
+        assertNull( shifts.get( 1 ).getId() );
+        assertEquals( shifts.get( 1 ), shifts.get( 1 ) );
+        assertFalse( shifts.get( 1 ).equals( shifts.get( 2 ) ) );
+    }
+
+    public void testEpochMinutesRoundTripAndDayOfWeek()
+    {
+        for ( LocalDateTime time : new LocalDateTime[] {
+                LocalDateTime.of( 1969, 12, 31, 23, 59 ), LocalDateTime.of( 2024, 2, 29, 6, 30 ), LocalDateTime.of( 2099, 1, 4, 0, 0 ) } )
+        {
+            long minute = ShiftBlock.toEpochMinute( time );
+            assertEquals( time, ShiftBlock.toLocalDateTime( minute ) );
+            assertEquals( time.getDayOfWeek(), ShiftBlock.dayOfWeek( minute ) );
+        }
+        assertEquals( DayOfWeek.THURSDAY, ShiftBlock.dayOfWeek( 0 ) );
+    }
+
+    public void testViewsWriteThrough()
+    {
+        ShiftBlock block = new ShiftBlock( 1 );
+        LocalDateTime start = LocalDateTime.of( 2024, 1, 1, 6, 0 );
+        block.add( null, start, start.plusHours( 8 ) );
+        block.add( "B", start.plusHours( 8 ), start.plusHours( 16 ) );
+
+        Shift view = block.get( 0 );
+        view.setId( "A" );
+        view.setEndTime( start.plusHours( 7 ) );
+        assertEquals( "A", block.id( 0 ) );
+        assertEquals( "B", block.get( 1 ).getId() );
+        assertEquals( ShiftBlock.toEpochMinute( start.plusHours( 7 ) ), block.endMinute( 0 ) );
+
+        Shift standalone = new Shift( "C", "2024-01-01T06:00:45", "2024-01-01T14:00" );
+        assertEquals( start, standalone.getStartTime() ); // Seconds are truncated
+    }
+}
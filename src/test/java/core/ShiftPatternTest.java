@@ -0,0 +1,73 @@
+package core;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for recurring shift patterns.
+ */
+public class ShiftPatternTest extends TestCase
+{
+    private static final LocalDate MONDAY = LocalDate.of( 2024, 1, 1 );
+
+    public void testRulesExpandInStartOrder()
+    {
+        ShiftPattern pattern = ShiftPattern.parse( "weekdays 14:00-22:00, 06:00-14:00 x2; weekends 08:00-20:00; fri 22:00-06:00" );
+        assertEquals( 5 * 2 + 2 + 1, pattern.shiftsPerWeek() );
+
+        List<Shift> week = pattern.stream( MONDAY, MONDAY.plusDays( 7 ) ).collect( Collectors.toList() );
+        assertEquals( 13, week.size() );
+        assertEquals( "2024-01-01-1", week.get( 0 ).getId() );
+        assertEquals( LocalDateTime.of( 2024, 1, 1, 6, 0 ), week.get( 0 ).getStartTime() );
+        assertEquals( 2, week.get( 0 ).getHeadcount() );
+        assertEquals( LocalDateTime.of( 2024, 1, 1, 14, 0 ), week.get( 1 ).getStartTime() );
+
+        // Friday's night shift ends on Saturday but belongs to Friday
+        Shift night = week.get( 10 );
+        assertEquals( LocalDateTime.of( 2024, 1, 5, 22, 0 ), night.getStartTime() );
+        assertEquals( LocalDateTime.of( 2024, 1, 6, 6, 0 ), night.getEndTime() );
+        assertEquals( DayOfWeek.SATURDAY, week.get( 11 ).getStartTime().getDayOfWeek() );
+        for ( int i = 1; i < week.size(); i++ )
+        {
+            assertTrue( week.get( i - 1 ).getStartMinute() <= week.get( i ).getStartMinute() );
+        }
+    }
+
+    public void testLongHorizonIsSizedSplittableAndUnboundedStreamsAreLazy()
+    {
+        ShiftPattern pattern = ShiftPattern.parse( "daily 00:00-08:00, 08:00-16:00, 16:00-24:00" );
+        LocalDate end = MONDAY.plusYears( 5 );
+        long days = end.toEpochDay() - MONDAY.toEpochDay();
+
+        Spliterator<Shift> shifts = pattern.spliterator( MONDAY, end );
+        assertEquals( days * 3, shifts.getExactSizeIfKnown() );
+        Spliterator<Shift> prefix = shifts.trySplit();
+        assertEquals( days * 3, prefix.getExactSizeIfKnown() + shifts.getExactSizeIfKnown() );
+
+        assertEquals( days * 3, pattern.stream( MONDAY, end ).parallel().count() );
+        assertEquals( 10, pattern.stream( MONDAY ).limit( 10 ).count() );
+    }
+
+    public void testMalformedRulesAreRejected()
+    {
+        for ( String rules : new String[] { "weekdays", "someday 06:00-14:00", "daily 6-14", "daily 06:00-14:00 x0", "daily 25:00-26:00" } )
+        {
+            try
+            {
+                ShiftPattern.parse( rules );
+                fail( rules );
+            }
+            catch ( IllegalArgumentException expected )
+            {
+                // Expected
+            }
+        }
+        assertEquals( 4, ShiftPattern.parse( "fri-mon 09:00-17:00" ).shiftsPerWeek() );
+    }
+}
@@ -0,0 +1,112 @@
+package functionality;
+
+import java.time.DayOfWeek;
+import java.util.BitSet;
+import java.util.EnumSet;
+
+import core.Roster;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the bitset prefilter of candidate employees.
+ */
+public class AvailabilityIndexTest extends TestCase
+{
+    public void testDaysOffMasks()
+    {
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.add( 0, Roster.daysOffMask( EnumSet.of( DayOfWeek.MONDAY, DayOfWeek.SUNDAY ) ) );
+        index.add( 1, 0 );
+        index.add( 40, Roster.daysOffMask( EnumSet.of( DayOfWeek.TUESDAY ) ) ); // Past the initial capacity
+        index.advanceTo( 0 );
+
+        assertEquals( bits( 1, 40 ), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+        assertEquals( bits( 0, 1 ), index.regularCandidates( DayOfWeek.TUESDAY, new BitSet() ) );
+        assertEquals( bits( 1, 40 ), index.regularCandidates( DayOfWeek.SUNDAY, new BitSet() ) );
+        assertFalse( index.isRegularCandidate( 0, DayOfWeek.MONDAY ) );
+        assertTrue( index.isRegularCandidate( 0, DayOfWeek.SATURDAY ) );
+        // Days off do not keep anyone from being forced
+        assertEquals( bits( 0, 1, 40 ), index.forcedCandidates( new BitSet() ) );
+        assertEquals( bits( 1, 40 ), index.present( DayOfWeek.MONDAY, new BitSet() ) );
+        assertEquals( bits( 0, 1, 40 ), index.present( null, new BitSet() ) );
+
+        // Adding a slot again replaces its days off
+        index.add( 0, Roster.daysOffMask( EnumSet.of( DayOfWeek.TUESDAY ) ) );
+        assertEquals( bits( 0, 1, 40 ), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+        assertEquals( bits( 1 ), index.regularCandidates( DayOfWeek.TUESDAY, new BitSet() ) );
+
+        index.remove( 1 );
+        assertEquals( bits( 0, 40 ), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+        assertEquals( bits( 0, 40 ), index.forcedCandidates( new BitSet() ) );
+        assertFalse( index.isForcedCandidate( 1 ) );
+        assertEquals( bits( 0, 40 ), index.present( null, new BitSet() ) );
+    }
+
+    public void testRestPeriodEndsExactlyAtBlockedUntil()
+    {
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.add( 0, 0 );
+        index.add( 1, 0 );
+        index.advanceTo( 0 );
+        index.markResting( 0, 100 );
+
+        index.advanceTo( 99 );
+        assertEquals( bits( 1 ), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+        assertTrue( index.isForcedCandidate( 0 ) ); // Rest periods do not hold for forced assignments
+        index.advanceTo( 100 );
+        assertEquals( bits( 0, 1 ), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+
+        // A longer rest replaces the earlier one, whose release is then stale
+        index.markResting( 1, 150 );
+        index.markResting( 1, 200 );
+        index.advanceTo( 150 );
+        assertFalse( index.isRegularCandidate( 1, DayOfWeek.MONDAY ) );
+        index.advanceTo( 200 );
+        assertTrue( index.isRegularCandidate( 1, DayOfWeek.MONDAY ) );
+
+        // A rest already over at the watermark blocks nothing
+        index.markResting( 0, 110 );
+        assertTrue( index.isRegularCandidate( 0, DayOfWeek.MONDAY ) );
+
+        // Going back in time blocks again what was still resting then: slot 1, not slot 0
+        index.advanceTo( 120 );
+        assertEquals( bits( 0 ), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+        index.advanceTo( 200 );
+        assertEquals( bits( 0, 1 ), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+    }
+
+    public void testSaturatedSlotIsOutUntilItsRunBreaks()
+    {
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.add( 0, 0 );
+        index.add( 1, 0 );
+        index.advanceTo( 0 );
+        index.markSaturated( 0, 300 );
+        index.markSaturated( 1, 300 );
+
+        // Not even as a forced candidate
+        assertEquals( bits(), index.forcedCandidates( new BitSet() ) );
+        assertEquals( bits(), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+        index.clearSaturated( 1 );
+        assertEquals( bits( 1 ), index.forcedCandidates( new BitSet() ) );
+
+        index.advanceTo( 299 );
+        assertFalse( index.isForcedCandidate( 0 ) );
+        index.advanceTo( 300 );
+        assertTrue( index.isForcedCandidate( 0 ) );
+        assertEquals( bits( 0, 1 ), index.regularCandidates( DayOfWeek.MONDAY, new BitSet() ) );
+
+        index.advanceTo( 10 );
+        assertEquals( bits( 1 ), index.forcedCandidates( new BitSet() ) );
+    }
+
+    private static BitSet bits( int... slots )
+    {
+        BitSet bits = new BitSet();
+        for ( int slot : slots )
+        {
+            bits.set( slot );
+        }
+        return bits;
+    }
+}
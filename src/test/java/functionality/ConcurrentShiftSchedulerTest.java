@@ -0,0 +1,145 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import core.ShiftBlock;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the concurrent scheduler service.
+ */
+public class ConcurrentShiftSchedulerTest extends TestCase
+{
+    public void testNoDoubleBookingUnderTenThousandConcurrentRequests() throws Exception
+    {
+        List<Employee> employees = new ArrayList<>();
+        for ( int i = 0; i < 300; i++ )
+        {
+            employees.add( new Employee( String.valueOf( i ), "Employee " + i,
+                    EnumSet.of( DayOfWeek.of( i % 7 + 1 ) ), 1000 ) );
+        }
+        Roster roster = new Roster( employees );
+
+        // 8000 shifts over 60 days, many starting at the same time, so requests compete for the same people
+        ShiftBlock block = new ShiftBlock( 8000 );
+        long first = ShiftBlock.toEpochMinute( MONDAY );
+        for ( int i = 0; i < 8000; i++ )
+        {
+            long start = first + ( i % 180 ) * 8L * ShiftBlock.MINUTES_PER_HOUR;
+            block.add( "s" + i, start, start + 8 * ShiftBlock.MINUTES_PER_HOUR );
+        }
+        // 10000 requests: every shift once, and 2000 of them a second time
+        List<Shift> requests = new ArrayList<>( block.asList() );
+        for ( int i = 0; i < 2000; i++ )
+        {
+            requests.add( block.get( i * 4 ) );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( 32 );
+        ConcurrentShiftScheduler scheduler = new ConcurrentShiftScheduler( roster, executor );
+        CountDownLatch go = new CountDownLatch( 1 );
+        List<CompletableFuture<Optional<Assignment>>> results = new ArrayList<>();
+        try
+        {
+            for ( Shift shift : requests )
+            {
+                results.add( CompletableFuture.supplyAsync( () -> {
+                    awaitRelease( go );
+                    return scheduler.assign( shift );
+                }, executor ) );
+            }
+            go.countDown();
+            CompletableFuture.allOf( results.toArray( new CompletableFuture<?>[0] ) ).get( 60, TimeUnit.SECONDS );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        // Repeated requests for a shift get the same answer
+        Map<Shift, Employee> assignee = new HashMap<>();
+        for ( int i = 0; i < requests.size(); i++ )
+        {
+            Optional<Assignment> result = results.get( i ).get();
+            if ( result.isPresent() )
+            {
+                Employee previous = assignee.put( requests.get( i ), result.get().getEmployee() );
+                assertTrue( previous == null || previous == result.get().getEmployee() );
+            }
+        }
+
+        // Every staffed shift is held by exactly one employee, who has no overlapping shifts
+        int held = 0;
+        for ( Employee employee : employees )
+        {
+            List<Shift> shifts = scheduler.getAssignedShifts( employee );
+            held += shifts.size();
+            for ( int a = 0; a < shifts.size(); a++ )
+            {
+                assertSame( employee, assignee.get( shifts.get( a ) ) );
+                for ( int b = a + 1; b < shifts.size(); b++ )
+                {
+                    assertFalse( shifts.get( a ).getStartMinute() < shifts.get( b ).getEndMinute()
+                            && shifts.get( b ).getStartMinute() < shifts.get( a ).getEndMinute() );
+                }
+            }
+        }
+        assertEquals( assignee.size(), held );
+        assertTrue( held > 0 );
+    }
+
+    public void testSingleRequestFollowsSchedulerRules()
+    {
+        Employee rested = new Employee( "1", "Ada", EnumSet.of( DayOfWeek.SUNDAY ), 5 );
+        Employee offMonday = new Employee( "2", "Grace", EnumSet.of( DayOfWeek.MONDAY ), 5 );
+        List<Employee> employees = new ArrayList<>();
+        employees.add( rested );
+        employees.add( offMonday );
+        ConcurrentShiftScheduler scheduler = new ConcurrentShiftScheduler( new Roster( employees ) );
+
+        Shift monday = new Shift( "a", MONDAY, MONDAY.plusHours( 8 ) );
+        Shift mondayLate = new Shift( "b", MONDAY.plusHours( 10 ), MONDAY.plusHours( 18 ) );
+
+        assertEquals( rested, scheduler.findCandidate( monday ).get() );
+        Assignment first = scheduler.assign( monday ).get();
+        assertSame( rested, first.getEmployee() );
+        assertFalse( first.isForced() );
+        assertSame( first, scheduler.assign( monday ).get() );
+
+        // Ada is resting and Grace has the day off, so Grace is forced
+        Assignment second = scheduler.assign( mondayLate ).get();
+        assertSame( offMonday, second.getEmployee() );
+        assertTrue( second.isForced() );
+        assertEquals( 1, scheduler.getAssignedShifts( rested ).size() );
+    }
+
+    // Fails the calling task, and so its future, if the latch is not released in time
+    private static void awaitRelease( CountDownLatch latch )
+    {
+        try
+        {
+            assertTrue( latch.await( 10, TimeUnit.SECONDS ) );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            fail( "Interrupted while waiting for the start signal" );
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for constraint ordering, statistics and the forced path.
+ */
+public class ConstraintChainTest extends TestCase
+{
+    public void testDefaultsRunCheapSelectiveRulesFirstAndForcedChainKeepsHardRules()
+    {
+        ConstraintChain regular = ConstraintChain.compile( ShiftConstraints.defaults() );
+        assertEquals( Arrays.asList( ShiftConstraints.DAY_OFF, ShiftConstraints.REST_PERIOD,
+                ShiftConstraints.MAX_CONSECUTIVE, ShiftConstraints.SKILLS, ShiftConstraints.NO_OVERLAP ), regular.rules() );
+
+        ConstraintChain forced = ConstraintChain.compileHard( ShiftConstraints.defaults() );
+        assertEquals( Arrays.asList( ShiftConstraints.MAX_CONSECUTIVE, ShiftConstraints.SKILLS,
+                ShiftConstraints.NO_OVERLAP ), forced.rules() );
+    }
+
+    public void testRuleThatNeverRejectsRunsLast()
+    {
+        ShiftConstraint cheapButUseless = ShiftConstraints.of( "useless", 0.1, 1, true, ( schedule, slot, shift ) -> true );
+        List<ShiftConstraint> constraints = new ArrayList<>();
+        constraints.add( cheapButUseless );
+        constraints.addAll( ShiftConstraints.defaults() );
+
+        List<ShiftConstraint> rules = ConstraintChain.compile( constraints ).rules();
+        assertSame( cheapButUseless, rules.get( rules.size() - 1 ) );
+    }
+
+    public void testCustomSoftRuleIsRelaxedOnlyByForcedAssignments()
+    {
+        Employee ada = new Employee( "1", "Ada", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Employee grace = new Employee( "2", "Grace", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Roster roster = new Roster( Arrays.asList( ada, grace ) );
+        // Grace prefers not to work; Ada may not work nights
+        ShiftConstraint gracePrefersOff = ShiftConstraints.of( "preference", 1, 0.5, false,
+                ( schedule, slot, shift ) -> schedule.roster().employee( slot ) != grace );
+        ShiftConstraint adaDaysOnly = ShiftConstraints.of( "no nights", 1, 0.5, true,
+                ( schedule, slot, shift ) -> schedule.roster().employee( slot ) != ada
+                        || shift.getStartTime().getHour() < 18 );
+        List<ShiftConstraint> constraints = new ArrayList<>( ShiftConstraints.defaults() );
+        constraints.add( gracePrefersOff );
+        constraints.add( adaDaysOnly );
+
+        ShiftScheduler scheduler = new ShiftScheduler( roster, constraints );
+        Shift day = new Shift( "day", MONDAY, MONDAY.plusHours( 8 ) );
+        Shift night = new Shift( "night", MONDAY.plusHours( 16 ), MONDAY.plusHours( 24 ) );
+        scheduler.assignShifts( Arrays.asList( day, night ) );
+
+        assertEquals( Arrays.asList( day ), scheduler.getAssignedShifts( ada ) );
+        assertEquals( Arrays.asList( night ), scheduler.getAssignedShifts( grace ) );
+        assertTrue( scheduler.getState().isForced( 1 ) );
+
+        long rejectedByPreference = 0;
+        for ( ConstraintChain.RuleStatistics statistics : scheduler.getRegularConstraints().statistics() )
+        {
+            assertTrue( statistics.getRejections() <= statistics.getEvaluations() );
+            if ( statistics.getName().equals( "preference" ) )
+            {
+                rejectedByPreference = statistics.getRejections();
+            }
+        }
+        assertTrue( rejectedByPreference > 0 );
+    }
+}
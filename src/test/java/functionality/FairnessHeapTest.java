@@ -0,0 +1,85 @@
+package functionality;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the indexed fairness heap.
+ */
+public class FairnessHeapTest extends TestCase
+{
+    public void testCursorVisitsSlotsInFairnessOrderWithoutRemovingThem()
+    {
+        FairnessHeap heap = new FairnessHeap( 4 );
+        heap.add( 0, 3 );
+        heap.add( 1, 1 );
+        heap.add( 2, 1 );
+        heap.add( 3, 0 );
+
+        assertEquals( "[3, 1, 2, 0]", drain( heap.cursor() ).toString() );
+        assertEquals( 4, heap.size() );
+        assertEquals( 3, heap.peek() );
+    }
+
+    public void testKeyChangesMatchFullResort()
+    {
+        Random random = new Random( 42 );
+        int slots = 500;
+        int[] keys = new int[slots];
+        FairnessHeap heap = new FairnessHeap( 8 ); // Forces the slot arrays to grow
+        for ( int slot = 0; slot < slots; slot++ )
+        {
+            heap.add( slot, 0 );
+        }
+        for ( int step = 0; step < 5000; step++ )
+        {
+            int slot = random.nextInt( slots );
+            if ( random.nextInt( 4 ) == 0 && keys[slot] > 0 )
+            {
+                heap.decrement( slot );
+                keys[slot]--;
+            }
+            else
+            {
+                heap.increment( slot );
+                keys[slot]++;
+            }
+        }
+
+        List<Integer> order = drain( heap.cursor() );
+        assertEquals( slots, order.size() );
+        for ( int i = 1; i < order.size(); i++ )
+        {
+            int previous = order.get( i - 1 );
+            int current = order.get( i );
+            assertTrue( keys[previous] < keys[current] || ( keys[previous] == keys[current] && previous < current ) );
+        }
+    }
+
+    public void testRemove()
+    {
+        FairnessHeap heap = new FairnessHeap( 4 );
+        for ( int slot = 0; slot < 6; slot++ )
+        {
+            heap.add( slot, 6 - slot );
+        }
+        heap.remove( 5 );
+        heap.remove( 2 );
+
+        assertFalse( heap.contains( 5 ) );
+        assertEquals( "[4, 3, 1, 0]", drain( heap.cursor() ).toString() );
+    }
+
+    private static List<Integer> drain( FairnessHeap.Cursor cursor )
+    {
+        List<Integer> order = new ArrayList<>();
+        while ( cursor.hasNext() )
+        {
+            order.add( cursor.next() );
+        }
+        return order;
+    }
+}
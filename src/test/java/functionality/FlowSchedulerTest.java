@@ -0,0 +1,101 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import core.ShiftPattern;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the min-cost flow scheduler.
+ */
+public class FlowSchedulerTest extends TestCase
+{
+    public void testDayIsStaffedWithoutTheForcedAssignmentGreedyMakes()
+    {
+        Employee ada = new Employee( "1", "Ada", EnumSet.noneOf( DayOfWeek.class ), 5, Collections.singleton( "forklift" ) );
+        Employee bob = new Employee( "2", "Bob", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Roster roster = new Roster( Arrays.asList( ada, bob ) );
+        Shift early = new Shift( "early", MONDAY, MONDAY.plusHours( 8 ) );
+        Shift late = new Shift( "late", MONDAY.plusHours( 8 ), MONDAY.plusHours( 16 ) );
+        late.setRequiredSkills( Collections.singleton( "forklift" ) );
+        List<Shift> shifts = Arrays.asList( early, late );
+
+        // The greedy pass gives the early shift to Ada, the first of two idle employees, and then has to force the
+        // forklift shift on her without a rest period
+        CoverageReport greedy = new ShiftScheduler( roster ).assignShifts( shifts );
+        assertEquals( 1, greedy.getForced() );
+
+        FlowScheduler flow = new FlowScheduler( roster );
+        CoverageReport report = flow.assignShifts( shifts );
+        assertTrue( flow.isOptimal() );
+        assertTrue( report.isFullyCovered() );
+        assertEquals( 0, report.getForced() );
+        assertEquals( Collections.singletonList( late ), flow.getAssignedShifts( ada ) );
+        assertEquals( Collections.singletonList( early ), flow.getAssignedShifts( bob ) );
+    }
+
+    public void testScarceSkillsAreStaffedWithLessForcingThanGreedy()
+    {
+        // A quarter of the employees can staff the forklift shifts, so who takes which shift matters
+        Roster roster = new Roster( TestRosters.employeesWithRandomDaysOff( 25, new Random( 1 ) ) );
+        ShiftPattern pattern = ShiftPattern.parse( "weekdays 06:00-14:00 x4, 14:00-22:00 x3; weekends 08:00-20:00 x3" );
+        LocalDate monday = MONDAY.toLocalDate();
+        List<Shift> shifts = pattern.stream( monday, monday.plusWeeks( 4 ) ).collect( Collectors.toList() );
+        for ( Shift shift : shifts )
+        {
+            shift.setRequiredSkills( Collections.singleton( "forklift" ) );
+        }
+
+        ShiftScheduler greedy = new ShiftScheduler( roster );
+        CoverageReport greedyReport = greedy.assignShifts( shifts );
+        FlowScheduler flow = new FlowScheduler( roster );
+        CoverageReport flowReport = flow.assignShifts( shifts );
+
+        assertTrue( flow.isOptimal() );
+        assertEquals( greedyReport.getRequired(), flowReport.getRequired() );
+        assertTrue( flowReport.getAssigned() >= greedyReport.getAssigned() );
+        assertTrue( flowReport.getForced() + " > " + greedyReport.getForced(),
+                flowReport.getForced() <= greedyReport.getForced() );
+        assertTrue( flowReport.getUnfilled() < greedyReport.getUnfilled() );
+
+        // Skills are never overridden, and only forced assignments fall on days off
+        ScheduleState state = flow.getState();
+        for ( int assignment = 0; assignment < state.assignmentCount(); assignment++ )
+        {
+            Shift shift = state.shift( assignment );
+            int slot = state.assignee( assignment );
+            assertTrue( shift.getRequiredSkills().isEmpty() || roster.hasSkills( slot, shift.getRequiredSkills() ) );
+            if ( !state.isForced( assignment ) )
+            {
+                assertFalse( roster.isDayOff( slot, shift.getStartTime().getDayOfWeek() ) );
+            }
+        }
+    }
+
+    public void testExhaustedTimeBudgetFallsBackToRepair()
+    {
+        Roster roster = new Roster( TestRosters.employeesWithRandomDaysOff( 12, new Random( 3 ) ) );
+        List<Shift> shifts = ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 7 ), 8 );
+
+        FlowScheduler flow = new FlowScheduler( roster );
+        flow.setTimeBudget( Duration.ZERO );
+        CoverageReport report = flow.assignShifts( shifts );
+
+        assertFalse( flow.isOptimal() );
+        assertTrue( report.isFullyCovered() );
+        assertEquals( shifts.size(), flow.getState().assignmentCount() );
+    }
+}
@@ -0,0 +1,166 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the local search over finished schedules.
+ */
+public class LocalSearchOptimizerTest extends TestCase
+{
+    public void testForcedAssignmentIsReleasedByMovingItsNeighbour() throws Exception
+    {
+        Employee ada = new Employee( "1", "Ada", EnumSet.noneOf( DayOfWeek.class ), 5, Collections.singleton( "forklift" ) );
+        Employee bob = new Employee( "2", "Bob", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Shift early = new Shift( "early", MONDAY, MONDAY.plusHours( 8 ) );
+        Shift late = new Shift( "late", MONDAY.plusHours( 8 ), MONDAY.plusHours( 16 ) );
+        late.setRequiredSkills( Collections.singleton( "forklift" ) );
+        ShiftScheduler scheduler = new ShiftScheduler( new Roster( Arrays.asList( ada, bob ) ) );
+        assertEquals( 1, scheduler.assignShifts( Arrays.asList( early, late ) ).getForced() );
+
+        List<LocalSearchOptimizer.Progress> updates = new ArrayList<>();
+        LocalSearchOptimizer.Progress result = new LocalSearchOptimizer( scheduler )
+                .optimize( Duration.ofSeconds( 10 ), updates::add ).get( 10, TimeUnit.SECONDS );
+
+        assertTrue( result.isFinished() );
+        assertEquals( 0, result.getForced() );
+        assertEquals( 2, result.getSquaredLoads() );
+        assertEquals( Collections.singletonList( late ), scheduler.getAssignedShifts( ada ) );
+        assertEquals( Collections.singletonList( early ), scheduler.getAssignedShifts( bob ) );
+
+        // The only update took back both of Ada's assignments, and gave her the late shift again, now unforced
+        assertEquals( 1, updates.size() );
+        ScheduleDiff changes = updates.get( 0 ).getChanges();
+        assertEquals( 2, changes.getRemoved().size() );
+        assertEquals( 2, changes.getAdded().size() );
+        for ( Assignment assignment : changes.getAdded() )
+        {
+            assertFalse( assignment.isForced() );
+        }
+        assertEquals( 0, countForced( scheduler.getState() ) );
+    }
+
+    public void testLoadIsSpreadOverIdleEmployees() throws Exception
+    {
+        List<Employee> employees = new ArrayList<>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            employees.add( new Employee( String.valueOf( i ), "Employee " + i, EnumSet.noneOf( DayOfWeek.class ), 5 ) );
+        }
+        ShiftScheduler scheduler = new ShiftScheduler( new Roster( employees ) );
+        // A lopsided schedule, as left behind by repairs: the first employee works every weekday
+        for ( int day = 0; day < 5; day++ )
+        {
+            LocalDateTime start = MONDAY.plusDays( day );
+            assertTrue( scheduler.place( 0, new Shift( "day " + day, start, start.plusHours( 8 ) ), false ) );
+        }
+        ScheduleState state = scheduler.getState();
+        assertEquals( 5, state.load( 0 ) );
+
+        LocalSearchOptimizer.Progress result = new LocalSearchOptimizer( scheduler )
+                .optimize( Duration.ofSeconds( 10 ), null ).get( 10, TimeUnit.SECONDS );
+
+        // 5 shifts over 4 employees: 2, 1, 1 and 1
+        assertEquals( 3, result.getMoves() );
+        assertEquals( 0, result.getForced() );
+        assertEquals( 7, result.getSquaredLoads() );
+        long squares = 0;
+        for ( int slot = 0; slot < employees.size(); slot++ )
+        {
+            assertTrue( state.load( slot ) >= 1 && state.load( slot ) <= 2 );
+            squares += (long) state.load( slot ) * state.load( slot );
+        }
+        assertEquals( result.getSquaredLoads(), squares );
+        assertEquals( 5, state.assignmentCount() - countUndone( state ) );
+    }
+
+    public void testZeroTimeLimitFinishesWithoutMoves() throws Exception
+    {
+        ShiftScheduler scheduler = new ShiftScheduler( new Roster( Collections.singletonList(
+                new Employee( "1", "Ada", EnumSet.noneOf( DayOfWeek.class ), 5 ) ) ) );
+        scheduler.assignShifts( ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 3 ), 8 ) );
+
+        LocalSearchOptimizer.Progress result = new LocalSearchOptimizer( scheduler )
+                .optimize( Duration.ZERO, null ).get( 10, TimeUnit.SECONDS );
+
+        assertTrue( result.isFinished() );
+        assertEquals( 0, result.getMoves() );
+        assertEquals( countForced( scheduler.getState() ), result.getForced() );
+    }
+
+    public void testCancelledSearchLeavesTheScheduleConsistent() throws Exception
+    {
+        Employee ada = new Employee( "1", "Ada", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Employee bob = new Employee( "2", "Bob", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        ShiftScheduler scheduler = new ShiftScheduler( new Roster( Arrays.asList( ada, bob ) ) );
+        scheduler.assignShifts( ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 7 ), 8 ) );
+        int assignments = scheduler.getState().assignmentCount() - countUndone( scheduler.getState() );
+
+        ForkJoinPool pool = new ForkJoinPool( 1 );
+        CountDownLatch busy = new CountDownLatch( 1 );
+        try
+        {
+            // The pool's only thread is held until the future is cancelled, so the search sees it cancelled
+            ForkJoinTask<Boolean> held = pool.submit( () -> busy.await( 10, TimeUnit.SECONDS ) );
+            CompletableFuture<LocalSearchOptimizer.Progress> future =
+                    new LocalSearchOptimizer( scheduler, pool ).optimize( Duration.ofHours( 1 ), null );
+            assertTrue( future.cancel( true ) );
+            busy.countDown();
+            assertTrue( held.get( 10, TimeUnit.SECONDS ) );
+            assertTrue( pool.awaitQuiescence( 10, TimeUnit.SECONDS ) );
+            assertTrue( future.isCancelled() );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        ScheduleState state = scheduler.getState();
+        assertEquals( assignments, state.assignmentCount() - countUndone( state ) );
+        assertEquals( assignments, state.load( 0 ) + state.load( 1 ) );
+    }
+
+    private static int countForced( ScheduleState state )
+    {
+        int forced = 0;
+        for ( int assignment = 0; assignment < state.assignmentCount(); assignment++ )
+        {
+            if ( !state.isUndone( assignment ) && state.isForced( assignment ) )
+            {
+                forced++;
+            }
+        }
+        return forced;
+    }
+
+    private static int countUndone( ScheduleState state )
+    {
+        int undone = 0;
+        for ( int assignment = 0; assignment < state.assignmentCount(); assignment++ )
+        {
+            if ( state.isUndone( assignment ) )
+            {
+                undone++;
+            }
+        }
+        return undone;
+    }
+}
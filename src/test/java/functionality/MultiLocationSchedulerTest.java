@@ -0,0 +1,149 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the multi-location scheduler and its in-process coordinator.
+ */
+public class MultiLocationSchedulerTest extends TestCase
+{
+    public void testFloatersCoverOpenAndForcedPositions()
+    {
+        // One employee per store working a shift every day: Saturday breaks the run limit, and Ann has Sundays off
+        Employee ann = new Employee( "ann", "Ann", EnumSet.of( DayOfWeek.SUNDAY ), 5 );
+        Employee bo = new Employee( "bo", "Bo", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Store east = new Store( "east", Collections.singletonList( ann ), week() );
+        Store west = new Store( "west", Collections.singletonList( bo ), week() );
+        Employee fay = new Employee( "fay", "Fay", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        MultiLocationScheduler scheduler = new MultiLocationScheduler( new LocalCoordinator( new ForkJoinPool( 2 ) ) );
+        scheduler.addFloater( fay, Arrays.asList( "east", "west" ) );
+
+        List<StoreSchedule> schedules = scheduler.schedule( Arrays.asList( east, west ) );
+
+        assertSame( east, schedules.get( 0 ).getStore() );
+        assertSame( west, schedules.get( 1 ).getStore() );
+        // Fay takes the open Saturday and the Sunday forced on Ann in the east
+        StoreSchedule eastSchedule = schedules.get( 0 );
+        assertTrue( eastSchedule.getCoverage().toString(), eastSchedule.getCoverage().isFullyCovered() );
+        assertEquals( 0, eastSchedule.getCoverage().getForced() );
+        assertEquals( 2, eastSchedule.getFloaterAssignments().size() );
+        assertSame( fay, eastSchedule.getFloaterAssignments().get( 0 ).getEmployee() );
+        assertEquals( 1, eastSchedule.getReleased().size() );
+        assertSame( ann, eastSchedule.getReleased().get( 0 ).getEmployee() );
+        assertEquals( 5, eastSchedule.getScheduler().getAssignedShifts( ann ).size() );
+        // She cannot be in the west on Saturday at the same time
+        StoreSchedule westSchedule = schedules.get( 1 );
+        assertEquals( 0, westSchedule.getFloaterAssignments().size() );
+        assertEquals( 1, westSchedule.getCoverage().getUnfilled() );
+
+        for ( StoreSchedule schedule : schedules )
+        {
+            assertTrue( new ScheduleValidator( schedule.getScheduler().getState().roster() ).validate( schedule.getScheduler() ).isValid() );
+        }
+    }
+
+    public void testManyStoresSolveAlikeOnAnyNumberOfWorkers()
+    {
+        Random random = new Random( 3 );
+        List<Store> stores = new ArrayList<>();
+        for ( int store = 0; store < 40; store++ )
+        {
+            List<Employee> employees = new ArrayList<>();
+            int size = 2 + random.nextInt( 12 );
+            for ( int i = 0; i < size; i++ )
+            {
+                employees.add( new Employee( store + "-" + i, "Employee " + i, EnumSet.of( DayOfWeek.of( random.nextInt( 7 ) + 1 ) ), 5 ) );
+            }
+            List<Shift> shifts = ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 14 ), 8 );
+            for ( Shift shift : shifts )
+            {
+                shift.setHeadcount( 1 + random.nextInt( 3 ) );
+            }
+            stores.add( new Store( "store-" + store, employees, shifts ) );
+        }
+        List<Employee> floaters = new ArrayList<>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            floaters.add( new Employee( "floater-" + i, "Floater " + i, EnumSet.noneOf( DayOfWeek.class ), 5 ) );
+        }
+
+        List<String> sequential = summaries( schedule( stores, floaters, new ForkJoinPool( 1 ) ) );
+        List<StoreSchedule> schedules = schedule( stores, floaters, new ForkJoinPool( 4 ) );
+        assertEquals( sequential, summaries( schedules ) );
+
+        List<Assignment> floaterAssignments = new ArrayList<>();
+        for ( int store = 0; store < stores.size(); store++ )
+        {
+            StoreSchedule schedule = schedules.get( store );
+            assertSame( stores.get( store ), schedule.getStore() );
+            assertTrue( new ScheduleValidator( schedule.getScheduler().getState().roster() ).validate( schedule.getScheduler() ).isValid() );
+            for ( Assignment assignment : schedule.getFloaterAssignments() )
+            {
+                // Floater i works at the stores i, i + 8, i + 16, ...
+                int floater = floaters.indexOf( assignment.getEmployee() );
+                assertEquals( floater, store % 8 );
+                floaterAssignments.add( assignment );
+            }
+        }
+        assertFalse( floaterAssignments.isEmpty() );
+        // Across stores, the floaters' shifts keep to the rules
+        assertTrue( new ScheduleValidator( new Roster( floaters ) ).validate( floaterAssignments ).isValid() );
+    }
+
+    private static List<StoreSchedule> schedule( List<Store> stores, List<Employee> floaters, ForkJoinPool pool )
+    {
+        MultiLocationScheduler scheduler = new MultiLocationScheduler( new LocalCoordinator( pool ) );
+        for ( int i = 0; i < floaters.size(); i++ )
+        {
+            List<String> allowed = new ArrayList<>();
+            for ( int store = i; store < stores.size(); store += floaters.size() )
+            {
+                allowed.add( stores.get( store ).getId() );
+            }
+            scheduler.addFloater( floaters.get( i ), allowed );
+        }
+        try
+        {
+            return scheduler.schedule( stores );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private static List<String> summaries( List<StoreSchedule> schedules )
+    {
+        List<String> summaries = new ArrayList<>();
+        for ( StoreSchedule schedule : schedules )
+        {
+            summaries.add( schedule.toString() );
+        }
+        return summaries;
+    }
+
+    // One eight-hour shift a day from Monday to Sunday
+    private static List<Shift> week()
+    {
+        List<Shift> shifts = new ArrayList<>();
+        for ( int day = 0; day < 7; day++ )
+        {
+            shifts.add( new Shift( null, MONDAY.plusDays( day ), MONDAY.plusDays( day ).plusHours( 8 ) ) );
+        }
+        return shifts;
+    }
+}
@@ -0,0 +1,185 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import core.CSVUtils;
+import core.Shift;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for reloading a roster file into a running schedule.
+ */
+public class RosterWatcherTest extends TestCase
+{
+    private static final String HEADER = "Employee ID,First Name,Last Name,Days Off\n";
+
+    public void testReplacedFileIsAppliedToTheSchedule() throws Exception
+    {
+        Path directory = Files.createTempDirectory( "roster" );
+        Path file = directory.resolve( "employees.csv" );
+        write( file, HEADER + "1,John,Doe,Monday\n2,Jane,Doe,\n3,Max,Roe,\n" );
+        ShiftScheduler scheduler = scheduler( file );
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        RosterWatcher watcher = watch( scheduler, file, events );
+        try
+        {
+            // Max leaves and Jane gets Sundays off
+            replace( file, HEADER + "1,John,Doe,Monday\n2,Jane,Doe,Sunday\n" );
+            RosterUpdate update = update( events.poll( 10, TimeUnit.SECONDS ) );
+            assertEquals( 0, update.getAdded().size() );
+            assertEquals( "3", update.getRemoved().get( 0 ).getId() );
+            assertEquals( "2", update.getChanged().get( 0 ).getId() );
+            for ( Shift shift : scheduler.getAssignedShifts( update.getRemoved().get( 0 ) ) )
+            {
+                assertTrue( shift.getStartTime().isBefore( MONDAY.plusDays( 3 ) ) );
+            }
+            assertTrue( new ScheduleValidator( scheduler.getState().roster() ).validate( scheduler ).isValid() );
+
+            // An ID listed twice is reported and changes nothing
+            replace( file, HEADER + "1,John,Doe,\n1,John,Doe,\n" );
+            Object event = events.poll( 10, TimeUnit.SECONDS );
+            assertTrue( String.valueOf( event ), event instanceof IllegalArgumentException );
+            assertTrue( scheduler.getState().roster().daysOffMask( 0 ) != 0 );
+        }
+        finally
+        {
+            watcher.close();
+            Files.delete( file );
+            Files.delete( directory );
+        }
+    }
+
+    public void testFileWrittenInPlaceIsNotReadHalfWritten() throws Exception
+    {
+        Path directory = Files.createTempDirectory( "roster" );
+        Path file = directory.resolve( "employees.csv" );
+        write( file, HEADER + "1,John,Doe,Monday\n2,Jane,Doe,\n3,Max,Roe,\n" );
+        ShiftScheduler scheduler = scheduler( file );
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        RosterWatcher watcher = watch( scheduler, file, events );
+        try
+        {
+            // A write in progress, cut at a line break: it parses, and would remove Jane and Max
+            write( file, HEADER + "1,John,Doe,Monday\n" );
+            assertNull( events.poll( 500, TimeUnit.MILLISECONDS ) );
+            assertEquals( 3, scheduler.getState().roster().size() );
+            assertTrue( scheduler.removedSlots().isEmpty() );
+
+            replace( file, HEADER + "1,John,Doe,Monday\n2,Jane,Doe,\n" );
+            RosterUpdate update = update( events.poll( 10, TimeUnit.SECONDS ) );
+            assertEquals( 1, update.getRemoved().size() );
+            assertEquals( "3", update.getRemoved().get( 0 ).getId() );
+            assertTrue( update.getChanged().isEmpty() );
+        }
+        finally
+        {
+            watcher.close();
+            Files.delete( file );
+            Files.delete( directory );
+        }
+    }
+
+    public void testRejectedReloadIsReportedAndWatchingGoesOn() throws Exception
+    {
+        Path directory = Files.createTempDirectory( "roster" );
+        Path file = directory.resolve( "employees.csv" );
+        write( file, HEADER + "1,John,Doe,Monday\n2,Jane,Doe,\n3,Max,Roe,\n" );
+        ShiftScheduler scheduler = scheduler( file );
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        AtomicBoolean rejecting = new AtomicBoolean( true );
+        Executor executor = task -> {
+            if ( rejecting.getAndSet( false ) )
+            {
+                throw new RejectedExecutionException( "Shutting down" );
+            }
+            task.run();
+        };
+        RosterWatcher watcher = watch( scheduler, file, executor, events );
+        try
+        {
+            replace( file, HEADER + "1,John,Doe,Monday\n2,Jane,Doe,\n" );
+            Object event = events.poll( 10, TimeUnit.SECONDS );
+            assertTrue( String.valueOf( event ), event instanceof RejectedExecutionException );
+            assertTrue( scheduler.removedSlots().isEmpty() );
+
+            // The watcher thread survived and reads the next replacement
+            replace( file, HEADER + "1,John,Doe,Monday\n" );
+            RosterUpdate update = update( events.poll( 10, TimeUnit.SECONDS ) );
+            assertEquals( 2, update.getRemoved().size() );
+        }
+        finally
+        {
+            watcher.close();
+            Files.delete( file );
+            Files.delete( directory );
+        }
+    }
+
+    private static ShiftScheduler scheduler( Path file ) throws IOException
+    {
+        ShiftScheduler scheduler = new ShiftScheduler( CSVUtils.parseEmployeeDataFromCSV( file.toString(), "Employee ID", "First Name", "Last Name" ) );
+        scheduler.assignShifts( ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 7 ), 8 ) );
+        return scheduler;
+    }
+
+    // Starts a watcher that applies reloads from Thursday on and reports them to the queue
+    private static RosterWatcher watch( ShiftScheduler scheduler, Path file, BlockingQueue<Object> events ) throws IOException
+    {
+        return watch( scheduler, file, Runnable::run, events );
+    }
+
+    private static RosterWatcher watch( ShiftScheduler scheduler, Path file, Executor executor, BlockingQueue<Object> events )
+            throws IOException
+    {
+        RosterWatcher watcher = new RosterWatcher( scheduler, file, executor, new RosterWatcher.Listener()
+        {
+            @Override
+            public void reloaded( RosterUpdate update, ScheduleDiff diff )
+            {
+                assertEquals( update.getPositionsOpened(), diff.getRemoved().size() );
+                events.add( update );
+            }
+
+            @Override
+            public void failed( Path failed, Exception e )
+            {
+                events.add( e );
+            }
+        } );
+        watcher.setClock( () -> MONDAY.plusDays( 3 ) );
+        watcher.setSettleMillis( 50 );
+        watcher.start();
+        return watcher;
+    }
+
+    private static RosterUpdate update( Object event )
+    {
+        assertTrue( String.valueOf( event ), event instanceof RosterUpdate );
+        return (RosterUpdate) event;
+    }
+
+    private static void write( Path file, String text ) throws IOException
+    {
+        Files.write( file, text.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    // Replaces the file the way RosterWatcher expects: written next to it, then moved over it
+    private static void replace( Path file, String text ) throws IOException
+    {
+        Path next = file.resolveSibling( file.getFileName() + ".next" );
+        write( next, text );
+        Files.move( next, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+    }
+}
@@ -0,0 +1,94 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the streaming schedule exporter.
+ */
+public class ScheduleExporterTest extends TestCase
+{
+    public void testCSVExportReadsBackAsTheSameSchedule() throws IOException
+    {
+        List<Employee> employees = new ArrayList<>();
+        for ( int i = 0; i < 60; i++ )
+        {
+            employees.add( new Employee( String.valueOf( i ), "Employee " + i, EnumSet.of( DayOfWeek.of( i % 7 + 1 ) ), 5 ) );
+        }
+        Roster roster = new Roster( employees );
+        ShiftScheduler scheduler = new ShiftScheduler( roster );
+        List<Shift> shifts = ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 28 ), 4 );
+        for ( Shift shift : shifts )
+        {
+            shift.setHeadcount( 12 );
+        }
+        CoverageReport coverage = scheduler.assignShifts( shifts );
+
+        // Large enough to fill the buffer at least once
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long records = new ScheduleExporter( scheduler ).export( out, ScheduleExporter.Format.CSV, ScheduleExporter.Order.EMPLOYEE );
+        assertEquals( coverage.getAssigned(), records );
+        assertTrue( out.size() > ScheduleExporter.BUFFER_SIZE );
+
+        String csv = new String( out.toByteArray(), StandardCharsets.UTF_8 );
+        String[] lines = csv.split( "\n" );
+        assertEquals( "Employee ID,Shift ID,Start,End,Required Skills,Forced", lines[0] );
+        assertEquals( records + 1, lines.length );
+        // By employee in roster order, then by start
+        assertTrue( lines[1].startsWith( "0,,2024-01-0" ) );
+        for ( int i = 2; i < lines.length; i++ )
+        {
+            String[] previous = lines[i - 1].split( "," );
+            String[] current = lines[i].split( "," );
+            int byEmployee = Integer.compare( Integer.parseInt( previous[0] ), Integer.parseInt( current[0] ) );
+            assertTrue( byEmployee < 0 || byEmployee == 0 && previous[2].compareTo( current[2] ) < 0 );
+        }
+
+        ValidationReport report = new ScheduleValidator( roster ).validateCSV( new StringReader( csv ) );
+        assertEquals( records, report.getAssignments() );
+        assertTrue( report.toString(), report.isValid() );
+        assertEquals( report.toString(), new ScheduleValidator( roster ).validate( scheduler ).toString() );
+    }
+
+    public void testNDJSONExportInTimeOrder() throws IOException
+    {
+        Employee ada = new Employee( "a\"1", "Ada", EnumSet.noneOf( DayOfWeek.class ), 5,
+                new HashSet<>( Arrays.asList( "forklift", "first aid" ) ) );
+        Employee bob = new Employee( "b\u00e9", "Bob", EnumSet.of( DayOfWeek.TUESDAY ), 5 );
+        ShiftScheduler scheduler = new ShiftScheduler( new Roster( Arrays.asList( ada, bob ) ) );
+        Shift late = new Shift( "late", MONDAY.plusHours( 8 ), MONDAY.plusHours( 16 ) );
+        late.setRequiredSkills( new HashSet<>( Arrays.asList( "forklift", "first aid" ) ) );
+        Shift early = new Shift( null, MONDAY, MONDAY.plusHours( 8 ) );
+        Shift tuesday = new Shift( "tue", MONDAY.plusDays( 1 ), MONDAY.plusDays( 1 ).plusHours( 8 ) );
+        assertTrue( scheduler.place( 0, late, false ) );
+        assertTrue( scheduler.place( 1, early, false ) );
+        assertTrue( scheduler.place( 1, tuesday, true ) );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals( 3, new ScheduleExporter( scheduler ).export( out, ScheduleExporter.Format.NDJSON, ScheduleExporter.Order.TIME ) );
+
+        List<String> expected = Arrays.asList(
+                "{\"employeeId\":\"b\u00e9\",\"shiftId\":null,\"start\":\"2024-01-01T06:00\",\"end\":\"2024-01-01T14:00\","
+                        + "\"requiredSkills\":[],\"forced\":false}",
+                "{\"employeeId\":\"a\\\"1\",\"shiftId\":\"late\",\"start\":\"2024-01-01T14:00\",\"end\":\"2024-01-01T22:00\","
+                        + "\"requiredSkills\":[\"first aid\",\"forklift\"],\"forced\":false}",
+                "{\"employeeId\":\"b\u00e9\",\"shiftId\":\"tue\",\"start\":\"2024-01-02T06:00\",\"end\":\"2024-01-02T14:00\","
+                        + "\"requiredSkills\":[],\"forced\":true}" );
+        assertEquals( expected, Arrays.asList( new String( out.toByteArray(), StandardCharsets.UTF_8 ).split( "\n" ) ) );
+    }
+}
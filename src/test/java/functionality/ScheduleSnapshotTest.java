@@ -0,0 +1,130 @@
+package functionality;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import core.Employee;
+import core.Shift;
+import core.ShiftPattern;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for writing and loading schedule snapshots.
+ */
+public class ScheduleSnapshotTest extends TestCase
+{
+    private static final LocalDate MONDAY = LocalDate.of( 2024, 1, 1 );
+    private static final ShiftPattern PATTERN = ShiftPattern.parse( "weekdays 06:00-14:00 x3, 14:00-22:00 x2; weekends 08:00-20:00" );
+
+    private Path file;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        File temp = File.createTempFile( "schedule", ".snapshot" );
+        temp.deleteOnExit();
+        file = temp.toPath();
+    }
+
+    public void testLoadedSchedulerContinuesLikeTheOriginal() throws IOException
+    {
+        List<Employee> employees = TestRosters.employees( 10, "forklift" );
+        ShiftScheduler original = new ShiftScheduler( employees );
+        original.assignShifts( PATTERN.stream( MONDAY, MONDAY.plusWeeks( 2 ) ) );
+        original.unassign( employees.get( 3 ), original.getAssignedShifts( employees.get( 3 ) ).get( 0 ) );
+        original.repair();
+
+        ScheduleSnapshot.write( original, file );
+        ShiftScheduler loaded = ScheduleSnapshot.load( file );
+
+        ScheduleState before = original.getState();
+        ScheduleState after = loaded.getState();
+        assertEquals( before.assignmentCount(), after.assignmentCount() );
+        for ( int slot = 0; slot < employees.size(); slot++ )
+        {
+            assertEquals( employees.get( slot ).getId(), after.roster().employee( slot ).getId() );
+            assertEquals( before.roster().daysOffMask( slot ), after.roster().daysOffMask( slot ) );
+            assertEquals( before.load( slot ), after.load( slot ) );
+            assertEquals( before.consecutiveShifts( slot ), after.consecutiveShifts( slot ) );
+            assertEquals( before.lastShiftEnd( slot ), after.lastShiftEnd( slot ) );
+            assertEquals( describe( before.assignedShifts( slot ) ), describe( after.assignedShifts( slot ) ) );
+        }
+        for ( int assignment = 0; assignment < before.assignmentCount(); assignment++ )
+        {
+            assertEquals( before.isActive( assignment ), after.isActive( assignment ) );
+            assertEquals( before.isForced( assignment ), after.isForced( assignment ) );
+        }
+
+        // The next week is staffed the same way by both
+        original.assignShifts( PATTERN.stream( MONDAY.plusWeeks( 2 ), MONDAY.plusWeeks( 3 ) ) );
+        loaded.assignShifts( PATTERN.stream( MONDAY.plusWeeks( 2 ), MONDAY.plusWeeks( 3 ) ) );
+        for ( int slot = 0; slot < employees.size(); slot++ )
+        {
+            assertEquals( describe( before.assignedShifts( slot ) ), describe( after.assignedShifts( slot ) ) );
+        }
+    }
+
+    public void testRollingHorizonAndRemovedEmployeesSurviveALoad() throws IOException
+    {
+        List<Employee> employees = TestRosters.employees( 8, "forklift" );
+        ShiftScheduler original = new ShiftScheduler( employees );
+        original.enableRollingHorizon();
+        original.assignShifts( PATTERN.stream( MONDAY, MONDAY.plusWeeks( 4 ) ) );
+        original.removeEmployee( employees.get( 0 ) );
+        original.repair();
+
+        ScheduleSnapshot.write( original, file );
+        ShiftScheduler loaded = ScheduleSnapshot.load( file );
+
+        assertTrue( loaded.isRollingHorizon() );
+        assertEquals( original.getWatermark(), loaded.getWatermark() );
+        ScheduleState state = loaded.getState();
+        assertEquals( original.getState().firstRetainedAssignment(), state.firstRetainedAssignment() );
+        for ( int slot = 0; slot < employees.size(); slot++ )
+        {
+            assertEquals( original.getState().evictedShifts( slot ), state.evictedShifts( slot ) );
+            assertEquals( original.getState().evictedMinutes( slot ), state.evictedMinutes( slot ) );
+        }
+        loaded.assignShifts( PATTERN.stream( MONDAY.plusWeeks( 4 ), MONDAY.plusWeeks( 5 ) ) );
+        assertEquals( 0, state.assignedShifts( 0 ).size() );
+    }
+
+    public void testCorruptSnapshotIsRejected() throws IOException
+    {
+        ShiftScheduler scheduler = new ShiftScheduler( TestRosters.employees( 4, "forklift" ) );
+        scheduler.assignShifts( PATTERN.stream( MONDAY, MONDAY.plusWeeks( 1 ) ) );
+        ScheduleSnapshot.write( scheduler, file );
+
+        try ( RandomAccessFile raw = new RandomAccessFile( file.toFile(), "rw" ) )
+        {
+            raw.seek( raw.length() / 2 );
+            int b = raw.read();
+            raw.seek( raw.length() / 2 );
+            raw.write( b ^ 0x40 );
+        }
+        try
+        {
+            ScheduleSnapshot.load( file );
+            fail( "Corrupt snapshot loaded" );
+        }
+        catch ( IOException expected )
+        {
+            assertTrue( expected.getMessage(), expected.getMessage().contains( "checksum" ) );
+        }
+    }
+
+    private static List<String> describe( List<Shift> shifts )
+    {
+        List<String> described = new ArrayList<>();
+        for ( Shift shift : shifts )
+        {
+            described.add( shift.getId() + "@" + shift.getStartMinute() + "-" + shift.getEndMinute() );
+        }
+        return described;
+    }
+}
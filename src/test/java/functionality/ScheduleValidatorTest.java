@@ -0,0 +1,148 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import core.ShiftPattern;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the sweep-line schedule validator.
+ */
+public class ScheduleValidatorTest extends TestCase
+{
+    public void testSchedulersProduceValidSchedules()
+    {
+        Random random = new Random( 5 );
+        List<Employee> employees = new ArrayList<>();
+        for ( int i = 0; i < 30; i++ )
+        {
+            EnumSet<DayOfWeek> daysOff = EnumSet.of( DayOfWeek.of( random.nextInt( 7 ) + 1 ), DayOfWeek.of( random.nextInt( 7 ) + 1 ) );
+            employees.add( new Employee( String.valueOf( i ), "Employee " + i, daysOff, 5,
+                    i % 3 == 0 ? Collections.singleton( "forklift" ) : Collections.<String>emptySet() ) );
+        }
+        Roster roster = new Roster( employees );
+        ShiftPattern pattern = ShiftPattern.parse( "weekdays 06:00-14:00 x4, 14:00-22:00 x3; weekends 08:00-20:00 x3" );
+        LocalDate monday = MONDAY.toLocalDate();
+        List<Shift> shifts = pattern.stream( monday, monday.plusWeeks( 4 ) ).collect( Collectors.toList() );
+        for ( int i = 0; i < shifts.size(); i += 2 )
+        {
+            shifts.get( i ).setRequiredSkills( Collections.singleton( "forklift" ) );
+        }
+        ScheduleValidator validator = new ScheduleValidator( roster );
+
+        ShiftScheduler greedy = new ShiftScheduler( roster );
+        CoverageReport coverage = greedy.assignShifts( shifts );
+        ValidationReport report = validator.validate( greedy );
+        assertTrue( report.toString(), report.isValid() );
+        assertEquals( coverage.getAssigned(), report.getAssignments() );
+
+        FlowScheduler flow = new FlowScheduler( roster );
+        flow.assignShifts( shifts );
+        report = validator.validate( flow.getScheduler() );
+        assertTrue( report.toString(), report.isValid() );
+    }
+
+    public void testEveryRuleIsReported()
+    {
+        Employee ada = new Employee( "ada", "Ada", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Employee bob = new Employee( "bob", "Bob", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Employee cy = new Employee( "cy", "Cy", EnumSet.noneOf( DayOfWeek.class ), 2 );
+        Employee dee = new Employee( "dee", "Dee", EnumSet.of( DayOfWeek.SUNDAY ), 5 );
+        Employee eve = new Employee( "eve", "Eve", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Roster roster = new Roster( Arrays.asList( ada, bob, cy, dee, eve ) );
+        Shift forklift = shift( 0, 6, 8 );
+        forklift.setRequiredSkills( Collections.singleton( "forklift" ) );
+        Shift shortRest = shift( 0, 22, 8 );
+
+        List<Assignment> schedule = Arrays.asList(
+                new Assignment( ada, shift( 0, 6, 8 ), false ),
+                new Assignment( ada, shift( 0, 12, 8 ), false ),
+                new Assignment( bob, shift( 0, 6, 8 ), false ),
+                new Assignment( bob, shortRest, false ),
+                // Forcing is what allows a short rest or a day off
+                new Assignment( bob, shift( 2, 6, 8 ), false ),
+                new Assignment( bob, shift( 2, 22, 8 ), true ),
+                new Assignment( cy, shift( 2, 6, 8 ), false ),
+                new Assignment( cy, shift( 0, 6, 8 ), false ),
+                new Assignment( cy, shift( 1, 6, 8 ), false ),
+                new Assignment( dee, shift( 6, 6, 8 ), false ),
+                new Assignment( dee, shift( 13, 6, 8 ), true ),
+                new Assignment( eve, forklift, true ) );
+        ValidationReport report = new ScheduleValidator( roster ).validate( schedule );
+
+        assertEquals( schedule.size(), report.getAssignments() );
+        assertEquals( 5, report.getEmployees() );
+        List<ValidationReport.Violation> violations = report.getViolations();
+        assertEquals( report.toString(), 5, violations.size() );
+        for ( ValidationReport.Violation.Type type : ValidationReport.Violation.Type.values() )
+        {
+            assertEquals( type.toString(), 1, report.count( type ) );
+        }
+
+        // In roster order, and by start within an employee
+        assertEquals( ValidationReport.Violation.Type.OVERLAP, violations.get( 0 ).getType() );
+        assertEquals( 120, violations.get( 0 ).getAmount() );
+        assertEquals( ValidationReport.Violation.Type.REST_PERIOD, violations.get( 1 ).getType() );
+        assertSame( shortRest, violations.get( 1 ).getShift() );
+        assertEquals( 480, violations.get( 1 ).getAmount() );
+        assertEquals( ValidationReport.Violation.Type.MAX_CONSECUTIVE, violations.get( 2 ).getType() );
+        assertEquals( MONDAY.plusDays( 2 ), violations.get( 2 ).getShift().getStartTime() );
+        assertEquals( 3, violations.get( 2 ).getAmount() );
+        assertEquals( ValidationReport.Violation.Type.DAY_OFF, violations.get( 3 ).getType() );
+        assertSame( dee, violations.get( 3 ).getEmployee() );
+        assertEquals( ValidationReport.Violation.Type.SKILLS, violations.get( 4 ).getType() );
+        assertSame( forklift, violations.get( 4 ).getShift() );
+    }
+
+    public void testScheduleIsReadFromCSV() throws IOException
+    {
+        Employee ada = new Employee( "1", "Ada", EnumSet.of( DayOfWeek.MONDAY ), 5 );
+        ScheduleValidator validator = new ScheduleValidator( new Roster( Collections.singletonList( ada ) ) );
+        String csv = "Employee ID,Shift ID,Start,End,Forced\n"
+                + "1,a,2024-01-01T06:00,2024-01-01T14:00,true\n"
+                + "1,b,2024-01-02T06:00,2024-01-02T14:00,false\n"
+                + "1,c,2024-01-02T20:00,2024-01-03T04:00,\n";
+
+        ValidationReport report = validator.validateCSV( new StringReader( csv ) );
+
+        assertEquals( 3, report.getAssignments() );
+        assertEquals( 1, report.getViolations().size() );
+        ValidationReport.Violation violation = report.getViolations().get( 0 );
+        assertEquals( ValidationReport.Violation.Type.REST_PERIOD, violation.getType() );
+        assertEquals( "c", violation.getShift().getId() );
+        assertEquals( "b", violation.getOther().getId() );
+
+        try
+        {
+            validator.validateCSV( new StringReader( "Employee ID,Start,End\n2,2024-01-01T06:00,2024-01-01T14:00\n" ) );
+            fail( "Expected an IOException" );
+        }
+        catch ( IOException expected )
+        {
+            assertTrue( expected.getMessage().contains( "'2'" ) );
+        }
+    }
+
+    // A shift of the given length starting at the hour of the day so many days after Monday, January 1st 2024
+    private static Shift shift( int day, int hour, int hours )
+    {
+        LocalDateTime start = MONDAY.toLocalDate().plusDays( day ).atTime( hour, 0 );
+        return new Shift( null, start, start.plusHours( hours ) );
+    }
+}
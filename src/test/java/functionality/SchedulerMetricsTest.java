@@ -0,0 +1,111 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import core.Employee;
+import core.Shift;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for scheduler listeners, metrics and histograms.
+ */
+public class SchedulerMetricsTest extends TestCase
+{
+    public void testMetricsAgreeWithTheCoverageReport()
+    {
+        List<Employee> employees = TestRosters.employees( 5 );
+        ShiftScheduler scheduler = new ShiftScheduler( employees );
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        scheduler.setListener( metrics );
+        List<Shift> shifts = ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 14 ), 4 );
+        for ( Shift shift : shifts )
+        {
+            shift.setHeadcount( 2 );
+        }
+
+        CoverageReport report = scheduler.assignShifts( shifts );
+
+        assertEquals( shifts.size(), metrics.getShifts() );
+        assertEquals( report.getAssigned() - report.getForced(), metrics.getAssigned() );
+        assertEquals( report.getForced(), metrics.getForced() );
+        assertEquals( report.getUnfilled(), metrics.getUnfilled() );
+        assertTrue( metrics.getUnfilled() > 0 );
+        assertEquals( shifts.size(), metrics.getCandidatesScanned().count() );
+        assertTrue( metrics.getCandidatesScanned().max() <= 2 * employees.size() );
+        assertEquals( shifts.size(), metrics.getShiftNanos().count() );
+        // One latency sample per position filled, not per shift
+        assertEquals( report.getAssigned(), metrics.getAssignmentNanos().count() );
+
+        Histogram load = SchedulerMetrics.loadDistribution( scheduler.getState() );
+        assertEquals( employees.size(), load.count() );
+        assertEquals( (double) report.getAssigned() / employees.size(), load.mean(), 1e-9 );
+
+        scheduler.setListener( null );
+        scheduler.assignShifts( ShiftScheduler.generateShiftTemplates( MONDAY.plusDays( 14 ), MONDAY.plusDays( 15 ), 8 ) );
+        assertEquals( shifts.size(), metrics.getShifts() );
+    }
+
+    public void testHistogramBucketsStayWithinAnEighthOfTheValue()
+    {
+        Histogram histogram = new Histogram();
+        for ( long value = 1; value <= 1000; value++ )
+        {
+            histogram.record( value );
+        }
+        assertEquals( 1000, histogram.count() );
+        assertEquals( 500.5, histogram.mean(), 1e-9 );
+        assertEquals( 1000, histogram.max() );
+        assertEquals( 1, histogram.percentile( 0 ) );
+        assertTrue( histogram.percentile( 0.5 ) >= 500 && histogram.percentile( 0.5 ) <= 500 * 9 / 8 );
+        assertEquals( 1000, histogram.percentile( 1 ) );
+
+        for ( long value : new long[] { 0, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE } )
+        {
+            int bucket = Histogram.bucket( value );
+            assertTrue( value <= Histogram.upperBound( bucket ) );
+            assertTrue( bucket == 0 || value > Histogram.upperBound( bucket - 1 ) );
+        }
+        histogram.reset();
+        assertEquals( 0, histogram.count() );
+        assertEquals( 0, histogram.percentile( 0.99 ) );
+    }
+
+    public void testFlightRecorderGetsOneEventPerShift() throws IOException
+    {
+        ShiftScheduler scheduler = new ShiftScheduler( TestRosters.employees( 3 ) );
+        scheduler.setListener( new JfrSchedulerListener() );
+        List<Shift> shifts = ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 3 ), 8 );
+
+        File dump = File.createTempFile( "scheduler", ".jfr" );
+        dump.deleteOnExit();
+        Path path = dump.toPath();
+        try ( Recording recording = new Recording() )
+        {
+            recording.enable( "lemurshift.ShiftStaffed" );
+            recording.enable( "lemurshift.ForcedAssignment" );
+            recording.start();
+            scheduler.assignShifts( shifts );
+            recording.stop();
+            recording.dump( path );
+        }
+
+        int staffed = 0;
+        for ( RecordedEvent event : RecordingFile.readAllEvents( path ) )
+        {
+            if ( event.getEventType().getName().equals( "lemurshift.ShiftStaffed" ) )
+            {
+                staffed++;
+                assertEquals( 1, event.getInt( "required" ) );
+            }
+        }
+        assertEquals( shifts.size(), staffed );
+    }
+}
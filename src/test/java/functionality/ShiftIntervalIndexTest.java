@@ -0,0 +1,94 @@
+package functionality;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the per-employee index of shift intervals.
+ */
+public class ShiftIntervalIndexTest extends TestCase
+{
+    private static final long HOUR = 60;
+    private static final long DAY = 24 * HOUR;
+
+    public void testTouchingShiftsDoNotOverlap()
+    {
+        ShiftIntervalIndex index = new ShiftIntervalIndex();
+        index.add( 6 * HOUR, 14 * HOUR, 0 );
+
+        // Ending exactly at the start, or starting exactly at the end, is not an overlap
+        assertFalse( index.overlaps( 0, 6 * HOUR ) );
+        assertFalse( index.overlaps( 14 * HOUR, 22 * HOUR ) );
+        assertTrue( index.overlaps( 0, 6 * HOUR + 1 ) );
+        assertTrue( index.overlaps( 14 * HOUR - 1, 22 * HOUR ) );
+        assertTrue( index.overlaps( 8 * HOUR, 10 * HOUR ) );
+        assertTrue( index.overlaps( 0, DAY ) );
+        // Same start, even for an empty shift
+        assertTrue( index.overlaps( 6 * HOUR, 6 * HOUR ) );
+
+        // The rest gap only depends on the neighbours
+        assertEquals( 14 * HOUR, index.previousEnd( 22 * HOUR ) );
+        assertEquals( 14 * HOUR, index.previousEnd( 6 * HOUR + 1 ) );
+        assertEquals( ShiftIntervalIndex.NONE_BEFORE, index.previousEnd( 6 * HOUR ) );
+        assertEquals( 6 * HOUR, index.nextStart( 6 * HOUR ) );
+        assertEquals( ShiftIntervalIndex.NONE_AFTER, index.nextStart( 6 * HOUR + 1 ) );
+    }
+
+    public void testOutOfOrderInsertsKeepStartOrder()
+    {
+        ShiftIntervalIndex index = new ShiftIntervalIndex( 1 );
+        index.add( 2 * DAY, 2 * DAY + 8 * HOUR, 0 );
+        index.add( 0, 8 * HOUR, 1 );
+        index.add( 4 * DAY, 4 * DAY + 8 * HOUR, 2 );
+        index.add( DAY, DAY + 8 * HOUR, 3 ); // Between existing shifts
+
+        assertEquals( 4, index.size() );
+        assertEquals( 0, index.firstStart() );
+        assertEquals( 4 * DAY + 8 * HOUR, index.lastEnd() );
+        assertEquals( 1, index.idAt( 0 ) );
+        assertEquals( 3, index.idAt( DAY ) );
+        assertEquals( -1, index.idAt( DAY + HOUR ) );
+        assertEquals( 2, index.countBefore( 2 * DAY ) );
+        assertEquals( DAY + 8 * HOUR, index.previousEnd( 2 * DAY ) );
+        assertEquals( 2 * DAY, index.nextStart( DAY + 8 * HOUR ) );
+        assertFalse( index.overlaps( DAY + 8 * HOUR, 2 * DAY ) );
+        assertTrue( index.overlaps( DAY + 7 * HOUR, 2 * DAY ) );
+    }
+
+    public void testRunsAndRemoval()
+    {
+        // Monday to Wednesday, then Friday: Thursday without shifts breaks the run
+        ShiftIntervalIndex index = new ShiftIntervalIndex();
+        for ( int day : new int[] { 0, 1, 2, 4 } )
+        {
+            index.add( day * DAY, day * DAY + 8 * HOUR, day );
+        }
+        long breakMinutes = ScheduleState.RUN_BREAK_MINUTES;
+        assertEquals( 1, index.lastRun( breakMinutes ) );
+        assertEquals( 3, index.runBefore( 3 * DAY, breakMinutes ) );
+        assertEquals( 0, index.runBefore( 0, breakMinutes ) );
+        assertEquals( 1, index.runAfter( 3 * DAY + 8 * HOUR, breakMinutes ) );
+        assertEquals( 2, index.runAfter( DAY - 8 * HOUR, breakMinutes ) );
+
+        // Only the exact shift is removed
+        assertFalse( index.remove( 4 * DAY, 3 ) );
+        assertFalse( index.remove( 4 * DAY + 1, 4 ) );
+        assertTrue( index.remove( 4 * DAY, 4 ) );
+        assertEquals( 3, index.size() );
+        assertEquals( 3, index.lastRun( breakMinutes ) );
+        assertTrue( index.remove( DAY, 1 ) );
+        assertEquals( 1, index.lastRun( breakMinutes ) );
+        assertEquals( 1, index.runBefore( DAY, breakMinutes ) );
+        assertFalse( index.overlaps( DAY, DAY + 8 * HOUR ) );
+
+        // A copy is independent
+        ShiftIntervalIndex copy = index.copy();
+        copy.add( DAY, DAY + 8 * HOUR, 1 );
+        assertEquals( 3, copy.lastRun( breakMinutes ) );
+        assertEquals( 2, index.size() );
+        assertTrue( index.remove( 0, 0 ) );
+        assertTrue( index.remove( 2 * DAY, 2 ) );
+        assertEquals( 0, index.lastRun( breakMinutes ) );
+        assertEquals( ShiftIntervalIndex.NONE_BEFORE, index.lastEnd() );
+        assertEquals( 3, copy.size() );
+    }
+}
@@ -0,0 +1,421 @@
+package functionality;
+
+import static functionality.TestRosters.MONDAY;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import core.Employee;
+import core.Roster;
+import core.Shift;
+import core.ShiftPattern;
+import junit.framework.TestCase;
+
+/**
+ * Unit test for the shift scheduler and its per-run state.
+ */
+public class ShiftSchedulerTest extends TestCase
+{
+    public void testRunsOverOneRosterAreIndependentAndLeaveEmployeesUntouched()
+    {
+        List<Employee> employees = TestRosters.employees( 5 );
+        Roster roster = new Roster( employees );
+        List<Shift> shifts = ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 7 ), 8 );
+
+        ShiftScheduler first = new ShiftScheduler( roster );
+        first.assignShifts( shifts );
+        ShiftScheduler second = new ShiftScheduler( roster );
+        second.assignShifts( shifts );
+
+        for ( Employee employee : employees )
+        {
+            assertEquals( first.getAssignedShifts( employee ), second.getAssignedShifts( employee ) );
+            assertNull( employee.getLastShiftEndTime() );
+            assertEquals( 0, employee.getCurrentConsecutiveShiftCount() );
+        }
+        assertEquals( first.getState().assignmentCount(), second.getState().assignmentCount() );
+    }
+
+    public void testStateCountsMatchAssignedShifts()
+    {
+        List<Employee> employees = TestRosters.employees( 4 );
+        ShiftScheduler scheduler = new ShiftScheduler( employees );
+        scheduler.assignShifts( ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 3 ), 8 ) );
+
+        ScheduleState state = scheduler.getState();
+        int total = 0;
+        for ( int slot = 0; slot < state.roster().size(); slot++ )
+        {
+            List<Shift> assigned = state.assignedShifts( slot );
+            assertEquals( state.load( slot ), assigned.size() );
+            if ( !assigned.isEmpty() )
+            {
+                assertEquals( assigned.get( assigned.size() - 1 ).getEndMinute(), state.lastShiftEnd( slot ) );
+            }
+            total += assigned.size();
+        }
+        assertEquals( state.assignmentCount(), total );
+        for ( int assignment = 0; assignment < state.assignmentCount(); assignment++ )
+        {
+            Shift shift = state.shift( assignment );
+            assertTrue( state.assignedShifts( state.assignee( assignment ) ).contains( shift ) );
+        }
+    }
+
+    public void testRosterGivesDuplicatesOneSlot()
+    {
+        Employee employee = new Employee( "1", "Ada", EnumSet.of( DayOfWeek.SUNDAY ), 5 );
+        List<Employee> employees = new ArrayList<>();
+        employees.add( employee );
+        employees.add( employee );
+
+        Roster roster = new Roster( employees );
+        assertEquals( 1, roster.size() );
+        assertEquals( 0, roster.slotOf( employee ) );
+        assertTrue( roster.isDayOff( 0, DayOfWeek.SUNDAY ) );
+        assertFalse( roster.isDayOff( 0, DayOfWeek.MONDAY ) );
+        assertEquals( -1, roster.slotOf( new Employee( "1", "Ada", EnumSet.of( DayOfWeek.SUNDAY ), 5 ) ) );
+    }
+
+    public void testShiftsNeedingSkillsOnlyGoToQualifiedEmployees()
+    {
+        List<Employee> employees = TestRosters.employees( 200 );
+        Employee pharmacist = new Employee( "p", "Pharmacist", EnumSet.of( DayOfWeek.MONDAY ),
+                5, Collections.singleton( "pharmacist" ) );
+        employees.add( pharmacist );
+        ShiftScheduler scheduler = new ShiftScheduler( employees );
+
+        Shift counter = new Shift( "counter", MONDAY, MONDAY.plusHours( 8 ) );
+        counter.setRequiredSkills( Collections.singleton( "pharmacist" ) );
+        Shift nobody = new Shift( "forklift", MONDAY.plusDays( 1 ), MONDAY.plusDays( 1 ).plusHours( 8 ) );
+        nobody.setRequiredSkills( Collections.singleton( "forklift" ) );
+        scheduler.assignShifts( Arrays.asList( counter, nobody ) );
+
+        // Monday is the pharmacist's day off, but only a forced assignment can staff the shift
+        assertEquals( Arrays.asList( counter ), scheduler.getAssignedShifts( pharmacist ) );
+        assertTrue( scheduler.getState().isForced( 0 ) );
+        assertEquals( 1, scheduler.getState().assignmentCount() );
+    }
+
+    public void testHeadcountIsFilledInOnePassAndShortfallIsReported()
+    {
+        List<Employee> employees = TestRosters.employees( 10 );
+        ShiftScheduler scheduler = new ShiftScheduler( employees );
+        Shift big = new Shift( "big", MONDAY, MONDAY.plusHours( 8 ) );
+        big.setHeadcount( 6 );
+        Shift tooBig = new Shift( "too big", MONDAY.plusDays( 1 ), MONDAY.plusDays( 1 ).plusHours( 8 ) );
+        tooBig.setHeadcount( 12 );
+
+        CoverageReport report = scheduler.assignShifts( Arrays.asList( big, tooBig ) );
+
+        assertEquals( 18, report.getRequired() );
+        assertEquals( 16, report.getAssigned() );
+        assertEquals( 2, report.getUnfilled() );
+        assertEquals( 1, report.getUnderCovered().size() );
+        CoverageReport.ShiftCoverage shortfall = report.getUnderCovered().get( 0 );
+        assertSame( tooBig, shortfall.getShift() );
+        assertEquals( 2, shortfall.getMissing() );
+
+        // Each employee holds a shift at most once, and the least loaded ones got the second shift
+        int holdingBoth = 0;
+        for ( Employee employee : employees )
+        {
+            List<Shift> assigned = scheduler.getAssignedShifts( employee );
+            assertEquals( assigned.size(), new java.util.HashSet<>( assigned ).size() );
+            if ( assigned.size() == 2 )
+            {
+                holdingBoth++;
+            }
+        }
+        assertEquals( 6, holdingBoth );
+    }
+
+    public void testStreamedPatternMatchesMaterializedShifts()
+    {
+        ShiftPattern pattern = ShiftPattern.parse( "weekdays 06:00-14:00 x2, 14:00-22:00; weekends 08:00-20:00" );
+        LocalDate start = MONDAY.toLocalDate();
+        List<Employee> employees = TestRosters.employees( 12 );
+        ShiftScheduler streamed = new ShiftScheduler( employees );
+        CoverageReport streamedReport = streamed.assignShifts( pattern.stream( start, start.plusDays( 28 ) ) );
+        ShiftScheduler listed = new ShiftScheduler( employees );
+        CoverageReport listedReport = listed.assignShifts(
+                pattern.stream( start, start.plusDays( 28 ) ).collect( Collectors.toList() ) );
+
+        assertEquals( listedReport.getAssigned(), streamedReport.getAssigned() );
+        assertEquals( listedReport.getForced(), streamedReport.getForced() );
+        for ( Employee employee : employees )
+        {
+            assertEquals( ids( listed.getAssignedShifts( employee ) ), ids( streamed.getAssignedShifts( employee ) ) );
+        }
+    }
+
+    public void testRollingHorizonKeepsHistoryBoundedAndSummarized()
+    {
+        ShiftPattern pattern = ShiftPattern.parse( "daily 06:00-14:00 x2, 14:00-22:00, 22:00-06:00" );
+        LocalDate start = MONDAY.toLocalDate();
+        List<Employee> employees = TestRosters.employees( 12 );
+        ShiftScheduler rolling = new ShiftScheduler( employees );
+        rolling.enableRollingHorizon();
+        ShiftScheduler full = new ShiftScheduler( employees );
+
+        ScheduleState state = rolling.getState();
+        int maxRetained = 0;
+        for ( int week = 0; week < 52; week++ )
+        {
+            LocalDate from = start.plusWeeks( week );
+            rolling.assignShifts( pattern.stream( from, from.plusWeeks( 1 ) ) );
+            full.assignShifts( pattern.stream( from, from.plusWeeks( 1 ) ) );
+            maxRetained = Math.max( maxRetained, state.assignmentCount() - state.firstRetainedAssignment() );
+        }
+
+        // A day of look-back is a handful of shifts, whatever the length of the run
+        assertEquals( 52 * 7 * 4, state.assignmentCount() );
+        assertTrue( "retained " + maxRetained, maxRetained <= 2 * 4 );
+        ScheduleState fullState = full.getState();
+        for ( int slot = 0; slot < state.roster().size(); slot++ )
+        {
+            // Eviction changes nothing about the assignments, and the summaries account for every evicted shift
+            List<Shift> all = fullState.assignedShifts( slot );
+            List<Shift> retained = state.assignedShifts( slot );
+            assertEquals( fullState.load( slot ), state.load( slot ) );
+            assertEquals( state.load( slot ), state.evictedShifts( slot ) + retained.size() );
+            assertEquals( ids( all.subList( all.size() - retained.size(), all.size() ) ), ids( retained ) );
+            assertEquals( (long) state.evictedShifts( slot ) * 8 * 60, state.evictedMinutes( slot ) );
+        }
+        try
+        {
+            state.shift( 0 );
+            fail( "Evicted assignment returned" );
+        }
+        catch ( IndexOutOfBoundsException expected )
+        {
+        }
+        try
+        {
+            rolling.assignShifts( Collections.singletonList( new Shift( "late", MONDAY, MONDAY.plusHours( 8 ) ) ) );
+            fail( "Shift before the watermark accepted" );
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+    }
+
+    public void testConsecutiveRunEndsAfterADayWithoutShifts()
+    {
+        Employee employee = new Employee( "1", "Ada", EnumSet.noneOf( DayOfWeek.class ), 2 );
+        ShiftScheduler scheduler = new ShiftScheduler( Collections.singletonList( employee ) );
+        List<Shift> shifts = new ArrayList<>();
+        for ( int day : new int[] { 0, 1, 2, 4, 5 } )
+        {
+            shifts.add( new Shift( "day " + day, MONDAY.plusDays( day ), MONDAY.plusDays( day ).plusHours( 8 ) ) );
+        }
+
+        CoverageReport report = scheduler.assignShifts( shifts );
+
+        // The third day in a row exceeds the limit even for a forced assignment; the free day starts a new run
+        assertEquals( Arrays.asList( "day 0", "day 1", "day 4", "day 5" ), ids( scheduler.getAssignedShifts( employee ) ) );
+        assertEquals( 1, report.getUnfilled() );
+        assertEquals( 2, scheduler.getState().consecutiveShifts( 0 ) );
+    }
+
+    public void testCallOutIsRepairedWithoutTouchingOtherAssignments()
+    {
+        List<Employee> employees = TestRosters.employees( 8 );
+        ShiftScheduler scheduler = new ShiftScheduler( employees );
+        List<Shift> shifts = ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 14 ), 8 );
+        scheduler.assignShifts( shifts );
+        Shift sick = shifts.get( 10 );
+        Employee caller = null;
+        for ( Employee employee : employees )
+        {
+            if ( scheduler.getAssignedShifts( employee ).contains( sick ) )
+            {
+                caller = employee;
+            }
+        }
+        List<List<Shift>> before = new ArrayList<>();
+        for ( Employee employee : employees )
+        {
+            before.add( new ArrayList<>( scheduler.getAssignedShifts( employee ) ) );
+        }
+
+        assertTrue( scheduler.unassign( caller, sick ) );
+        assertFalse( scheduler.unassign( caller, sick ) );
+        ScheduleDiff diff = scheduler.repair();
+
+        assertEquals( 1, diff.getRemoved().size() );
+        assertSame( caller, diff.getRemoved().get( 0 ).getEmployee() );
+        assertEquals( 1, diff.getAdded().size() );
+        Assignment replacement = diff.getAdded().get( 0 );
+        assertNotSame( caller, replacement.getEmployee() );
+        assertEquals( sick, replacement.getShift() );
+        assertTrue( diff.getCoverage().isFullyCovered() );
+        for ( int i = 0; i < employees.size(); i++ )
+        {
+            // Everybody keeps their shifts; the caller loses one and the replacement gains it
+            List<Shift> expected = new ArrayList<>( before.get( i ) );
+            if ( employees.get( i ) == caller )
+            {
+                expected.remove( sick );
+            }
+            if ( employees.get( i ) == replacement.getEmployee() )
+            {
+                expected.add( sick );
+            }
+            assertEquals( new java.util.HashSet<>( expected ), new java.util.HashSet<>( scheduler.getAssignedShifts( employees.get( i ) ) ) );
+        }
+        assertTrue( scheduler.repair().isEmpty() );
+    }
+
+    public void testRepairChecksTheNeighbouringShifts()
+    {
+        Employee ada = new Employee( "1", "Ada", EnumSet.noneOf( DayOfWeek.class ), 3 );
+        ShiftScheduler scheduler = new ShiftScheduler( Collections.singletonList( ada ) );
+        List<Shift> days = new ArrayList<>();
+        for ( int day : new int[] { 0, 1, 3, 4 } )
+        {
+            days.add( new Shift( "day " + day, MONDAY.plusDays( day ), MONDAY.plusDays( day ).plusHours( 8 ) ) );
+        }
+        scheduler.assignShifts( days );
+
+        // A shift on the free day 2 would join both runs into one of five, which not even a forced assignment may
+        // do, while one on day 6 follows a free day
+        Shift between = new Shift( "between", MONDAY.plusDays( 2 ), MONDAY.plusDays( 2 ).plusHours( 8 ) );
+        Shift later = new Shift( "later", MONDAY.plusDays( 6 ), MONDAY.plusDays( 6 ).plusHours( 8 ) );
+        scheduler.addShift( later );
+        scheduler.addShift( between );
+        ScheduleDiff diff = scheduler.repair();
+
+        assertEquals( 1, diff.getAdded().size() );
+        assertEquals( later, diff.getAdded().get( 0 ).getShift() );
+        assertEquals( 1, diff.getCoverage().getUnderCovered().size() );
+        assertEquals( between, diff.getCoverage().getUnderCovered().get( 0 ).getShift() );
+        assertEquals( 1, scheduler.getState().consecutiveShifts( 0 ) );
+    }
+
+    public void testRemovedEmployeeLosesFutureShiftsAndIsNeverPickedAgain()
+    {
+        List<Employee> employees = TestRosters.employees( 6 );
+        ShiftScheduler scheduler = new ShiftScheduler( employees );
+        scheduler.assignShifts( ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 7 ), 8 ) );
+        Employee leaver = employees.get( 0 );
+        int held = scheduler.getAssignedShifts( leaver ).size();
+        int kept = 0;
+        for ( Shift shift : scheduler.getAssignedShifts( leaver ) )
+        {
+            kept += shift.getStartTime().isBefore( MONDAY.plusDays( 3 ) ) ? 1 : 0;
+        }
+
+        scheduler.removeEmployee( leaver, MONDAY.plusDays( 3 ) );
+        ScheduleDiff diff = scheduler.repair();
+
+        assertEquals( held - kept, diff.getRemoved().size() );
+        assertEquals( kept, scheduler.getAssignedShifts( leaver ).size() );
+        assertEquals( diff.getRemoved().size(), diff.getCoverage().getRequired() );
+        for ( Assignment assignment : diff.getAdded() )
+        {
+            assertNotSame( leaver, assignment.getEmployee() );
+        }
+        scheduler.assignShifts( ShiftScheduler.generateShiftTemplates( MONDAY.plusDays( 7 ), MONDAY.plusDays( 9 ), 8 ) );
+        assertEquals( kept, scheduler.getAssignedShifts( leaver ).size() );
+    }
+
+    public void testGeneratedTemplatesCanBeEdited()
+    {
+        List<Shift> shifts = ShiftScheduler.generateShiftTemplates( MONDAY, MONDAY.plusDays( 1 ), 8 );
+        assertEquals( 3, shifts.size() );
+        shifts.add( shift( 1, 6 ) );
+        shifts.remove( 0 );
+        shifts.sort( ( a, b ) -> b.getStartTime().compareTo( a.getStartTime() ) );
+        assertEquals( MONDAY.plusDays( 1 ), shifts.get( 0 ).getStartTime() );
+    }
+
+    public void testUpdatedRosterOnlyTouchesEditedEmployees()
+    {
+        Employee ada = new Employee( "ada", "Ada", EnumSet.noneOf( DayOfWeek.class ), 5, Collections.singleton( "forklift" ) );
+        Employee bob = new Employee( "bob", "Bob", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Employee cy = new Employee( "cy", "Cy", EnumSet.noneOf( DayOfWeek.class ), 3 );
+        Employee eve = new Employee( "eve", "Eve", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        Roster roster = new Roster( Arrays.asList( ada, bob, cy, eve ) );
+        ShiftScheduler scheduler = new ShiftScheduler( roster );
+        Shift forklift = shift( 1, 6 );
+        forklift.setRequiredSkills( Collections.singleton( "forklift" ) );
+        assertTrue( scheduler.place( 0, shift( 0, 6 ), false ) );
+        assertTrue( scheduler.place( 0, forklift, false ) );
+        assertTrue( scheduler.place( 1, shift( 0, 14 ), false ) );
+        assertTrue( scheduler.place( 1, shift( 2, 6 ), false ) );
+        for ( int day = 1; day <= 3; day++ )
+        {
+            assertTrue( scheduler.place( 2, shift( day, 14 ), false ) );
+        }
+        assertTrue( scheduler.place( 3, shift( 3, 6 ), false ) );
+
+        // Ada gets Monday off and loses her skill, Cy's runs get shorter, Bob leaves and Dan joins; Eve is read
+        // again unchanged
+        Employee adaEdited = new Employee( "ada", "Ada", EnumSet.of( DayOfWeek.MONDAY ), 5 );
+        Employee cyEdited = new Employee( "cy", "Cy", EnumSet.noneOf( DayOfWeek.class ), 2 );
+        Employee dan = new Employee( "dan", "Dan", EnumSet.noneOf( DayOfWeek.class ), 5 );
+        RosterUpdate update = scheduler.updateRoster( Arrays.asList( adaEdited,
+                new Employee( "eve", "Eve", EnumSet.noneOf( DayOfWeek.class ), 5 ), cyEdited, dan ), MONDAY );
+
+        assertEquals( Collections.singletonList( dan ), update.getAdded() );
+        assertEquals( Collections.singletonList( bob ), update.getRemoved() );
+        assertEquals( Arrays.asList( adaEdited, cyEdited ), update.getChanged() );
+        assertEquals( 5, update.getPositionsOpened() );
+        Roster updated = scheduler.getState().roster();
+        assertEquals( 5, updated.size() );
+        assertSame( adaEdited, updated.employee( 0 ) );
+        assertSame( eve, updated.employee( 3 ) );
+        assertSame( dan, updated.employee( 4 ) );
+        assertEquals( 0, updated.skillCount( "forklift" ) );
+        assertEquals( 2, scheduler.getAssignedShifts( cyEdited ).size() );
+        // The roster the scheduler started from is left as it was
+        assertEquals( 4, roster.size() );
+        assertSame( ada, roster.employee( 0 ) );
+        assertEquals( 1, roster.skillCount( "forklift" ) );
+
+        ScheduleDiff diff = scheduler.repair();
+        assertEquals( 5, diff.getRemoved().size() );
+        assertEquals( 4, diff.getAdded().size() );
+        for ( Assignment assignment : diff.getAdded() )
+        {
+            assertNotSame( bob, assignment.getEmployee() );
+            assertNotSame( forklift, assignment.getShift() );
+        }
+        assertTrue( new ScheduleValidator( updated ).validate( scheduler ).isValid() );
+
+        try
+        {
+            scheduler.updateRoster( Arrays.asList( eve, eve ), MONDAY );
+            fail( "Expected an IllegalArgumentException" );
+        }
+        catch ( IllegalArgumentException expected )
+        {
+            assertSame( updated, scheduler.getState().roster() );
+        }
+    }
+
+    private static List<String> ids( List<Shift> shifts )
+    {
+        List<String> ids = new ArrayList<>();
+        for ( Shift shift : shifts )
+        {
+            ids.add( shift.getId() );
+        }
+        return ids;
+    }
+
+    // An eight-hour shift starting at the hour of the day so many days after Monday, January 1st 2024
+    private static Shift shift( int day, int hour )
+    {
+        LocalDateTime start = MONDAY.toLocalDate().plusDays( day ).atTime( hour, 0 );
+        return new Shift( null, start, start.plusHours( 8 ) );
+    }
+}
@@ -0,0 +1,55 @@
+package functionality;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import core.Employee;
+
+/**
+ * Roster fixtures and dates shared by the scheduler tests.
+ */
+final class TestRosters
+{
+    // Monday, January 1st 2024, 6:00, where the test schedules start
+    static final LocalDateTime MONDAY = LocalDateTime.of( 2024, 1, 1, 6, 0 );
+
+    private TestRosters()
+    {
+    }
+
+    // Employees "0" to count - 1, each off on one day of the week in turn and with at most five consecutive shifts
+    static List<Employee> employees( int count )
+    {
+        return employees( count, null );
+    }
+
+    // As employees( count ), with the given skill for every even-numbered employee
+    static List<Employee> employees( int count, String evenSkill )
+    {
+        List<Employee> employees = new ArrayList<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            employees.add( new Employee( String.valueOf( i ), "Employee " + i, EnumSet.of( DayOfWeek.of( i % 7 + 1 ) ), 5,
+                    evenSkill != null && i % 2 == 0 ? Collections.singleton( evenSkill ) : Collections.<String>emptySet() ) );
+        }
+        return employees;
+    }
+
+    // Employees "0" to count - 1 with one or two days off drawn from random, every fourth one with the forklift skill
+    static List<Employee> employeesWithRandomDaysOff( int count, Random random )
+    {
+        List<Employee> employees = new ArrayList<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            EnumSet<DayOfWeek> daysOff = EnumSet.of( DayOfWeek.of( random.nextInt( 7 ) + 1 ), DayOfWeek.of( random.nextInt( 7 ) + 1 ) );
+            employees.add( new Employee( String.valueOf( i ), "Employee " + i, daysOff, 5,
+                    i % 4 == 0 ? Collections.singleton( "forklift" ) : Collections.<String>emptySet() ) );
+        }
+        return employees;
+    }
+}